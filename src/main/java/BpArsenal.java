@@ -3,6 +3,7 @@ import burp.api.montoya.MontoyaApi;
 import burp.api.montoya.extension.ExtensionUnloadingHandler;
 import manager.ApiManager;
 import manager.ConfigManager;
+import manager.TempArtifactManager;
 import util.I18nManager;
 import view.MainPanel;
 import view.menu.ArsenalMenuProvider;
@@ -36,6 +37,10 @@ public class BpArsenal implements BurpExtension {
             // 初始化配置管理器
             ConfigManager.getInstance();
 
+            // 初始化临时产物管理器（清理遗留临时文件并启动回收线程），卸载插件时删除未使用的临时文件
+            TempArtifactManager.getInstance();
+            api.extension().registerUnloadingHandler(() -> TempArtifactManager.getInstance().shutdown());
+
             // 创建主面板（会自动初始化所有子面板
             MainPanel mainPanel = new MainPanel();
 
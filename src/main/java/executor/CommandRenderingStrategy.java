@@ -2,7 +2,9 @@ package executor;
 
 import burp.api.montoya.http.message.requests.HttpRequest;
 import burp.api.montoya.http.message.responses.HttpResponse;
+import executor.dsl.DslTemplateCompiler;
 import executor.dsl.DslVariableReplacer;
+import executor.dsl.TemplateDependencies;
 import model.HttpToolCommand;
 
 import java.util.List;
@@ -40,10 +42,17 @@ public class CommandRenderingStrategy {
                 return command;
             }
             
+            // 分析模板依赖，只构建命令需要的上下文
+            TemplateDependencies dependencies = DslTemplateCompiler.analyze(command);
+            boolean batchSelection = allSelectedRequests != null && allSelectedRequests.size() > 1;
+            
             // 使用DSL替换器处理变量
-            if (allSelectedRequests != null && allSelectedRequests.size() > 1) {
+            if (batchSelection && dependencies.usesHttpList()) {
                 // 批量请求模式
                 return dslReplacer.replaceWithList(command, allSelectedRequests, null);
+            } else if (batchSelection) {
+                // 多选但模板未引用httpList，只需第一个请求，无需构建列表上下文
+                return dslReplacer.replace(command, allSelectedRequests.get(0), null);
             } else {
                 // 单个请求模式
                 return dslReplacer.replace(command, primaryRequest, httpResponse);
@@ -0,0 +1,276 @@
+package executor;
+
+import manager.TempArtifactManager;
+import util.BpLogger;
+import util.TempFileStore;
+
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 命名管道投递器
+ * 负责 pipe()/stdin() 使用的POSIX命名管道（FIFO）：执行渲染时只生成随机的管道路径并登记待投递的内容，
+ * {@link ToolExecutor} 启动命令前为命令引用的管道创建FIFO并启动写入线程，工具打开管道读取时开始流式写入
+ *
+ * 内容只生成一次、不落盘；管道缓冲区写满时写入线程阻塞，工具读取多快就写多快。
+ * 每个管道只投递一次，写完后关闭写端（读取方收到EOF）并删除管道，投递完成后不再持有内容
+ *
+ * 预览渲染和复制渲染不登记内容（复制渲染改为写入临时文件）；登记后没有启动的命令的内容超时后丢弃。
+ * 等待读取方超时的写入线程由自身打开管道读端解除阻塞后结束
+ */
+public final class PipeFeeder {
+    
+    private static final String MODULE = "PipeFeeder";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    // 写入线程等待工具打开管道的最长时间
+    private static final long CONNECT_TIMEOUT_MINUTES = 10;
+    
+    // 登记的内容等待命令启动的最长时间（渲染后立即启动，超时说明命令不会启动）
+    private static final long PENDING_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(2);
+    
+    private static final Map<Path, Pending> pending = new ConcurrentHashMap<>();
+    private static final SecureRandom random = new SecureRandom();
+    
+    private static final ExecutorService feeders = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "BpArsenal-PipeFeeder");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private static final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "BpArsenal-PipeWatchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private static volatile Boolean supported;
+    
+    private PipeFeeder() {
+    }
+    
+    /**
+     * 当前系统是否支持命名管道
+     * Windows不支持，其他系统需要mkfifo命令可用
+     * @return 是否支持
+     */
+    public static boolean isSupported() {
+        Boolean result = supported;
+        if (result == null) {
+            result = !ToolExecutor.isWindows() && probeMkfifo();
+            supported = result;
+        }
+        return result;
+    }
+    
+    /**
+     * 生成随机的管道路径（不创建管道）
+     * 名称为前缀加64位十六进制随机数，与临时产物的命名约定一致
+     * @param directory 所在目录
+     * @param prefix 文件名前缀
+     * @return 管道路径
+     */
+    public static Path newPipePath(Path directory, String prefix) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        return directory.resolve(prefix + HexFormat.of().formatHex(bytes)).toAbsolutePath().normalize();
+    }
+    
+    /**
+     * 登记待投递的内容，返回命令中引用的管道路径
+     * 管道在命令启动时才创建，见 {@link #feedReferenced(String)}
+     * @param directory 管道所在目录
+     * @param prefix 管道文件名前缀
+     * @param writer 内容写入器，投递时调用一次
+     * @return 管道路径
+     */
+    public static Path offer(Path directory, String prefix, TempFileStore.ContentWriter writer) {
+        // 顺带丢弃超时未启动的内容，不让渲染上下文长期驻留
+        long now = System.currentTimeMillis();
+        pending.values().removeIf(entry -> now - entry.offeredAt > PENDING_TIMEOUT_MILLIS);
+        
+        Path fifo = newPipePath(directory, prefix);
+        pending.put(fifo, new Pending(writer, now));
+        return fifo;
+    }
+    
+    /**
+     * 为命令中引用的每个管道创建FIFO并启动投递
+     * 需要在启动命令之前调用，保证工具打开管道时管道已经存在
+     * @param command 即将启动的命令
+     */
+    public static void feedReferenced(String command) {
+        if (command == null || command.isEmpty()) {
+            return;
+        }
+        for (Path fifo : new ArrayList<>(pending.keySet())) {
+            if (!command.contains(fifo.toString())) {
+                continue;
+            }
+            Pending entry = pending.remove(fifo);
+            if (entry == null) {
+                continue;
+            }
+            
+            TempArtifactManager.getInstance().track(fifo);
+            try {
+                createPipe(fifo);
+            } catch (IOException e) {
+                // 无法创建管道（如文件系统不支持），同一路径改为写入普通文件
+                BpLogger.getInstance().warn(MODULE, "创建命名管道失败，改为写入文件: " + fifo + " - " + e.getMessage());
+                writeFile(fifo, entry.writer);
+                continue;
+            }
+            feeders.execute(() -> feed(fifo, entry.writer));
+        }
+    }
+    
+    /**
+     * 创建命名管道（仅当前用户可读写）
+     */
+    private static void createPipe(Path fifo) throws IOException {
+        Files.createDirectories(fifo.getParent());
+        Process process = new ProcessBuilder("mkfifo", "-m", "600", fifo.toString())
+            .redirectErrorStream(true)
+            .start();
+        try {
+            String output = new String(process.getInputStream().readAllBytes()).trim();
+            if (process.waitFor() != 0) {
+                throw new IOException("mkfifo failed: " + output);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("mkfifo interrupted", e);
+        }
+    }
+    
+    private static void feed(Path fifo, TempFileStore.ContentWriter writer) {
+        Feed feed = new Feed(fifo);
+        ScheduledFuture<?> timeout = watchdog.schedule(feed::abandonIfWaiting, CONNECT_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+        
+        // 打开写端会阻塞到工具打开读端为止
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(fifo.toFile()), BUFFER_SIZE)) {
+            if (!feed.connect()) {
+                return;
+            }
+            timeout.cancel(false);
+            writer.writeTo(out);
+        } catch (IOException e) {
+            // 工具提前关闭读端（Broken pipe）等情况，结束本次投递
+            BpLogger.getInstance().debug(MODULE, "管道投递结束: " + fifo + " - " + e.getMessage());
+        } catch (RuntimeException e) {
+            BpLogger.getInstance().warn(MODULE, "管道内容生成失败: " + fifo + " - " + e.getMessage());
+        } finally {
+            timeout.cancel(false);
+            // 管道只投递一次；已打开的读端不受删除影响
+            try {
+                Files.deleteIfExists(fifo);
+            } catch (IOException e) {
+                // 留给临时产物回收
+            }
+        }
+    }
+    
+    /**
+     * 把内容写入普通文件（写入暂存文件后原子重命名）
+     */
+    private static void writeFile(Path file, TempFileStore.ContentWriter writer) {
+        try {
+            Path staging = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".part");
+            try {
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(staging), BUFFER_SIZE)) {
+                    writer.writeTo(out);
+                }
+                TempFileStore.moveIntoPlace(staging, file);
+            } finally {
+                Files.deleteIfExists(staging);
+            }
+            TempArtifactManager.getInstance().track(file);
+        } catch (IOException | RuntimeException e) {
+            BpLogger.getInstance().warn(MODULE, "写入文件失败: " + file + " - " + e.getMessage());
+        }
+    }
+    
+    private static boolean probeMkfifo() {
+        try {
+            Process process = new ProcessBuilder("mkfifo", "--version").redirectErrorStream(true).start();
+            process.getInputStream().readAllBytes();
+            process.waitFor();
+            return true;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+    
+    /**
+     * 登记的待投递内容
+     */
+    private static final class Pending {
+        private final TempFileStore.ContentWriter writer;
+        private final long offeredAt;
+        
+        Pending(TempFileStore.ContentWriter writer, long offeredAt) {
+            this.writer = writer;
+            this.offeredAt = offeredAt;
+        }
+    }
+    
+    /**
+     * 单次投递的连接状态
+     */
+    private static final class Feed {
+        private final Path fifo;
+        private boolean connected;
+        private boolean abandoned;
+        
+        Feed(Path fifo) {
+            this.fifo = fifo;
+        }
+        
+        /**
+         * 写端打开后调用
+         * @return 是读取方打开了管道（而不是超时后自身打开读端）
+         */
+        synchronized boolean connect() {
+            connected = true;
+            return !abandoned;
+        }
+        
+        /**
+         * 超时仍未连接时自身打开读端，使阻塞在打开写端的线程返回
+         */
+        void abandonIfWaiting() {
+            synchronized (this) {
+                if (connected) {
+                    return;
+                }
+                abandoned = true;
+            }
+            BpLogger.getInstance().debug(MODULE, "管道等待读取超时: " + fifo);
+            try {
+                // 只需打开后立即关闭
+                new FileInputStream(fifo.toFile()).close();
+            } catch (IOException e) {
+                // 管道已被删除
+            }
+        }
+    }
+}
@@ -5,12 +5,14 @@ import model.HttpToolCommand;
 import model.ThirdPartyTool;
 import model.SettingModel;
 import manager.ApiManager;
+import manager.TempArtifactManager;
 import util.I18nManager;
 import burp.api.montoya.http.message.requests.HttpRequest;
 import burp.api.montoya.http.message.responses.HttpResponse;
 import java.io.IOException;
 import java.io.FileWriter;
 import java.io.File;
+import java.nio.file.Path;
 import java.awt.Desktop;
 import java.net.URI;
 import java.util.concurrent.CompletableFuture;
@@ -180,6 +182,19 @@ public class ToolExecutor {
         executeCommandDirectly(command, toolName, workDir);
     }
     
+    /**
+     * 命令结束后删除租约标记的shell片段
+     * 追加在工具命令之后，由终端中运行工具的同一个shell执行
+     * @param marker 租约标记文件
+     * @return shell片段
+     */
+    private static String releaseLeaseCommand(Path marker) {
+        if (isWindows()) {
+            return " & del /f /q \"" + marker + "\"";
+        }
+        return "; rm -f '" + marker.toString().replace("'", "'\\''") + "'";
+    }
+    
     /**
      * 直接使用ProcessBuilder执行命令
      * @param command 命令字符串
@@ -190,23 +205,30 @@ public class ToolExecutor {
     private void executeCommandDirectly(String command, String toolName, String workDir) throws IOException {
         ProcessBuilder processBuilder;
         
+        // 启动前为命令引用的命名管道创建管道并开始投递，工具启动后即可打开
+        PipeFeeder.feedReferenced(command);
+        
+        // 工具运行期间保留命令引用的临时文件：终端启动器会立即退出，由终端中的shell在工具结束后删除租约标记
+        Path leaseMarker = TempArtifactManager.getInstance().leaseReferenced(command);
+        String terminalCommand = leaseMarker != null ? command + releaseLeaseCommand(leaseMarker) : command;
+        
         // 根据操作系统选择合适的命令执行方式
         if (isWindows()) {
             // Windows: 在新的命令窗口中执行
-            processBuilder = new ProcessBuilder("cmd", "/c", "start", "\"" + toolName + "\"", "cmd", "/k", command + " & pause");
+            processBuilder = new ProcessBuilder("cmd", "/c", "start", "\"" + toolName + "\"", "cmd", "/k", terminalCommand + " & pause");
         } else {
             // Linux/Unix: 在终端中执行
             if (isMac()) {
                 // macOS: 使用Terminal.app
                 String applescript = String.format(
                     "tell application \"Terminal\" to do script \"%s; echo 'Press Enter to continue...'; read\"",
-                    command.replace("\"", "\\\"")
+                    terminalCommand.replace("\"", "\\\"")
                 );
                 processBuilder = new ProcessBuilder("osascript", "-e", applescript);
             } else {
                 // Linux: 使用x-terminal-emulator
                 processBuilder = new ProcessBuilder("x-terminal-emulator", "-e", "bash", "-c", 
-                    command + "; echo 'Press Enter to continue...'; read");
+                    terminalCommand + "; echo 'Press Enter to continue...'; read");
             }
         }
         
@@ -228,7 +250,15 @@ public class ToolExecutor {
         }
         
         // 启动进程
-        Process process = processBuilder.start();
+        Process process;
+        try {
+            process = processBuilder.start();
+        } catch (IOException e) {
+            if (leaseMarker != null) {
+                TempArtifactManager.getInstance().releaseLease(leaseMarker);
+            }
+            throw e;
+        }
         
         // 记录执行日志
         if (ApiManager.getInstance().isInitialized()) {
@@ -549,7 +579,7 @@ public class ToolExecutor {
     public String previewCommand(HttpTool tool, HttpRequest httpRequest, HttpResponse httpResponse) {
         try {
             executor.dsl.DslVariableReplacer dslReplacer = new executor.dsl.DslVariableReplacer();
-            return dslReplacer.replace(tool.getCommand(), httpRequest, httpResponse);
+            return dslReplacer.preview(tool.getCommand(), httpRequest, httpResponse);
         } catch (Exception e) {
             I18nManager i18n = I18nManager.getInstance();
             return i18n.getText("tool.execution.command.preview.failed") + ": " + e.getMessage();
@@ -0,0 +1,178 @@
+package executor.dsl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * DSL二进制值
+ * 表示一段字节内容，来源为报文Body的原始字节或字符串的UTF-8编码
+ *
+ * 二进制值是惰性的：只保存字节来源和一串流式转换（编解码、解压等），
+ * 写入临时文件时直接从来源经过转换流式写出，不在内存中保留中间结果；
+ * 作为字符串使用（渲染到命令、传给只接受字符串的函数）时才按UTF-8解码
+ */
+public final class BinaryValue implements PropertyAccessible {
+    
+    private static final byte[] EMPTY = new byte[0];
+    
+    private final Supplier<InputStream> source;
+    
+    // 已知的字节数，经过转换后未知时为-1
+    private final long knownLength;
+    
+    private BinaryValue(Supplier<InputStream> source, long knownLength) {
+        this.source = source;
+        this.knownLength = knownLength;
+    }
+    
+    /**
+     * 从字节数组构建二进制值，不复制数组
+     * @param bytes 字节内容
+     * @return 二进制值
+     */
+    public static BinaryValue of(byte[] bytes) {
+        byte[] content = bytes != null ? bytes : EMPTY;
+        return new BinaryValue(() -> new ByteArrayInputStream(content), content.length);
+    }
+    
+    /**
+     * 构建延迟读取的二进制值，每次读取时才从supplier获取字节
+     * @param supplier 字节提供者
+     * @return 二进制值
+     */
+    public static BinaryValue lazy(Supplier<byte[]> supplier) {
+        return new BinaryValue(() -> {
+            byte[] bytes = supplier.get();
+            return new ByteArrayInputStream(bytes != null ? bytes : EMPTY);
+        }, -1);
+    }
+    
+    /**
+     * 将DSL值转换为二进制值
+     * Body使用原始字节，二进制值原样返回，其他值按UTF-8编码字符串形式
+     * @param value DSL值
+     * @return 二进制值
+     */
+    public static BinaryValue from(Object value) {
+        if (value instanceof BinaryValue) {
+            return (BinaryValue) value;
+        }
+        if (value instanceof BodyContext) {
+            return new BinaryValue(((BodyContext) value)::openStream, -1);
+        }
+        if (value == null) {
+            return of(EMPTY);
+        }
+        return lazy(() -> value.toString().getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * 追加一个流式转换
+     * @param stage 转换函数，接收上游输入流返回转换后的输入流
+     * @return 新的二进制值
+     */
+    public BinaryValue transform(UnaryOperator<InputStream> stage) {
+        Supplier<InputStream> upstream = source;
+        return new BinaryValue(() -> stage.apply(upstream.get()), -1);
+    }
+    
+    /**
+     * 打开内容输入流，每次调用都从来源重新读取
+     * @return 输入流
+     */
+    public InputStream openStream() {
+        return source.get();
+    }
+    
+    /**
+     * 把内容写入输出流
+     * @param out 输出流
+     * @throws IOException 读写失败
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        try (InputStream in = openStream()) {
+            in.transferTo(out);
+        }
+    }
+    
+    /**
+     * 物化为字节数组
+     * @return 字节内容
+     */
+    public byte[] toByteArray() {
+        try (InputStream in = openStream()) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * 获取字节数，来源长度未知时流式计数
+     * @return 字节数
+     */
+    public long length() {
+        if (knownLength >= 0) {
+            return knownLength;
+        }
+        try (InputStream in = openStream()) {
+            long total = 0;
+            byte[] buffer = new byte[8192];
+            for (int n; (n = in.read(buffer)) > 0; ) {
+                total += n;
+            }
+            return total;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * 内容是否为空，只读取第一个字节
+     * @return 是否为空
+     */
+    public boolean isEmpty() {
+        if (knownLength >= 0) {
+            return knownLength == 0;
+        }
+        try (InputStream in = openStream()) {
+            return in.read() < 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * 按UTF-8解码为字符串
+     */
+    @Override
+    public String toString() {
+        try (InputStream in = openStream()) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(knownLength > 0 ? (int) knownLength : 8192);
+            in.transferTo(buffer);
+            return buffer.toString(StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * 获取属性（用于链式访问）
+     */
+    @Override
+    public Object getProperty(String propertyName) {
+        switch (propertyName.toLowerCase()) {
+            case "length": return length();
+            case "len": return length();  // 别名
+            case "text": return toString();
+            default: return null;
+        }
+    }
+}
@@ -1,48 +1,82 @@
 package executor.dsl;
 
+import burp.api.montoya.core.ByteArray;
 import com.google.gson.Gson;
 import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
 import com.google.gson.JsonSyntaxException;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+
 /**
  * Body上下文
  * 封装HTTP请求/响应体，支持多种格式解析
+ * 
+ * 解码、类型检测和JSON解析均在首次访问对应属性时执行
+ * bytes属性返回原始字节的二进制值，供编解码函数按字节处理；
+ * 按流读取时直接从报文字节分块读取，不复制整个Body
  */
-public class BodyContext {
-    private String raw;
-    private int length;
-    private String type;
-    private JsonElement json;
+public class BodyContext implements PropertyAccessible {
+    private static final Gson GSON = new Gson();
+    
+    private final Supplier<String> rawSupplier;
+    private final Supplier<ByteArray> bytesSupplier;
     
-    private BodyContext() {
+    // 以下字段在首次访问时计算并缓存
+    private volatile String raw;
+    private volatile String type;
+    private volatile JsonElement json;
+    private volatile boolean jsonParsed;
+    
+    private BodyContext(Supplier<String> rawSupplier, Supplier<ByteArray> bytesSupplier) {
+        this.rawSupplier = rawSupplier;
+        this.bytesSupplier = bytesSupplier;
     }
     
     /**
      * 从字符串构建Body上下文
      */
     public static BodyContext from(String bodyString) {
-        BodyContext context = new BodyContext();
+        BodyContext context = new BodyContext(null, null);
         context.raw = bodyString != null ? bodyString : "";
-        context.length = context.raw.length();
-        
-        // 检测内容类型
-        context.type = detectType(context.raw);
-        
-        // 尝试解析JSON
-        if ("json".equals(context.type) || "json_array".equals(context.type)) {
-            try {
-                Gson gson = new Gson();
-                context.json = gson.fromJson(context.raw, JsonElement.class);
-            } catch (JsonSyntaxException e) {
-                // 不是有效JSON
-                context.json = null;
-            }
-        }
-        
         return context;
     }
     
+    /**
+     * 构建延迟解码的Body上下文
+     * Body内容在首次访问时才通过supplier获取，类型检测和JSON解析同样按需执行
+     * @param rawSupplier Body字符串提供者
+     * @return Body上下文
+     */
+    public static BodyContext lazy(Supplier<String> rawSupplier) {
+        return new BodyContext(rawSupplier, null);
+    }
+    
+    /**
+     * 构建延迟解码的Body上下文，同时提供原始字节
+     * 哈希、编码等按字节处理的函数直接读取原始字节，不经过字符串转换
+     * @param rawSupplier Body字符串提供者
+     * @param bytesSupplier Body原始字节提供者
+     * @return Body上下文
+     */
+    public static BodyContext lazy(Supplier<String> rawSupplier, Supplier<ByteArray> bytesSupplier) {
+        return new BodyContext(rawSupplier, bytesSupplier);
+    }
+    
+    /**
+     * 解析JSON
+     */
+    private static JsonElement parseJson(String raw) {
+        try {
+            return GSON.fromJson(raw, JsonElement.class);
+        } catch (JsonSyntaxException e) {
+            // 不是有效JSON
+            return null;
+        }
+    }
+    
     /**
      * 检测Body类型
      */
@@ -70,23 +104,120 @@ public class BodyContext {
     }
     
     // Getters
-    public String getRaw() { return raw; }
-    public int getLength() { return length; }
-    public String getType() { return type; }
-    public JsonElement getJson() { return json; }
+    public String getRaw() {
+        String result = raw;
+        if (result == null) {
+            String decoded = rawSupplier.get();
+            result = decoded != null ? decoded : "";
+            raw = result;
+        }
+        return result;
+    }
+    
+    /**
+     * 获取Body原始字节
+     * 原始字节不缓存，每次调用都从报文读取，避免与字符串形式同时常驻内存；
+     * 没有原始字节来源时按UTF-8编码字符串形式
+     * @return 原始字节
+     */
+    public byte[] getBytes() {
+        ByteArray bytes = bytesSupplier != null ? bytesSupplier.get() : null;
+        if (bytes != null) {
+            return bytes.getBytes();
+        }
+        return getRaw().getBytes(StandardCharsets.UTF_8);
+    }
     
     /**
-     * 获取属性（用于反射和动态访问）
+     * 打开Body原始字节的输入流
+     * 有原始字节来源时直接从报文字节分块读取，不生成完整的字节副本；
+     * 没有原始字节来源时按UTF-8编码字符串形式
+     * @return 输入流
      */
+    public InputStream openStream() {
+        ByteArray bytes = bytesSupplier != null ? bytesSupplier.get() : null;
+        if (bytes != null) {
+            return new ByteArrayStream(bytes);
+        }
+        return new ByteArrayInputStream(getRaw().getBytes(StandardCharsets.UTF_8));
+    }
+    
+    public int getLength() {
+        return getRaw().length();
+    }
+    
+    public String getType() {
+        String result = type;
+        if (result == null) {
+            result = detectType(getRaw());
+            type = result;
+        }
+        return result;
+    }
+    
+    public JsonElement getJson() {
+        if (!jsonParsed) {
+            String bodyType = getType();
+            // 仅在类型为JSON时尝试解析
+            json = ("json".equals(bodyType) || "json_array".equals(bodyType)) ? parseJson(getRaw()) : null;
+            jsonParsed = true;
+        }
+        return json;
+    }
+    
+    /**
+     * 获取属性（用于链式访问）
+     */
+    @Override
     public Object getProperty(String propertyName) {
         switch (propertyName.toLowerCase()) {
-            case "raw": return raw;
-            case "length": return length;
-            case "len": return length;  // 别名
-            case "type": return type;
-            case "json": return json;
+            case "raw": return getRaw();
+            case "length": return getLength();
+            case "len": return getLength();  // 别名
+            case "type": return getType();
+            case "json": return getJson();
+            case "bytes": return BinaryValue.from(this);
             default: return null;
         }
     }
+    
+    /**
+     * 按字节读取Montoya字节数组的输入流
+     */
+    private static final class ByteArrayStream extends InputStream {
+        private final ByteArray bytes;
+        private final int length;
+        private int position;
+        
+        ByteArrayStream(ByteArray bytes) {
+            this.bytes = bytes;
+            this.length = bytes.length();
+        }
+        
+        @Override
+        public int read() {
+            return position < length ? bytes.getByte(position++) & 0xff : -1;
+        }
+        
+        @Override
+        public int read(byte[] buffer, int offset, int count) {
+            if (count == 0) {
+                return 0;
+            }
+            if (position >= length) {
+                return -1;
+            }
+            int n = Math.min(count, length - position);
+            for (int i = 0; i < n; i++) {
+                buffer[offset + i] = bytes.getByte(position++);
+            }
+            return n;
+        }
+        
+        @Override
+        public int available() {
+            return length - position;
+        }
+    }
 }
 
@@ -1,10 +1,16 @@
 package executor.dsl;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.lang.reflect.Modifier;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * 链式属性访问器
@@ -19,6 +25,29 @@ import java.util.Map;
  */
 public class ChainAccessor {
     
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    
+    // 未找到属性时缓存的占位句柄
+    private static final MethodHandle NO_GETTER;
+    
+    // 按类缓存的属性访问句柄
+    private static final ClassValue<ConcurrentMap<String, MethodHandle>> GETTERS =
+        new ClassValue<ConcurrentMap<String, MethodHandle>>() {
+            @Override
+            protected ConcurrentMap<String, MethodHandle> computeValue(Class<?> type) {
+                return new ConcurrentHashMap<>();
+            }
+        };
+    
+    static {
+        try {
+            NO_GETTER = MethodHandles.lookup().findStatic(ChainAccessor.class, "noGetter", GETTER_TYPE);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+    
     /**
      * 导航到指定路径
      * @param path 属性路径
@@ -30,53 +59,108 @@ public class ChainAccessor {
             return null;
         }
         
-        String[] parts = path.split("\\.");
+        return navigate(compile(path), context);
+    }
+    
+    /**
+     * 沿预编译的路径导航
+     * @param segments 由 {@link #compile(String)} 生成的路径段
+     * @param context HTTP上下文
+     * @return 属性值
+     */
+    public Object navigate(PathSegment[] segments, HttpContext context) {
         Object current = context;
         
-        for (int i = 0; i < parts.length; i++) {
+        for (int i = 0; i < segments.length; i++) {
             if (current == null) {
                 return null;
             }
             
-            String part = parts[i];
+            PathSegment segment = segments[i];
             
-            // 处理数组索引: requests[0]
-            if (part.contains("[")) {
-                current = handleIndexAccess(current, part);
-            }
             // 处理通配符: requests.*
-            else if (part.equals("*")) {
-                current = handleWildcard(current, parts, i);
-                break;  // 通配符后续处理在handleWildcard中完成
-            }
-            // 普通属性访问
-            else {
-                current = getProperty(current, part);
+            if (segment.kind == SegmentKind.WILDCARD) {
+                return handleWildcard(current, segments, i);  // 通配符后续处理在handleWildcard中完成
             }
+            current = resolve(current, segment);
         }
         
         return current;
     }
     
+    /**
+     * 将路径字符串预编译为路径段
+     * 编译阶段完成分割和索引解析，导航时不再做任何字符串处理
+     * @param path 属性路径
+     * @return 路径段数组
+     */
+    public static PathSegment[] compile(String path) {
+        String[] parts = path.split("\\.");
+        PathSegment[] segments = new PathSegment[parts.length];
+        
+        for (int i = 0; i < parts.length; i++) {
+            String part = parts[i];
+            
+            // 数组索引: requests[0]
+            if (part.contains("[")) {
+                int bracketIndex = part.indexOf('[');
+                String propertyName = part.substring(0, bracketIndex);
+                String indexStr = part.substring(bracketIndex + 1, part.indexOf(']'));
+                int index = isDigits(indexStr) ? Integer.parseInt(indexStr) : -1;
+                segments[i] = new PathSegment(SegmentKind.INDEX, propertyName, index);
+            } else if (part.equals("*")) {
+                segments[i] = new PathSegment(SegmentKind.WILDCARD, part, -1);
+            } else {
+                segments[i] = new PathSegment(SegmentKind.PROPERTY, part, -1);
+            }
+        }
+        
+        return segments;
+    }
+    
+    private static boolean isDigits(String str) {
+        if (str.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * 解析单个路径段
+     */
+    private Object resolve(Object current, PathSegment segment) {
+        switch (segment.kind) {
+            case INDEX:
+                return handleIndexAccess(current, segment);
+            case WILDCARD:
+                // 通配符之后再次出现的*按普通属性处理
+                return getProperty(current, segment.name);
+            default:
+                return getProperty(current, segment.name);
+        }
+    }
+    
     /**
      * 处理索引访问
      * 支持: [0], [1], first, last
      */
-    private Object handleIndexAccess(Object obj, String expression) {
-        int bracketIndex = expression.indexOf('[');
-        String propertyName = expression.substring(0, bracketIndex);
-        String indexStr = expression.substring(bracketIndex + 1, expression.indexOf(']'));
-        
+    private Object handleIndexAccess(Object obj, PathSegment segment) {
         // 先获取集合属性
-        Object collection = propertyName.isEmpty() ? obj : getProperty(obj, propertyName);
+        Object collection = segment.name.isEmpty() ? obj : getProperty(obj, segment.name);
         
         if (collection == null) {
             return null;
         }
         
         // 数字索引
-        if (indexStr.matches("\\d+")) {
-            int index = Integer.parseInt(indexStr);
+        int index = segment.index;
+        if (index >= 0) {
             if (collection instanceof List) {
                 List<?> list = (List<?>) collection;
                 return index < list.size() ? list.get(index) : null;
@@ -91,56 +175,38 @@ public class ChainAccessor {
     
     /**
      * 处理通配符访问
-     * 例如: httpList.requests.*.request.url -> 返回所有requests的url列表
+     * 例如: httpList.requests.*.request.url -> 返回所有requests的url序列
      */
-    private Object handleWildcard(Object current, String[] parts, int currentIndex) {
+    private Object handleWildcard(Object current, PathSegment[] segments, int currentIndex) {
         // 当前对象必须是集合
         if (!(current instanceof List)) {
             return null;
         }
         
         List<?> list = (List<?>) current;
-        List<Object> results = new ArrayList<>();
         
-        // 获取通配符后的路径
-        if (currentIndex + 1 < parts.length) {
-            String[] remainingParts = Arrays.copyOfRange(parts, currentIndex + 1, parts.length);
-            String remainingPath = String.join(".", remainingParts);
-            
-            // 对每个元素执行剩余路径的访问
-            for (Object item : list) {
-                ChainAccessor subAccessor = new ChainAccessor();
-                // 创建临时上下文，将item作为根对象
-                Object value = navigateFromObject(item, remainingPath);
-                if (value != null) {
-                    results.add(value);
-                }
-            }
-        } else {
-            // 通配符是最后一个元素，返回整个列表
+        // 通配符是最后一个元素，返回整个列表
+        if (currentIndex + 1 >= segments.length) {
             return list;
         }
         
-        return results;
+        // 对每个元素惰性执行剩余路径的访问，结果在输出时才逐个求值
+        return DslSequence.of(list)
+            .map(item -> navigateFromObject(item, segments, currentIndex + 1))
+            .filter(Objects::nonNull);
     }
     
     /**
      * 从任意对象开始导航（不需要HttpContext）
      */
-    private Object navigateFromObject(Object obj, String path) {
-        String[] parts = path.split("\\.");
+    private Object navigateFromObject(Object obj, PathSegment[] segments, int from) {
         Object current = obj;
         
-        for (String part : parts) {
+        for (int i = from; i < segments.length; i++) {
             if (current == null) {
                 return null;
             }
-            
-            if (part.contains("[")) {
-                current = handleIndexAccess(current, part);
-            } else {
-                current = getProperty(current, part);
-            }
+            current = resolve(current, segments[i]);
         }
         
         return current;
@@ -155,22 +221,9 @@ public class ChainAccessor {
             return null;
         }
         
-        // HttpContext 及其子类的特殊处理
-        if (obj instanceof HttpContext ||
-            obj instanceof HttpContext.HttpWrapper ||
-            obj instanceof HttpRequestContext ||
-            obj instanceof HttpResponseContext ||
-            obj instanceof HttpListContext ||
-            obj instanceof HttpRequestResponsePair ||
-            obj instanceof BodyContext ||
-            obj instanceof ParameterContext) {
-            
-            try {
-                Method method = obj.getClass().getMethod("getProperty", String.class);
-                return method.invoke(obj, propertyName);
-            } catch (Exception e) {
-                // 降级到通用方法
-            }
+        // DSL上下文对象直接按名称取值
+        if (obj instanceof PropertyAccessible) {
+            return ((PropertyAccessible) obj).getProperty(propertyName);
         }
         
         // Map类型
@@ -209,39 +262,105 @@ public class ChainAccessor {
     }
     
     /**
-     * 使用反射获取属性
+     * 通过缓存的MethodHandle获取属性
+     * 依次查找getXxx()、isXxx()和public字段，查找结果（包括未找到）按类缓存
      */
     private Object getPropertyByReflection(Object obj, String propertyName) {
+        MethodHandle getter = GETTERS.get(obj.getClass()).computeIfAbsent(propertyName,
+            name -> findGetter(obj.getClass(), name));
+        if (getter == NO_GETTER) {
+            return null;
+        }
+        
         try {
-            // 尝试getXxx()方法
-            String methodName = "get" + capitalize(propertyName);
-            Method method = obj.getClass().getMethod(methodName);
-            return method.invoke(obj);
-        } catch (Exception e1) {
-            try {
-                // 尝试isXxx()方法（布尔值）
-                String methodName = "is" + capitalize(propertyName);
-                Method method = obj.getClass().getMethod(methodName);
-                return method.invoke(obj);
-            } catch (Exception e2) {
-                // 尝试直接访问public字段
+            return getter.invokeExact(obj);
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+    
+    /**
+     * 查找属性对应的访问句柄，仅在每个类的每个属性首次访问时执行
+     */
+    private static MethodHandle findGetter(Class<?> type, String propertyName) {
+        String capitalized = capitalize(propertyName);
+        MethodHandle handle = findMethod(type, "get" + capitalized);
+        if (handle == null) {
+            handle = findMethod(type, "is" + capitalized);
+        }
+        if (handle == null) {
+            handle = findField(type, propertyName);
+        }
+        return handle != null ? handle.asType(GETTER_TYPE) : NO_GETTER;
+    }
+    
+    private static MethodHandle findMethod(Class<?> type, String methodName) {
+        for (Method method : type.getMethods()) {
+            if (method.getName().equals(methodName)
+                    && method.getParameterCount() == 0
+                    && !Modifier.isStatic(method.getModifiers())) {
+                try {
+                    return LOOKUP.unreflect(method);
+                } catch (IllegalAccessException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+    
+    private static MethodHandle findField(Class<?> type, String fieldName) {
+        for (Field field : type.getFields()) {
+            if (field.getName().equals(fieldName) && !Modifier.isStatic(field.getModifiers())) {
                 try {
-                    return obj.getClass().getField(propertyName).get(obj);
-                } catch (Exception e3) {
+                    return LOOKUP.unreflectGetter(field);
+                } catch (IllegalAccessException e) {
                     return null;
                 }
             }
         }
+        return null;
+    }
+    
+    private static Object noGetter(Object obj) {
+        return null;
     }
     
     /**
      * 首字母大写
      */
-    private String capitalize(String str) {
+    private static String capitalize(String str) {
         if (str == null || str.isEmpty()) {
             return str;
         }
         return str.substring(0, 1).toUpperCase() + str.substring(1);
     }
+    
+    /**
+     * 路径段类型
+     */
+    public enum SegmentKind {
+        PROPERTY,
+        INDEX,
+        WILDCARD
+    }
+    
+    /**
+     * 预编译的路径段
+     */
+    public static final class PathSegment {
+        private final SegmentKind kind;
+        private final String name;
+        private final int index;
+        
+        private PathSegment(SegmentKind kind, String name, int index) {
+            this.kind = kind;
+            this.name = name;
+            this.index = index;
+        }
+        
+        public SegmentKind getKind() { return kind; }
+        public String getName() { return name; }
+        public int getIndex() { return index; }
+    }
 }
-
@@ -0,0 +1,31 @@
+package executor.dsl;
+
+/**
+ * 链式访问节点
+ * 持有预编译的路径段，例如 http.request.url、httpList.requests.*.request.host
+ */
+public class ChainPathNode implements ExpressionNode {
+    private final String source;
+    private final ChainAccessor.PathSegment[] segments;
+    private final ChainAccessor chainAccessor;
+    
+    public ChainPathNode(String source, ChainAccessor.PathSegment[] segments, ChainAccessor chainAccessor) {
+        this.source = source;
+        this.segments = segments;
+        this.chainAccessor = chainAccessor;
+    }
+    
+    @Override
+    public Object evaluate(RenderScope scope) {
+        return chainAccessor.navigate(segments, scope.getContext());
+    }
+    
+    public ChainAccessor.PathSegment[] getSegments() {
+        return segments.clone();
+    }
+    
+    @Override
+    public String getSource() {
+        return source;
+    }
+}
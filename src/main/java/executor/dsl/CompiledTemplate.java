@@ -0,0 +1,173 @@
+package executor.dsl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 编译后的命令模板
+ * 不可变的片段列表：字面文本片段与预解析的表达式片段交替排列
+ * 渲染时按顺序输出片段，表达式片段在同一个渲染作用域内求值，重复出现的纯表达式只求值一次
+ */
+public final class CompiledTemplate {
+    
+    private final String template;
+    private final List<Segment> segments;
+    private volatile TemplateDependencies dependencies;
+    
+    CompiledTemplate(String template, List<Segment> segments) {
+        this.template = template;
+        this.segments = Collections.unmodifiableList(new ArrayList<>(segments));
+    }
+    
+    /**
+     * 对上下文渲染模板
+     * 单个表达式出错时替换为错误信息，不影响其他片段
+     * @param context HTTP上下文
+     * @return 渲染后的命令
+     */
+    public String render(HttpContext context) {
+        return render(context, false);
+    }
+    
+    /**
+     * 对上下文渲染模板
+     * @param context HTTP上下文
+     * @param preview 是否为预览渲染，预览中副作用函数不写入文件、不记录状态（见 {@link RenderScope#isPreview()}）
+     * @return 渲染后的命令
+     */
+    public String render(HttpContext context, boolean preview) {
+        return render(context, preview ? RenderScope.Mode.PREVIEW : RenderScope.Mode.EXECUTE);
+    }
+    
+    /**
+     * 对上下文渲染模板
+     * @param context HTTP上下文
+     * @param mode 渲染模式，决定副作用函数是否写入文件、记录状态（见 {@link RenderScope.Mode}）
+     * @return 渲染后的命令
+     */
+    public String render(HttpContext context, RenderScope.Mode mode) {
+        StringBuilder result = new StringBuilder(template.length() + 64);
+        RenderScope scope = new RenderScope(context, mode);
+        RenderScope previous = scope.enter();
+        
+        try {
+            for (Segment segment : segments) {
+                if (segment.isLiteral()) {
+                    result.append(segment.getText());
+                    continue;
+                }
+                
+                try {
+                    appendValue(result, scope.evaluate(segment.getExpression()));
+                } catch (Exception e) {
+                    result.append("[DSL Error: ").append(e.getMessage()).append(']');
+                }
+            }
+        } finally {
+            RenderScope.restore(previous);
+        }
+        
+        return result.toString();
+    }
+    
+    /**
+     * 格式化值并追加到输出
+     * 处理List、惰性序列等复杂类型
+     */
+    private static void appendValue(StringBuilder out, Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        
+        // 列表和惰性序列逐项流式写入输出，换行分隔，不生成中间字符串
+        DslSequence sequence = DslSequence.asSequence(value);
+        if (sequence != null) {
+            sequence.appendTo(out, "\n");
+            return;
+        }
+        if (value instanceof DslSequence.Joined) {
+            ((DslSequence.Joined) value).appendTo(out);
+            return;
+        }
+        
+        out.append(value.toString());
+    }
+    
+    /**
+     * 获取原始模板
+     * @return 模板字符串
+     */
+    public String getTemplate() {
+        return template;
+    }
+    
+    /**
+     * 获取模板片段
+     * @return 不可变片段列表
+     */
+    public List<Segment> getSegments() {
+        return segments;
+    }
+    
+    /**
+     * 获取模板中的所有表达式节点
+     * @return 表达式节点列表
+     */
+    public List<ExpressionNode> getExpressions() {
+        List<ExpressionNode> expressions = new ArrayList<>();
+        for (Segment segment : segments) {
+            if (!segment.isLiteral()) {
+                expressions.add(segment.getExpression());
+            }
+        }
+        return expressions;
+    }
+    
+    /**
+     * 获取模板的依赖分析结果（首次调用时分析并缓存）
+     * @return 依赖分析结果
+     */
+    public TemplateDependencies getDependencies() {
+        TemplateDependencies result = dependencies;
+        if (result == null) {
+            result = TemplateDependencies.analyze(this);
+            dependencies = result;
+        }
+        return result;
+    }
+    
+    /**
+     * 模板片段：字面文本或表达式
+     */
+    public static final class Segment {
+        private final String text;
+        private final ExpressionNode expression;
+        
+        private Segment(String text, ExpressionNode expression) {
+            this.text = text;
+            this.expression = expression;
+        }
+        
+        static Segment literal(String text) {
+            return new Segment(text, null);
+        }
+        
+        static Segment expression(ExpressionNode expression) {
+            return new Segment(null, expression);
+        }
+        
+        public boolean isLiteral() {
+            return expression == null;
+        }
+        
+        public String getText() {
+            return text;
+        }
+        
+        public ExpressionNode getExpression() {
+            return expression;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package executor.dsl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -13,6 +14,13 @@ import java.util.regex.Pattern;
  * 1. 链式访问: http.request.headers.cookies.token
  * 2. 函数调用: json(http.request.body, "$.user.id")
  * 3. 嵌套表达式: hash(json(http.request.body, "$.data"), "sha256")
+ * 
+ * 表达式先由 {@link #parse(String)} 编译为表达式树，再对HttpContext求值
+ * 
+ * 编译函数调用时：
+ * - 按函数声明的参数个数和参数类型检查调用，不符时编译为失败节点，加载配置时即可发现
+ * - 参数全为字面量的纯函数调用（如 hash("static", "md5")）在编译时执行一次，折叠为字面量
+ * - 按原始字节处理参数的函数（如hash），body.raw、body.bytes 参数改为Body本身
  */
 public class DslExpressionParser {
     
@@ -39,6 +47,20 @@ public class DslExpressionParser {
             return "";
         }
         
+        return parse(expression).evaluate(context);
+    }
+    
+    /**
+     * 将表达式编译为表达式树
+     * 所有正则匹配和参数分割都在此完成，求值阶段只遍历节点
+     * @param expression 表达式字符串
+     * @return 表达式节点
+     */
+    public ExpressionNode parse(String expression) {
+        if (expression == null || expression.isEmpty()) {
+            return new LiteralNode("", "");
+        }
+        
         expression = expression.trim();
         
         // 1. 尝试匹配函数调用
@@ -46,45 +68,152 @@ public class DslExpressionParser {
         if (functionMatcher.matches()) {
             String functionName = functionMatcher.group(1);
             String argsString = functionMatcher.group(2);
-            return evaluateFunction(functionName, argsString, context);
+            return parseFunction(expression, functionName, argsString);
         }
         
         // 2. 尝试匹配链式访问
         if (CHAIN_PATTERN.matcher(expression).matches()) {
-            return chainAccessor.navigate(expression, context);
+            try {
+                return new ChainPathNode(expression, ChainAccessor.compile(expression), chainAccessor);
+            } catch (RuntimeException e) {
+                return new FailingNode(expression, e);
+            }
         }
         
         // 3. 不匹配任何模式，返回原值
-        return expression;
+        return new LiteralNode(expression, expression);
     }
     
     /**
-     * 执行函数调用
+     * 编译函数调用
      */
-    private Object evaluateFunction(String functionName, String argsString, HttpContext context) {
+    private ExpressionNode parseFunction(String expression, String functionName, String argsString) {
+        FunctionCallNode call;
         try {
-            // 解析参数
-            List<Object> args = parseArguments(argsString, context);
-            
-            // 获取函数处理器
-            FunctionHandler handler = FunctionRegistry.getHandler(functionName);
-            if (handler == null) {
-                throw new DslException("Unknown function: " + functionName);
+            call = new FunctionCallNode(expression, functionName, parseArguments(argsString));
+        } catch (RuntimeException e) {
+            return new FailingNode(expression, new DslException("Function execution failed: " + functionName, e));
+        }
+        
+        // 未注册的函数可能在渲染前注册，留到求值时查找
+        FunctionHandler handler = FunctionRegistry.getHandler(functionName);
+        if (handler == null) {
+            return call;
+        }
+        
+        String problem = checkSignature(handler, call.getArguments());
+        if (problem != null) {
+            return new FailingNode(expression,
+                new DslException("Function execution failed: " + functionName, new DslException(problem)));
+        }
+        if (handler.consumesBytes()) {
+            call = new FunctionCallNode(expression, functionName, toBodyArguments(call.getArguments()));
+        }
+        return fold(call, handler);
+    }
+    
+    /**
+     * 把 body.raw、body.bytes 形式的参数改为Body本身
+     * 其他参数保持原样
+     */
+    private List<ExpressionNode> toBodyArguments(List<ExpressionNode> arguments) {
+        List<ExpressionNode> result = new ArrayList<>(arguments.size());
+        for (ExpressionNode argument : arguments) {
+            if (argument instanceof ChainPathNode) {
+                ChainAccessor.PathSegment[] segments = ((ChainPathNode) argument).getSegments();
+                int last = segments.length - 1;
+                if (last > 0 && isProperty(segments[last], "raw", "bytes") && isProperty(segments[last - 1], "body")) {
+                    String source = argument.getSource();
+                    argument = new ChainPathNode(source.substring(0, source.lastIndexOf('.')),
+                        Arrays.copyOf(segments, last), chainAccessor);
+                }
             }
-            
-            // 执行函数
-            return handler.execute(args, context);
-        } catch (Exception e) {
-            throw new DslException("Function execution failed: " + functionName, e);
+            result.add(argument);
+        }
+        return result;
+    }
+    
+    private static boolean isProperty(ChainAccessor.PathSegment segment, String... names) {
+        if (segment.getKind() != ChainAccessor.SegmentKind.PROPERTY) {
+            return false;
+        }
+        for (String name : names) {
+            if (name.equalsIgnoreCase(segment.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * 按函数声明检查参数个数和字面量参数的类型
+     * @return 问题描述，没有问题返回null
+     */
+    private static String checkSignature(FunctionHandler handler, List<ExpressionNode> arguments) {
+        String name = handler.getName();
+        int count = arguments.size();
+        int min = handler.getMinArgs();
+        int max = handler.getMaxArgs();
+        if (count < min || count > max) {
+            String expected = min == max ? String.valueOf(min)
+                : max == FunctionHandler.VARIADIC ? "at least " + min
+                : min + "-" + max;
+            return name + "() expects " + expected + " argument(s) but got " + count + ": " + handler.getUsage();
+        }
+        
+        List<FunctionHandler.ValueType> types = handler.getArgumentTypes();
+        for (int i = 0; i < count && i < types.size(); i++) {
+            ExpressionNode argument = arguments.get(i);
+            if (types.get(i) == FunctionHandler.ValueType.NUMBER && argument instanceof LiteralNode
+                    && !(((LiteralNode) argument).getValue() instanceof Number)) {
+                return name + "() argument " + (i + 1) + " must be a number: " + argument.getSource();
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * 常量折叠：参数全为字面量的纯函数调用在编译时求值
+     * 只折叠字符串、数字、布尔值和二进制值结果；列表等结果以及执行失败的调用保持原样，留到渲染时求值
+     * 读取文件等外部状态的函数（{@link FunctionHandler.Cost#IO}）结果会随时间变化，不折叠
+     */
+    private static ExpressionNode fold(FunctionCallNode call, FunctionHandler handler) {
+        if (!handler.isPure() || handler.getCost() == FunctionHandler.Cost.IO) {
+            return call;
+        }
+        
+        List<Object> args = new ArrayList<>(call.getArguments().size());
+        for (ExpressionNode argument : call.getArguments()) {
+            if (!(argument instanceof LiteralNode)) {
+                return call;
+            }
+            args.add(((LiteralNode) argument).getValue());
+        }
+        
+        Object value;
+        try {
+            value = handler.execute(args, null);
+            // 二进制值是惰性的，折叠时物化，解码错误等留到渲染时报告
+            if (value instanceof BinaryValue) {
+                value = BinaryValue.of(((BinaryValue) value).toByteArray());
+            }
+        } catch (RuntimeException e) {
+            return call;
+        }
+        
+        if (value == null || value instanceof String || value instanceof Number
+                || value instanceof Boolean || value instanceof BinaryValue) {
+            return new LiteralNode(call.getSource(), value);
         }
+        return call;
     }
     
     /**
      * 解析函数参数
      * 支持：字符串字面量、数字、嵌套表达式
      */
-    private List<Object> parseArguments(String argsString, HttpContext context) {
-        List<Object> args = new ArrayList<>();
+    private List<ExpressionNode> parseArguments(String argsString) {
+        List<ExpressionNode> args = new ArrayList<>();
         
         if (argsString == null || argsString.trim().isEmpty()) {
             return args;
@@ -99,30 +228,30 @@ public class DslExpressionParser {
             // 字符串字面量（单引号或双引号）
             if ((argString.startsWith("\"") && argString.endsWith("\"")) ||
                 (argString.startsWith("'") && argString.endsWith("'"))) {
-                args.add(argString.substring(1, argString.length() - 1));
+                args.add(new LiteralNode(argString, argString.substring(1, argString.length() - 1)));
             }
             // 数字
             else if (argString.matches("-?\\d+")) {
-                args.add(Integer.parseInt(argString));
+                args.add(new LiteralNode(argString, Integer.parseInt(argString)));
             }
             // 浮点数
             else if (argString.matches("-?\\d+\\.\\d+")) {
-                args.add(Double.parseDouble(argString));
+                args.add(new LiteralNode(argString, Double.parseDouble(argString)));
             }
             // 布尔值
             else if (argString.equalsIgnoreCase("true")) {
-                args.add(true);
+                args.add(new LiteralNode(argString, true));
             }
             else if (argString.equalsIgnoreCase("false")) {
-                args.add(false);
+                args.add(new LiteralNode(argString, false));
             }
             // null值
             else if (argString.equalsIgnoreCase("null")) {
-                args.add(null);
+                args.add(new LiteralNode(argString, null));
             }
-            // 否则作为表达式递归求值
+            // 否则作为表达式递归编译
             else {
-                args.add(evaluate(argString, context));
+                args.add(parse(argString));
             }
         }
         
@@ -0,0 +1,406 @@
+package executor.dsl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * DSL惰性序列值
+ * 通配符路径和列表函数（unique、split等）返回序列而不是物化的列表，
+ * 多个操作组合成一条流水线，在最终输出（渲染结果、临时文件等）时逐个元素求值并直接写入目标
+ *
+ * 序列可以重复遍历，每次遍历都从源头重新执行流水线
+ * 序列中的null元素在输出时视为空字符串
+ */
+public abstract class DslSequence implements Iterable<Object> {
+    
+    /**
+     * 从集合构建序列
+     * @param source 源集合
+     * @return 序列
+     */
+    public static DslSequence of(Iterable<?> source) {
+        if (source instanceof DslSequence) {
+            return (DslSequence) source;
+        }
+        return new DslSequence() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Iterator<Object> iterator() {
+                return (Iterator<Object>) source.iterator();
+            }
+        };
+    }
+    
+    /**
+     * 将DSL值视为序列
+     * @param value DSL值
+     * @return List或序列对应的序列，其他值返回null
+     */
+    public static DslSequence asSequence(Object value) {
+        if (value instanceof DslSequence) {
+            return (DslSequence) value;
+        }
+        if (value instanceof List) {
+            return of((List<?>) value);
+        }
+        return null;
+    }
+    
+    /**
+     * 逐个元素转换
+     * @param mapper 转换函数
+     * @return 新序列
+     */
+    public DslSequence map(Function<Object, Object> mapper) {
+        DslSequence upstream = this;
+        return new DslSequence() {
+            @Override
+            public Iterator<Object> iterator() {
+                Iterator<Object> source = upstream.iterator();
+                return new Iterator<Object>() {
+                    @Override
+                    public boolean hasNext() {
+                        return source.hasNext();
+                    }
+                    
+                    @Override
+                    public Object next() {
+                        return mapper.apply(source.next());
+                    }
+                };
+            }
+        };
+    }
+    
+    /**
+     * 过滤元素
+     * @param predicate 保留条件
+     * @return 新序列
+     */
+    public DslSequence filter(Predicate<Object> predicate) {
+        DslSequence upstream = this;
+        return new DslSequence() {
+            @Override
+            public Iterator<Object> iterator() {
+                return new LookaheadIterator() {
+                    private final Iterator<Object> source = upstream.iterator();
+                    
+                    @Override
+                    protected boolean advance() {
+                        while (source.hasNext()) {
+                            Object item = source.next();
+                            if (predicate.test(item)) {
+                                setNext(item);
+                                return true;
+                            }
+                        }
+                        return false;
+                    }
+                };
+            }
+        };
+    }
+    
+    /**
+     * 将每个元素展开为多个元素
+     * @param mapper 展开函数
+     * @return 新序列
+     */
+    public DslSequence flatMap(Function<Object, ? extends Iterable<?>> mapper) {
+        DslSequence upstream = this;
+        return new DslSequence() {
+            @Override
+            public Iterator<Object> iterator() {
+                return new LookaheadIterator() {
+                    private final Iterator<Object> source = upstream.iterator();
+                    private Iterator<?> current = Collections.emptyIterator();
+                    
+                    @Override
+                    protected boolean advance() {
+                        while (!current.hasNext()) {
+                            if (!source.hasNext()) {
+                                return false;
+                            }
+                            current = mapper.apply(source.next()).iterator();
+                        }
+                        setNext(current.next());
+                        return true;
+                    }
+                };
+            }
+        };
+    }
+    
+    /**
+     * 并行转换元素，结果保持原有顺序
+     * 按块从上游读取元素，每块在 {@link DslWorkers} 线程池上并行转换后依次输出，
+     * 额外内存只有一个块；适用于哈希、正则扫描等计算密集的逐元素操作
+     * @param mapper 转换函数，需要线程安全
+     * @param chunkSize 每块元素数
+     * @return 新序列
+     */
+    public DslSequence parallelMap(Function<Object, Object> mapper, int chunkSize) {
+        DslSequence upstream = this;
+        return new DslSequence() {
+            @Override
+            public Iterator<Object> iterator() {
+                return new LookaheadIterator() {
+                    private final Iterator<Object> source = upstream.iterator();
+                    private final Object[] chunk = new Object[chunkSize];
+                    private int position = 0;
+                    private int size = 0;
+                    
+                    @Override
+                    protected boolean advance() {
+                        if (position >= size) {
+                            size = 0;
+                            position = 0;
+                            while (size < chunkSize && source.hasNext()) {
+                                chunk[size++] = source.next();
+                            }
+                            if (size == 0) {
+                                return false;
+                            }
+                            DslWorkers.parallelFor(0, size, i -> chunk[i] = mapper.apply(chunk[i]));
+                        }
+                        setNext(chunk[position]);
+                        chunk[position++] = null;
+                        return true;
+                    }
+                };
+            }
+        };
+    }
+    
+    /**
+     * 去除重复元素，保留首次出现的顺序
+     * 只保存已出现过的元素，不缓存整个序列
+     * @return 新序列
+     */
+    public DslSequence distinct() {
+        return distinctBy(Function.identity());
+    }
+    
+    /**
+     * 按键去除重复元素，每个键保留首次出现的元素
+     * 只保存已出现过的键，不缓存整个序列；键为null的元素视为同一个键
+     * @param keyExtractor 键函数
+     * @return 新序列
+     */
+    public DslSequence distinctBy(Function<Object, Object> keyExtractor) {
+        DslSequence upstream = this;
+        return new DslSequence() {
+            @Override
+            public Iterator<Object> iterator() {
+                Set<Object> seen = new HashSet<>();
+                return upstream.filter(item -> seen.add(keyExtractor.apply(item))).iterator();
+            }
+        };
+    }
+    
+    /**
+     * 缓存遍历结果
+     * 首次遍历时从上游读取并缓存元素，之后的遍历先重放缓存再继续读取上游，
+     * 上游流水线只执行一次；用于带副作用的序列（如记录已输出元素）被多次遍历的情况
+     * @return 新序列
+     */
+    public DslSequence memoize() {
+        DslSequence upstream = this;
+        return new DslSequence() {
+            private final List<Object> cache = new ArrayList<>();
+            private Iterator<Object> source;
+            
+            @Override
+            public Iterator<Object> iterator() {
+                return new Iterator<Object>() {
+                    private int position = 0;
+                    
+                    @Override
+                    public boolean hasNext() {
+                        synchronized (cache) {
+                            if (position < cache.size()) {
+                                return true;
+                            }
+                            if (source == null) {
+                                source = upstream.iterator();
+                            }
+                            if (source.hasNext()) {
+                                cache.add(source.next());
+                                return true;
+                            }
+                            return false;
+                        }
+                    }
+                    
+                    @Override
+                    public Object next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        synchronized (cache) {
+                            return cache.get(position++);
+                        }
+                    }
+                };
+            }
+        };
+    }
+    
+    /**
+     * 统计元素个数
+     * @return 元素个数
+     */
+    public int count() {
+        int count = 0;
+        for (Iterator<Object> it = iterator(); it.hasNext(); it.next()) {
+            count++;
+        }
+        return count;
+    }
+    
+    /**
+     * 把元素依次写入输出，元素之间插入分隔符
+     * @param out 输出目标
+     * @param delimiter 分隔符
+     * @throws IOException 写入失败
+     */
+    public void appendTo(Appendable out, CharSequence delimiter) throws IOException {
+        boolean first = true;
+        for (Object item : this) {
+            if (!first) {
+                out.append(delimiter);
+            }
+            first = false;
+            if (item != null) {
+                out.append(item.toString());
+            }
+        }
+    }
+    
+    /**
+     * 连接为惰性文本，在输出时才遍历序列
+     * @param delimiter 分隔符
+     * @return 连接后的文本
+     */
+    public Joined join(String delimiter) {
+        return new Joined(this, delimiter);
+    }
+    
+    /**
+     * 物化为列表
+     * @return 新列表
+     */
+    public List<Object> toList() {
+        List<Object> list = new ArrayList<>();
+        for (Object item : this) {
+            list.add(item);
+        }
+        return list;
+    }
+    
+    /**
+     * 与List保持一致的字符串形式，便于把序列传给只接受字符串的函数
+     */
+    @Override
+    public String toString() {
+        return toList().toString();
+    }
+    
+    /**
+     * 惰性连接文本
+     * 渲染和写文件时直接流式写出，作为字符串使用时才物化
+     */
+    public static final class Joined {
+        private final DslSequence sequence;
+        private final String delimiter;
+        
+        private Joined(DslSequence sequence, String delimiter) {
+            this.sequence = sequence;
+            this.delimiter = delimiter;
+        }
+        
+        /**
+         * 连接结果是否为空字符串
+         * @return 是否为空
+         */
+        public boolean isEmpty() {
+            int seen = 0;
+            for (Object item : sequence) {
+                if (++seen > 1 && !delimiter.isEmpty()) {
+                    return false;
+                }
+                if (item != null && !item.toString().isEmpty()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        /**
+         * 把连接后的文本写入输出
+         * @param out 输出目标
+         * @throws IOException 写入失败
+         */
+        public void appendTo(Appendable out) throws IOException {
+            sequence.appendTo(out, delimiter);
+        }
+        
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            try {
+                appendTo(builder);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return builder.toString();
+        }
+    }
+    
+    /**
+     * 预读一个元素的迭代器基类
+     */
+    private abstract static class LookaheadIterator implements Iterator<Object> {
+        private Object next;
+        private boolean ready;
+        private boolean done;
+        
+        /**
+         * 读取下一个元素，找到时调用setNext并返回true
+         */
+        protected abstract boolean advance();
+        
+        protected void setNext(Object value) {
+            next = value;
+        }
+        
+        @Override
+        public boolean hasNext() {
+            if (!ready && !done) {
+                ready = advance();
+                done = !ready;
+            }
+            return ready;
+        }
+        
+        @Override
+        public Object next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ready = false;
+            Object value = next;
+            next = null;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package executor.dsl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * DSL模板编译器
+ * 将命令模板编译为 {@link CompiledTemplate}，并按模板字符串缓存编译结果
+ * 
+ * config.yaml中的模板数量有限而渲染次数很多，编译一次后渲染只需遍历表达式树
+ */
+public final class DslTemplateCompiler {
+    
+    private static final Pattern VARIABLE_PATTERN = Pattern.compile("%([^%]+)%");
+    
+    // 缓存的模板数量上限
+    private static final int MAX_CACHED_TEMPLATES = 512;
+    
+    private static final LruCache<String, CompiledTemplate> cache = new LruCache<>(MAX_CACHED_TEMPLATES);
+    private static final DslExpressionParser parser = new DslExpressionParser();
+    
+    private DslTemplateCompiler() {
+    }
+    
+    /**
+     * 获取编译后的模板（优先使用缓存）
+     * @param template 命令模板
+     * @return 编译后的模板
+     */
+    public static CompiledTemplate compile(String template) {
+        if (template == null) {
+            template = "";
+        }
+        return cache.computeIfAbsent(template, DslTemplateCompiler::doCompile);
+    }
+    
+    /**
+     * 分析模板引用了哪些上下文
+     * @param template 命令模板
+     * @return 依赖分析结果
+     */
+    public static TemplateDependencies analyze(String template) {
+        return compile(template).getDependencies();
+    }
+    
+    /**
+     * 检查模板中的表达式
+     * 报告编译失败的表达式（参数个数或类型不符、路径语法错误）和未注册的函数，供加载配置时提示
+     * @param template 命令模板
+     * @return 问题列表，没有问题返回空列表
+     */
+    public static List<String> validate(String template) {
+        List<String> problems = new ArrayList<>();
+        for (ExpressionNode expression : compile(template).getExpressions()) {
+            collectProblems(expression, problems);
+        }
+        return problems;
+    }
+    
+    private static void collectProblems(ExpressionNode node, List<String> problems) {
+        if (node instanceof FailingNode) {
+            Throwable error = ((FailingNode) node).getError();
+            while (error.getCause() != null) {
+                error = error.getCause();
+            }
+            problems.add("%" + node.getSource() + "%: " + error.getMessage());
+        } else if (node instanceof FunctionCallNode) {
+            FunctionCallNode call = (FunctionCallNode) node;
+            if (!FunctionRegistry.hasFunction(call.getFunctionName())) {
+                problems.add("%" + node.getSource() + "%: Unknown function: " + call.getFunctionName());
+            }
+            for (ExpressionNode argument : call.getArguments()) {
+                collectProblems(argument, problems);
+            }
+        }
+    }
+    
+    /**
+     * 执行编译
+     */
+    private static CompiledTemplate doCompile(String template) {
+        List<CompiledTemplate.Segment> segments = new ArrayList<>();
+        Matcher matcher = VARIABLE_PATTERN.matcher(template);
+        int last = 0;
+        
+        while (matcher.find()) {
+            if (matcher.start() > last) {
+                segments.add(CompiledTemplate.Segment.literal(template.substring(last, matcher.start())));
+            }
+            segments.add(CompiledTemplate.Segment.expression(parser.parse(matcher.group(1))));
+            last = matcher.end();
+        }
+        
+        if (last < template.length()) {
+            segments.add(CompiledTemplate.Segment.literal(template.substring(last)));
+        }
+        
+        return new CompiledTemplate(template, segments);
+    }
+    
+    /**
+     * 清空模板缓存
+     */
+    public static void clearCache() {
+        cache.clear();
+    }
+    
+    /**
+     * 当前缓存的模板数量
+     * @return 模板数量
+     */
+    public static int getCacheSize() {
+        return cache.size();
+    }
+}
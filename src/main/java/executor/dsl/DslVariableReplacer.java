@@ -19,11 +19,6 @@ import java.util.regex.Pattern;
 public class DslVariableReplacer {
     
     private static final Pattern VARIABLE_PATTERN = Pattern.compile("%([^%]+)%");
-    private final DslExpressionParser parser;
-    
-    public DslVariableReplacer() {
-        this.parser = new DslExpressionParser();
-    }
     
     /**
      * 替换命令中的所有变量
@@ -37,8 +32,9 @@ public class DslVariableReplacer {
             return command;
         }
         
-        HttpContext context = HttpContext.from(montoyaRequest, montoyaResponse);
-        return replace(command, context);
+        CompiledTemplate template = DslTemplateCompiler.compile(command);
+        HttpContext context = HttpContext.from(montoyaRequest, montoyaResponse, template.getDependencies());
+        return template.render(context);
     }
     
     /**
@@ -53,12 +49,14 @@ public class DslVariableReplacer {
             return command;
         }
         
-        HttpContext context = HttpContext.fromList(montoyaRequests, montoyaResponses);
-        return replace(command, context);
+        CompiledTemplate template = DslTemplateCompiler.compile(command);
+        HttpContext context = HttpContext.fromList(montoyaRequests, montoyaResponses, template.getDependencies());
+        return template.render(context);
     }
     
     /**
      * 核心替换逻辑
+     * 模板经编译缓存后直接对上下文渲染
      * @param command 命令模板
      * @param context HTTP上下文
      * @return 替换后的命令
@@ -68,63 +66,25 @@ public class DslVariableReplacer {
             return command;
         }
         
-        Matcher matcher = VARIABLE_PATTERN.matcher(command);
-        StringBuffer result = new StringBuffer();
-        
-        while (matcher.find()) {
-            String expression = matcher.group(1);
-            
-            try {
-                // 使用DSL解析器求值
-                Object value = parser.evaluate(expression, context);
-                String replacement = formatValue(value);
-                
-                // 转义特殊字符以避免正则表达式问题
-                replacement = escapeForReplacement(replacement);
-                matcher.appendReplacement(result, replacement);
-            } catch (Exception e) {
-                // 解析失败，保留原样或替换为错误信息
-                String errorMsg = "[DSL Error: " + e.getMessage() + "]";
-                matcher.appendReplacement(result, Matcher.quoteReplacement(errorMsg));
-            }
-        }
-        
-        matcher.appendTail(result);
-        return result.toString();
+        return DslTemplateCompiler.compile(command).render(context);
     }
     
     /**
-     * 格式化值为字符串
-     * 处理List等复杂类型
+     * 预览渲染，用于在界面上显示命令
+     * 副作用函数只计算结果，不写入文件、不记录状态
+     * @param command 命令模板
+     * @param montoyaRequest Montoya HTTP请求
+     * @param montoyaResponse Montoya HTTP响应（可选）
+     * @return 替换后的命令
      */
-    private String formatValue(Object value) {
-        if (value == null) {
-            return "";
-        }
-        
-        if (value instanceof List) {
-            List<?> list = (List<?>) value;
-            // 将列表转换为换行分隔的字符串
-            StringBuilder sb = new StringBuilder();
-            for (int i = 0; i < list.size(); i++) {
-                if (i > 0) sb.append("\n");
-                sb.append(list.get(i) != null ? list.get(i).toString() : "");
-            }
-            return sb.toString();
+    public String preview(String command, HttpRequest montoyaRequest, HttpResponse montoyaResponse) {
+        if (command == null || command.isEmpty()) {
+            return command;
         }
         
-        return value.toString();
-    }
-    
-    /**
-     * 转义字符串以用于正则表达式替换
-     */
-    private String escapeForReplacement(String input) {
-        if (input == null) {
-            return "";
-        }
-        // 转义反斜杠和美元符号
-        return input.replace("\\", "\\\\").replace("$", "\\$");
+        CompiledTemplate template = DslTemplateCompiler.compile(command);
+        HttpContext context = HttpContext.from(montoyaRequest, montoyaResponse, template.getDependencies());
+        return template.render(context, true);
     }
     
     /**
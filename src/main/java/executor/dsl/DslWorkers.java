@@ -0,0 +1,76 @@
+package executor.dsl;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * DSL并行计算线程池
+ * 批量构建请求-响应对、并行处理列表元素等操作共用一个有界ForkJoinPool，
+ * 线程数有上限，避免大批量选择占满所有CPU影响Burp本身
+ */
+public final class DslWorkers {
+    
+    // 单个任务顺序处理的元素数阈值
+    private static final int SEQUENTIAL_THRESHOLD = 16;
+    
+    private static final ForkJoinPool POOL = new ForkJoinPool(
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1)),
+            pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("BpArsenal-DslWorker-" + thread.getPoolIndex());
+                thread.setDaemon(true);
+                return thread;
+            },
+            null, false);
+    
+    private DslWorkers() {
+    }
+    
+    /**
+     * 并行处理[from, to)范围内的每个下标，所有下标处理完成后返回
+     * 范围较小时直接在调用线程上顺序处理
+     * @param from 起始下标（包含）
+     * @param to 结束下标（不包含）
+     * @param action 下标处理函数
+     */
+    public static void parallelFor(int from, int to, IntConsumer action) {
+        if (to - from <= SEQUENTIAL_THRESHOLD) {
+            for (int i = from; i < to; i++) {
+                action.accept(i);
+            }
+            return;
+        }
+        POOL.invoke(new RangeTask(from, to, action));
+    }
+    
+    /**
+     * 分治处理任务
+     */
+    private static final class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final int from;
+        private final int to;
+        private final IntConsumer action;
+        
+        RangeTask(int from, int to, IntConsumer action) {
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    action.accept(i);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RangeTask(from, middle, action), new RangeTask(middle, to, action));
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package executor.dsl;
+
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ParseException;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.SimpleEvaluationContext;
+
+/**
+ * 元素表达式编译器
+ * filter()、map()等函数使用的SpEL表达式，以列表元素（通常是HttpRequestResponsePair）为根对象求值
+ *
+ * 表达式按源码缓存，只解析一次；采用IMMEDIATE编译模式，首次求值后生成字节码，
+ * 之后的求值直接调用getter，不再经过反射
+ * 求值上下文只允许只读属性访问和实例方法调用，不允许类型引用和构造对象
+ *
+ * 示例：
+ * - response.status >= 200 && request.method == 'POST'
+ * - request.url.contains('admin')
+ * - request.headers['content.type']
+ */
+public final class ElementExpressions {
+    
+    private static final SpelExpressionParser PARSER = new SpelExpressionParser(
+            new SpelParserConfiguration(SpelCompilerMode.IMMEDIATE, ElementExpressions.class.getClassLoader()));
+    
+    private static final EvaluationContext EVALUATION_CONTEXT =
+            SimpleEvaluationContext.forReadOnlyDataBinding().withInstanceMethods().build();
+    
+    private static final LruCache<String, Expression> cache = new LruCache<>(256);
+    
+    private ElementExpressions() {
+    }
+    
+    /**
+     * 编译表达式（带缓存）
+     * @param source 表达式源码
+     * @return 编译后的表达式
+     * @throws DslException 表达式语法错误
+     */
+    public static Expression compile(String source) throws DslException {
+        Expression expression = cache.get(source);
+        if (expression != null) {
+            return expression;
+        }
+        
+        try {
+            expression = PARSER.parseExpression(source);
+        } catch (ParseException e) {
+            throw new DslException("Invalid expression '" + source + "': " + e.getSimpleMessage(), e);
+        }
+        cache.put(source, expression);
+        return expression;
+    }
+    
+    /**
+     * 以元素为根对象求值
+     * @param expression 编译后的表达式
+     * @param element 列表元素
+     * @return 求值结果，求值失败（例如访问了缺失的响应）时返回null
+     */
+    public static Object evaluate(Expression expression, Object element) {
+        try {
+            return expression.getValue(EVALUATION_CONTEXT, element);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * 以元素为根对象判断条件
+     * @param expression 编译后的表达式
+     * @param element 列表元素
+     * @return 条件是否成立，求值失败视为不成立
+     */
+    public static boolean test(Expression expression, Object element) {
+        return Boolean.TRUE.equals(evaluate(expression, element));
+    }
+}
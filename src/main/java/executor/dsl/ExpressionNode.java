@@ -0,0 +1,40 @@
+package executor.dsl;
+
+/**
+ * 预解析的DSL表达式节点
+ * 由 {@link DslExpressionParser#parse(String)} 生成，渲染时直接遍历求值，不再做任何正则匹配
+ */
+public interface ExpressionNode {
+    
+    /**
+     * 在渲染作用域内对节点求值
+     * 子节点应通过 {@link RenderScope#evaluate(ExpressionNode)} 求值，以便复用同一次渲染中已求得的结果
+     * @param scope 渲染作用域
+     * @return 求值结果
+     */
+    Object evaluate(RenderScope scope);
+    
+    /**
+     * 在新的作用域中对节点求值
+     * @param context HTTP上下文
+     * @return 求值结果
+     */
+    default Object evaluate(HttpContext context) {
+        return new RenderScope(context).evaluate(this);
+    }
+    
+    /**
+     * 节点是否没有副作用
+     * 纯节点在同一次渲染中对相同源码只求值一次
+     * @return 是否为纯表达式
+     */
+    default boolean isPure() {
+        return true;
+    }
+    
+    /**
+     * 获取节点对应的表达式源码
+     * @return 表达式源码
+     */
+    String getSource();
+}
@@ -0,0 +1,33 @@
+package executor.dsl;
+
+/**
+ * 编译失败节点
+ * 表达式在编译阶段出错时使用，错误延迟到求值时抛出，只影响该表达式本身而不影响整个模板
+ */
+public class FailingNode implements ExpressionNode {
+    private final String source;
+    private final RuntimeException error;
+    
+    public FailingNode(String source, RuntimeException error) {
+        this.source = source;
+        this.error = error;
+    }
+    
+    @Override
+    public Object evaluate(RenderScope scope) {
+        throw error;
+    }
+    
+    /**
+     * 获取编译错误
+     * @return 编译错误
+     */
+    public RuntimeException getError() {
+        return error;
+    }
+    
+    @Override
+    public String getSource() {
+        return source;
+    }
+}
@@ -0,0 +1,74 @@
+package executor.dsl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 函数调用节点
+ * 参数在编译阶段已解析为子节点，函数处理器在求值时从注册中心查找，以便运行时注册的函数立即生效
+ */
+public class FunctionCallNode implements ExpressionNode {
+    private final String source;
+    private final String functionName;
+    private final List<ExpressionNode> arguments;
+    
+    public FunctionCallNode(String source, String functionName, List<ExpressionNode> arguments) {
+        this.source = source;
+        this.functionName = functionName;
+        this.arguments = Collections.unmodifiableList(new ArrayList<>(arguments));
+    }
+    
+    @Override
+    public Object evaluate(RenderScope scope) {
+        try {
+            // 求值参数（同一次渲染中相同的纯参数表达式只求值一次）
+            List<Object> args = new ArrayList<>(arguments.size());
+            for (ExpressionNode argument : arguments) {
+                args.add(scope.evaluate(argument));
+            }
+            
+            // 获取函数处理器
+            FunctionHandler handler = FunctionRegistry.getHandler(functionName);
+            if (handler == null) {
+                throw new DslException("Unknown function: " + functionName);
+            }
+            
+            // 执行函数
+            return handler.execute(args, scope.getContext());
+        } catch (Exception e) {
+            throw new DslException("Function execution failed: " + functionName, e);
+        }
+    }
+    
+    /**
+     * 函数本身和所有参数都没有副作用时才是纯表达式
+     * 未注册的函数求值必然失败，视为纯表达式
+     */
+    @Override
+    public boolean isPure() {
+        FunctionHandler handler = FunctionRegistry.getHandler(functionName);
+        if (handler != null && !handler.isPure()) {
+            return false;
+        }
+        for (ExpressionNode argument : arguments) {
+            if (!argument.isPure()) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    public String getFunctionName() {
+        return functionName;
+    }
+    
+    public List<ExpressionNode> getArguments() {
+        return arguments;
+    }
+    
+    @Override
+    public String getSource() {
+        return source;
+    }
+}
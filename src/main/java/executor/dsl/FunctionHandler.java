@@ -1,5 +1,6 @@
 package executor.dsl;
 
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -40,5 +41,104 @@ public interface FunctionHandler {
     default String getUsage() {
         return getName() + "(...)";
     }
+    
+    /**
+     * 函数是否没有副作用
+     * 纯函数的结果只取决于参数，同一次渲染中相同的调用只执行一次；
+     * 创建文件等有副作用的函数应返回false，每次出现都重新执行；
+     * 这类函数还应在 {@link RenderScope#isPreview()} 为true时跳过副作用，只返回结果
+     * @return 是否为纯函数
+     */
+    default boolean isPure() {
+        return true;
+    }
+    
+    /**
+     * 函数是否按原始字节处理参数
+     * 返回true时，编译阶段把 body.raw、body.bytes 形式的参数改为Body本身，
+     * 函数直接读取报文原始字节，不经过字符串解码和重新编码
+     * @return 是否按原始字节处理参数
+     */
+    default boolean consumesBytes() {
+        return false;
+    }
+    
+    /**
+     * 最少参数个数
+     * 编译模板时检查，参数个数不符的调用在加载配置时即可发现
+     * 默认 {@link #getArgumentTypes()} 中声明的参数都是必需的，有可选参数的函数需要覆盖
+     * @return 最少参数个数
+     */
+    default int getMinArgs() {
+        return getArgumentTypes().size();
+    }
+    
+    /**
+     * 最多参数个数
+     * 默认为 {@link #getArgumentTypes()} 声明的参数个数，没有声明参数类型时不限
+     * @return 最多参数个数，{@link #VARIADIC} 表示不限
+     */
+    default int getMaxArgs() {
+        int declared = getArgumentTypes().size();
+        return declared > 0 ? declared : VARIADIC;
+    }
+    
+    /**
+     * 各位置参数的类型
+     * 列表短于实际参数个数时，其余参数视为 {@link ValueType#ANY}；
+     * 未声明参数类型的函数（默认）不检查参数个数
+     * @return 参数类型列表
+     */
+    default List<ValueType> getArgumentTypes() {
+        return Collections.emptyList();
+    }
+    
+    /**
+     * 返回值类型
+     * @return 返回值类型
+     */
+    default ValueType getReturnType() {
+        return ValueType.ANY;
+    }
+    
+    /**
+     * 执行开销提示
+     * {@link Cost#IO} 表示结果取决于文件等外部状态，即使是纯函数也不会在编译时折叠
+     * @return 开销等级
+     */
+    default Cost getCost() {
+        return Cost.LINEAR;
+    }
+    
+    /**
+     * 不限参数个数
+     */
+    int VARIADIC = Integer.MAX_VALUE;
+    
+    /**
+     * 参数和返回值类型
+     */
+    enum ValueType {
+        ANY,
+        STRING,
+        NUMBER,
+        BOOLEAN,
+        LIST,
+        BINARY
+    }
+    
+    /**
+     * 开销等级
+     */
+    enum Cost {
+        // 与输入大小无关
+        CONSTANT,
+        // 随输入大小线性增长
+        LINEAR,
+        // 排序、分组、哈希集合等较重的计算
+        HEAVY,
+        // 读写文件或持久化状态
+        IO
+    }
 }
 
@@ -1,22 +1,52 @@
 package executor.dsl;
 
 import executor.dsl.functions.*;
+import manager.ConfigManager;
+import util.BpLogger;
 
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 函数注册中心
  * 采用单例模式，管理所有DSL函数的注册和查找
+ *
+ * 除内置函数外，启动时从 ~/.bparsenal/functions/ 目录下的jar包中通过 {@link ServiceLoader} 发现扩展函数
+ * （jar包在 META-INF/services/executor.dsl.FunctionHandler 中声明实现类），扩展函数不能覆盖同名内置函数
+ *
+ * 注册表支持运行时并发注册和注销；注册表变化时清空模板编译缓存，
+ * 避免已编译模板保留按旧函数折叠的常量或参数个数检查结果
  */
 public class FunctionRegistry {
     
-    private static final Map<String, FunctionHandler> handlers = new HashMap<>();
+    private static final String MODULE = "FunctionRegistry";
+    private static final String FUNCTIONS_DIRECTORY = "functions";
+    
+    private static final Map<String, FunctionHandler> handlers = new ConcurrentHashMap<>();
+    private static final Set<String> builtinNames = new HashSet<>();
     
     static {
         // 注册内置函数
         registerBuiltinFunctions();
+        builtinNames.addAll(handlers.keySet());
+        
+        // 加载扩展函数
+        loadExternalFunctions();
     }
     
     /**
@@ -25,20 +55,89 @@ public class FunctionRegistry {
     private static void registerBuiltinFunctions() {
         register(new HashFunction());
         register(new Base64Function());
+        register(new HexFunction());
+        register(new InflateFunction());
         register(new JsonPathFunction());
         register(new RegexFunction());
+        register(new ExtractAllFunction());
         register(new UrlEncodeFunction());
         register(new UrlDecodeFunction());
         register(new JoinFunction());
         register(new UniqueFunction());
+        register(new UniqueEndpointsFunction());
+        register(new UnseenFunction());
         register(new FilterFunction());
         register(new MapFunction());
+        register(new GroupByFunction());
+        register(new CountByFunction());
+        register(new SortByFunction());
+        register(new TopKFunction());
+        register(new DistinctByFunction());
+        register(new FlattenFunction());
         register(new CountFunction());
         register(new TmpFileFunction());
+        register(new PipeFunction());
+        register(new StdinFunction());
+        register(new RawRequestFunction());
+        register(new RawRequestsFunction());
         register(new FileFunction());
+        register(new LinesFunction());
         register(new SplitFunction());
     }
     
+    /**
+     * 从用户数据目录加载扩展函数
+     * 单个jar包或实现类加载失败只记录日志，不影响其他函数
+     * @return 成功注册的扩展函数个数
+     */
+    public static synchronized int loadExternalFunctions() {
+        Path directory = Paths.get(ConfigManager.getUserDataDirectory(), FUNCTIONS_DIRECTORY);
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        
+        List<URL> jars = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.jar")) {
+            for (Path jar : stream) {
+                jars.add(jar.toUri().toURL());
+            }
+        } catch (IOException e) {
+            BpLogger.getInstance().warn(MODULE, "读取扩展函数目录失败: " + e.getMessage());
+            return 0;
+        }
+        if (jars.isEmpty()) {
+            return 0;
+        }
+        
+        URLClassLoader loader = new URLClassLoader(jars.toArray(new URL[0]), FunctionHandler.class.getClassLoader());
+        Iterator<FunctionHandler> providers = ServiceLoader.load(FunctionHandler.class, loader).iterator();
+        int loaded = 0;
+        while (true) {
+            FunctionHandler handler;
+            try {
+                if (!providers.hasNext()) {
+                    break;
+                }
+                handler = providers.next();
+            } catch (ServiceConfigurationError | LinkageError e) {
+                BpLogger.getInstance().warn(MODULE, "加载扩展函数失败: " + e.getMessage());
+                continue;
+            }
+            
+            String name = handler.getName();
+            if (name == null || name.isEmpty()) {
+                BpLogger.getInstance().warn(MODULE, "扩展函数名称为空: " + handler.getClass().getName());
+            } else if (builtinNames.contains(name.toLowerCase())) {
+                BpLogger.getInstance().warn(MODULE, "扩展函数与内置函数同名，已忽略: " + name);
+            } else {
+                register(handler);
+                loaded++;
+                BpLogger.getInstance().info(MODULE, "已加载扩展函数: " + name + " (" + handler.getClass().getName() + ")");
+            }
+        }
+        return loaded;
+    }
+    
     /**
      * 注册函数
      * @param handler 函数处理器
@@ -46,6 +145,7 @@ public class FunctionRegistry {
     public static void register(FunctionHandler handler) {
         if (handler != null) {
             handlers.put(handler.getName().toLowerCase(), handler);
+            DslTemplateCompiler.clearCache();
         }
     }
     
@@ -57,6 +157,7 @@ public class FunctionRegistry {
     public static void register(String name, FunctionHandler handler) {
         if (name != null && handler != null) {
             handlers.put(name.toLowerCase(), handler);
+            DslTemplateCompiler.clearCache();
         }
     }
     
@@ -104,6 +205,7 @@ public class FunctionRegistry {
     public static void unregister(String name) {
         if (name != null) {
             handlers.remove(name.toLowerCase());
+            DslTemplateCompiler.clearCache();
         }
     }
     
@@ -112,6 +214,7 @@ public class FunctionRegistry {
      */
     public static void clear() {
         handlers.clear();
+        DslTemplateCompiler.clearCache();
     }
 }
 
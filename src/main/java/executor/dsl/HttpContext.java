@@ -10,7 +10,7 @@ import java.util.List;
  * 
  * 使用建造者模式构建，支持链式调用
  */
-public class HttpContext {
+public class HttpContext implements PropertyAccessible {
     private HttpRequestContext request;
     private HttpResponseContext response;
     private HttpListContext httpList;
@@ -30,10 +30,10 @@ public class HttpContext {
     public static HttpContext from(HttpRequest montoyaRequest, HttpResponse montoyaResponse) {
         HttpContext context = new HttpContext();
         if (montoyaRequest != null) {
-            context.request = HttpRequestContext.from(montoyaRequest);
+            context.request = HttpContextCache.request(montoyaRequest);
         }
         if (montoyaResponse != null) {
-            context.response = HttpResponseContext.from(montoyaResponse);
+            context.response = HttpContextCache.response(montoyaResponse);
         }
         // 初始化http包装器，支持http.request.*和http.response.*语法
         context.http = new HttpWrapper(context.request, context.response);
@@ -47,19 +47,36 @@ public class HttpContext {
      * @return HTTP上下文对象
      */
     public static HttpContext fromList(List<HttpRequest> montoyaRequests, List<HttpResponse> montoyaResponses) {
+        return fromList(montoyaRequests, montoyaResponses, null);
+    }
+    
+    /**
+     * 根据模板依赖从批量请求构建HTTP上下文
+     * 模板未引用httpList时不构建列表上下文，未引用响应时跳过响应解析
+     * @param montoyaRequests Montoya HTTP请求列表
+     * @param montoyaResponses Montoya HTTP响应列表（可选）
+     * @param dependencies 模板依赖（为null时构建完整上下文）
+     * @return HTTP上下文对象
+     */
+    public static HttpContext fromList(List<HttpRequest> montoyaRequests, List<HttpResponse> montoyaResponses,
+                                       TemplateDependencies dependencies) {
         HttpContext context = new HttpContext();
+        boolean hasRequests = montoyaRequests != null && !montoyaRequests.isEmpty();
         
         // 设置主请求（第一个请求）
-        if (montoyaRequests != null && !montoyaRequests.isEmpty()) {
-            context.request = HttpRequestContext.from(montoyaRequests.get(0));
-            if (montoyaResponses != null && !montoyaResponses.isEmpty()) {
-                context.response = HttpResponseContext.from(montoyaResponses.get(0));
+        if (hasRequests) {
+            context.request = HttpContextCache.request(montoyaRequests.get(0));
+            if (montoyaResponses != null && !montoyaResponses.isEmpty()
+                    && (dependencies == null || dependencies.usesResponse())) {
+                context.response = HttpContextCache.response(montoyaResponses.get(0));
             }
         }
         
         // 设置批量请求列表
-        if (montoyaRequests != null && !montoyaRequests.isEmpty()) {
-            context.httpList = HttpListContext.from(montoyaRequests, montoyaResponses);
+        if (hasRequests && (dependencies == null || dependencies.usesHttpList())) {
+            List<HttpResponse> listResponses = dependencies == null || dependencies.usesHttpListResponses()
+                ? montoyaResponses : null;
+            context.httpList = HttpListContext.from(montoyaRequests, listResponses);
         }
         
         // 初始化http包装器
@@ -68,6 +85,20 @@ public class HttpContext {
         return context;
     }
     
+    /**
+     * 根据模板依赖构建HTTP上下文
+     * 模板未引用响应时跳过响应解析
+     * @param montoyaRequest Montoya HTTP请求对象
+     * @param montoyaResponse Montoya HTTP响应对象（可选）
+     * @param dependencies 模板依赖（为null时构建完整上下文）
+     * @return HTTP上下文对象
+     */
+    public static HttpContext from(HttpRequest montoyaRequest, HttpResponse montoyaResponse,
+                                   TemplateDependencies dependencies) {
+        boolean needsResponse = dependencies == null || dependencies.usesResponse();
+        return from(montoyaRequest, needsResponse ? montoyaResponse : null);
+    }
+    
     // Getters
     public HttpRequestContext getRequest() {
         return request;
@@ -103,10 +134,11 @@ public class HttpContext {
     }
     
     /**
-     * 获取属性（用于反射和动态访问）
+     * 获取属性（用于链式访问）
      * @param propertyName 属性名称
      * @return 属性值
      */
+    @Override
     public Object getProperty(String propertyName) {
         switch (propertyName.toLowerCase()) {
             case "http":
@@ -126,7 +158,7 @@ public class HttpContext {
      * HTTP包装器内部类
      * 用于支持 http.request.* 和 http.response.* 语法
      */
-    public static class HttpWrapper {
+    public static class HttpWrapper implements PropertyAccessible {
         private final HttpRequestContext request;
         private final HttpResponseContext response;
         
@@ -144,8 +176,9 @@ public class HttpContext {
         }
         
         /**
-         * 获取属性（用于反射和动态访问）
+         * 获取属性（用于链式访问）
          */
+        @Override
         public Object getProperty(String propertyName) {
             switch (propertyName.toLowerCase()) {
                 case "request":
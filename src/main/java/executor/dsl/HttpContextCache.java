@@ -0,0 +1,231 @@
+package executor.dsl;
+
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+import util.BpLogger;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 全局HTTP上下文缓存
+ * 以报文内容指纹（长度 + 64位哈希）为键缓存已解析的请求/响应上下文，
+ * 重新打开对话框、触发收藏菜单或预览命令时，Burp每次传入新的报文对象，内容相同即可复用已解析的上下文
+ *
+ * 每次查找只取一次报文字节并计算指纹；指纹相同时再逐字节比较，哈希冲突不会返回错误的上下文
+ * 请求的键还包含目标服务（主机、端口、协议），相同报文发往不同主机时分别缓存
+ *
+ * 缓存同时按条目数和估算的内存占用限制：每个条目除报文字节外，还会按需保存解码后的Body字符串
+ * 和JSON解析树，按报文长度的 {@link #RETAINED_FACTOR} 倍估算；单条超过上限的报文不缓存
+ * 每 {@link #STATS_LOG_INTERVAL} 次查找把命中、未命中和淘汰次数写入调试日志，用于调整缓存上限
+ */
+public final class HttpContextCache {
+    
+    // 最大缓存条目数
+    private static final int MAX_ENTRIES = 2048;
+    
+    // 估算内存占用的上限（字节）
+    private static final long MAX_WEIGHT = 256L * 1024 * 1024;
+    
+    // 每字节报文估算的内存占用：键中的报文字节、解码后的Body字符串（最多每字符2字节）和JSON解析树
+    static final int RETAINED_FACTOR = 8;
+    
+    // 每多少次查找记录一次统计信息
+    private static final long STATS_LOG_INTERVAL = 4096;
+    
+    private static final AtomicLong lookups = new AtomicLong();
+    
+    private static final VarHandle LONG_VIEW =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    
+    private static final LruCache<MessageKey, Object> cache =
+            new LruCache<>(MAX_ENTRIES, MAX_WEIGHT, (key, value) -> (long) key.bytes.length * RETAINED_FACTOR);
+    
+    private HttpContextCache() {
+    }
+    
+    /**
+     * 获取请求上下文，内容和目标服务相同的请求复用同一个上下文
+     * @param montoyaRequest Montoya HTTP请求对象
+     * @return HTTP请求上下文
+     */
+    public static HttpRequestContext request(HttpRequest montoyaRequest) {
+        if (montoyaRequest == null) {
+            return null;
+        }
+        
+        byte[] bytes = bytesOf(montoyaRequest.toByteArray());
+        if (bytes == null) {
+            return HttpRequestContext.from(montoyaRequest);
+        }
+        MessageKey key = new MessageKey(serviceOf(montoyaRequest.httpService()), bytes);
+        logStatsPeriodically();
+        return (HttpRequestContext) cache.computeIfAbsent(key, k -> HttpRequestContext.from(montoyaRequest));
+    }
+    
+    /**
+     * 获取响应上下文，内容相同的响应复用同一个上下文
+     * @param montoyaResponse Montoya HTTP响应对象
+     * @return HTTP响应上下文
+     */
+    public static HttpResponseContext response(HttpResponse montoyaResponse) {
+        if (montoyaResponse == null) {
+            return null;
+        }
+        
+        byte[] bytes = bytesOf(montoyaResponse.toByteArray());
+        if (bytes == null) {
+            return HttpResponseContext.from(montoyaResponse);
+        }
+        MessageKey key = new MessageKey(null, bytes);
+        logStatsPeriodically();
+        return (HttpResponseContext) cache.computeIfAbsent(key, k -> HttpResponseContext.from(montoyaResponse));
+    }
+    
+    /**
+     * 获取缓存统计信息
+     * @return 统计信息快照
+     */
+    public static Stats getStats() {
+        synchronized (cache) {
+            return new Stats(cache.size(), cache.weight(), cache.hitCount(),
+                    cache.missCount(), cache.evictionCount());
+        }
+    }
+    
+    private static void logStatsPeriodically() {
+        if (lookups.incrementAndGet() % STATS_LOG_INTERVAL == 0) {
+            BpLogger.getInstance().debug("HttpContextCache", "上下文缓存统计: " + getStats());
+        }
+    }
+    
+    /**
+     * 清空缓存
+     */
+    public static void clear() {
+        cache.clear();
+    }
+    
+    /**
+     * 取报文字节（Montoya每次调用都会复制一份，每次查找只取一次）
+     * @return 报文字节，无法获取时返回null（不缓存）
+     */
+    private static byte[] bytesOf(ByteArray message) {
+        try {
+            return message != null ? message.getBytes() : null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+    
+    private static String serviceOf(HttpService service) {
+        return service == null ? "" : service.host() + ":" + service.port() + ":" + service.secure();
+    }
+    
+    /**
+     * 64位内容哈希，每次处理8个字节
+     */
+    static long fingerprint(byte[] bytes) {
+        long hash = 0x9E3779B97F4A7C15L ^ bytes.length;
+        int i = 0;
+        for (int limit = bytes.length - 7; i < limit; i += 8) {
+            hash = mix(hash ^ (long) LONG_VIEW.get(bytes, i));
+        }
+        long tail = 0;
+        for (int shift = 0; i < bytes.length; i++, shift += 8) {
+            tail |= (bytes[i] & 0xffL) << shift;
+        }
+        return mix(hash ^ tail);
+    }
+    
+    private static long mix(long value) {
+        value *= 0xBF58476D1CE4E5B9L;
+        value ^= value >>> 31;
+        return value * 0x94D049BB133111EBL;
+    }
+    
+    /**
+     * 报文内容指纹
+     * service为null表示响应，非null表示请求；指纹相同时比较完整内容
+     */
+    private static final class MessageKey {
+        private final String service;
+        private final byte[] bytes;
+        private final long hash;
+        
+        MessageKey(String service, byte[] bytes) {
+            this.service = service;
+            this.bytes = bytes;
+            this.hash = fingerprint(bytes);
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof MessageKey)) {
+                return false;
+            }
+            MessageKey other = (MessageKey) o;
+            return hash == other.hash && bytes.length == other.bytes.length
+                    && (service == null ? other.service == null : service.equals(other.service))
+                    && Arrays.equals(bytes, other.bytes);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Long.hashCode(hash);
+        }
+    }
+    
+    /**
+     * 缓存统计信息快照
+     */
+    public static final class Stats {
+        private final int entries;
+        private final long weight;
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        
+        private Stats(int entries, long weight, long hits, long misses, long evictions) {
+            this.entries = entries;
+            this.weight = weight;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+        }
+        
+        public int getEntries() {
+            return entries;
+        }
+        
+        public long getWeight() {
+            return weight;
+        }
+        
+        public long getHits() {
+            return hits;
+        }
+        
+        public long getMisses() {
+            return misses;
+        }
+        
+        public long getEvictions() {
+            return evictions;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("entries=%d, estimatedBytes=%d, hits=%d, misses=%d, evictions=%d",
+                    entries, weight, hits, misses, evictions);
+        }
+    }
+}
@@ -4,39 +4,29 @@ import burp.api.montoya.http.message.requests.HttpRequest;
 import burp.api.montoya.http.message.responses.HttpResponse;
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 /**
  * HTTP列表上下文
  * 封装批量HTTP请求-响应对，提供聚合操作
+ * 
+ * 请求-响应对按需构建：first、last、count和索引访问只构建用到的元素，
+ * 遍历整个列表时在有界线程池上分块并行构建并保持原有顺序
  */
-public class HttpListContext {
-    private List<HttpRequestResponsePair> requests;
+public class HttpListContext implements PropertyAccessible {
+    private final LazyPairList requests;
     
-    private HttpListContext() {
-        this.requests = new ArrayList<>();
+    private HttpListContext(LazyPairList requests) {
+        this.requests = requests;
     }
     
     /**
      * 从Montoya API请求列表构建列表上下文
      */
     public static HttpListContext from(List<HttpRequest> montoyaRequests, List<HttpResponse> montoyaResponses) {
-        HttpListContext context = new HttpListContext();
-        
-        if (montoyaRequests == null) {
-            return context;
-        }
-        
-        for (int i = 0; i < montoyaRequests.size(); i++) {
-            HttpRequest req = montoyaRequests.get(i);
-            HttpResponse resp = (montoyaResponses != null && i < montoyaResponses.size()) 
-                              ? montoyaResponses.get(i) 
-                              : null;
-            context.requests.add(HttpRequestResponsePair.from(req, resp));
-        }
-        
-        return context;
+        return new HttpListContext(new LazyPairList(montoyaRequests, montoyaResponses));
     }
     
     // 基础访问
@@ -65,36 +55,43 @@ public class HttpListContext {
         return requests.isEmpty() ? null : requests.get(requests.size() - 1);
     }
     
-    // 聚合方法
+    // 聚合方法（通过列表迭代器遍历，请求-响应对按块并行构建）
     public List<String> getUrls() {
-        return requests.stream()
-            .map(pair -> pair.getRequest().getUrl())
-            .collect(Collectors.toList());
+        List<String> urls = new ArrayList<>(requests.size());
+        for (HttpRequestResponsePair pair : requests) {
+            urls.add(pair.getRequest().getUrl());
+        }
+        return urls;
     }
     
     public List<String> getHosts() {
-        return requests.stream()
-            .map(pair -> pair.getRequest().getHost())
-            .distinct()
-            .collect(Collectors.toList());
+        Set<String> hosts = new LinkedHashSet<>();
+        for (HttpRequestResponsePair pair : requests) {
+            hosts.add(pair.getRequest().getHost());
+        }
+        return new ArrayList<>(hosts);
     }
     
     public List<String> getPaths() {
-        return requests.stream()
-            .map(pair -> pair.getRequest().getPath())
-            .collect(Collectors.toList());
+        List<String> paths = new ArrayList<>(requests.size());
+        for (HttpRequestResponsePair pair : requests) {
+            paths.add(pair.getRequest().getPath());
+        }
+        return paths;
     }
     
     public List<String> getMethods() {
-        return requests.stream()
-            .map(pair -> pair.getRequest().getMethod())
-            .distinct()
-            .collect(Collectors.toList());
+        Set<String> methods = new LinkedHashSet<>();
+        for (HttpRequestResponsePair pair : requests) {
+            methods.add(pair.getRequest().getMethod());
+        }
+        return new ArrayList<>(methods);
     }
     
     /**
-     * 获取属性（用于反射和动态访问）
+     * 获取属性（用于链式访问）
      */
+    @Override
     public Object getProperty(String propertyName) {
         switch (propertyName.toLowerCase()) {
             case "requests": return requests;
@@ -1,8 +1,8 @@
 package executor.dsl;
 
+import burp.api.montoya.http.HttpService;
 import burp.api.montoya.http.message.requests.HttpRequest;
 import burp.api.montoya.http.message.HttpHeader;
-import burp.api.montoya.http.message.params.ParsedHttpParameter;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -10,8 +10,11 @@ import java.util.Map;
 /**
  * HTTP请求上下文
  * 封装HTTP请求的所有信息，提供结构化访问接口
+ * 
+ * Headers、Cookies、参数和Body按需解析并缓存，只引用URL的模板不会触发Body解码
  */
-public class HttpRequestContext {
+public class HttpRequestContext implements PropertyAccessible {
+    private final HttpRequest source;
     private String url;
     private String method;
     private String host;
@@ -19,18 +22,21 @@ public class HttpRequestContext {
     private String protocol;
     private String path;
     private String query;
-    private Map<String, String> headers;
-    private Map<String, String> cookies;
-    private ParameterContext params;
-    private BodyContext body;
+    private final BodyContext body;
     
-    private HttpRequestContext() {
-        this.headers = new HashMap<>();
-        this.cookies = new HashMap<>();
+    // 以下字段在首次访问时才从原始请求解析
+    private volatile Map<String, String> headers;
+    private volatile Map<String, String> cookies;
+    private volatile ParameterContext params;
+    
+    private HttpRequestContext(HttpRequest source) {
+        this.source = source;
+        this.body = BodyContext.lazy(source::bodyToString, source::body);
     }
     
     /**
      * 从Montoya API请求对象构建请求上下文
+     * 只读取请求行和服务信息，Headers、Cookies、参数和Body在首次访问时解析
      * @param montoyaRequest Montoya HTTP请求对象
      * @return HTTP请求上下文
      */
@@ -39,7 +45,7 @@ public class HttpRequestContext {
             return null;
         }
         
-        HttpRequestContext context = new HttpRequestContext();
+        HttpRequestContext context = new HttpRequestContext(montoyaRequest);
         
         // 基础信息
         context.url = montoyaRequest.url();
@@ -47,36 +53,34 @@ public class HttpRequestContext {
         context.path = montoyaRequest.path();
         
         // 服务信息
-        if (montoyaRequest.httpService() != null) {
-            context.host = montoyaRequest.httpService().host();
-            context.port = montoyaRequest.httpService().port();
-            context.protocol = montoyaRequest.httpService().secure() ? "https" : "http";
+        HttpService service = montoyaRequest.httpService();
+        if (service != null) {
+            context.host = service.host();
+            context.port = service.port();
+            context.protocol = service.secure() ? "https" : "http";
         }
         
         // 查询字符串
-        String urlString = montoyaRequest.url();
+        String urlString = context.url;
         if (urlString != null && urlString.contains("?")) {
             context.query = urlString.substring(urlString.indexOf("?") + 1);
         } else {
             context.query = "";
         }
         
-        // 解析Headers
-        for (HttpHeader header : montoyaRequest.headers()) {
+        return context;
+    }
+    
+    /**
+     * 解析Headers
+     */
+    private static Map<String, String> parseHeaders(HttpRequest request) {
+        Map<String, String> headers = new HashMap<>();
+        for (HttpHeader header : request.headers()) {
             String headerName = header.name().toLowerCase().replace("-", ".");
-            context.headers.put(headerName, header.value());
+            headers.put(headerName, header.value());
         }
-        
-        // 解析Cookies
-        context.cookies = parseCookies(montoyaRequest);
-        
-        // 解析参数
-        context.params = ParameterContext.from(montoyaRequest.parameters());
-        
-        // 解析Body
-        context.body = BodyContext.from(montoyaRequest.bodyToString());
-        
-        return context;
+        return headers;
     }
     
     /**
@@ -106,14 +110,45 @@ public class HttpRequestContext {
     public String getProtocol() { return protocol; }
     public String getPath() { return path; }
     public String getQuery() { return query; }
-    public Map<String, String> getHeaders() { return headers; }
-    public Map<String, String> getCookies() { return cookies; }
-    public ParameterContext getParams() { return params; }
     public BodyContext getBody() { return body; }
     
     /**
-     * 获取属性（用于反射和动态访问）
+     * 获取原始Montoya请求对象
+     * @return Montoya HTTP请求
+     */
+    public HttpRequest getSource() { return source; }
+    
+    public Map<String, String> getHeaders() {
+        Map<String, String> result = headers;
+        if (result == null) {
+            result = parseHeaders(source);
+            headers = result;
+        }
+        return result;
+    }
+    
+    public Map<String, String> getCookies() {
+        Map<String, String> result = cookies;
+        if (result == null) {
+            result = parseCookies(source);
+            cookies = result;
+        }
+        return result;
+    }
+    
+    public ParameterContext getParams() {
+        ParameterContext result = params;
+        if (result == null) {
+            result = ParameterContext.from(source.parameters());
+            params = result;
+        }
+        return result;
+    }
+    
+    /**
+     * 获取属性（用于链式访问）
      */
+    @Override
     public Object getProperty(String propertyName) {
         switch (propertyName.toLowerCase()) {
             case "url": return url;
@@ -123,9 +158,9 @@ public class HttpRequestContext {
             case "protocol": return protocol;
             case "path": return path;
             case "query": return query;
-            case "headers": return headers;
-            case "cookies": return cookies;
-            case "params": return params;
+            case "headers": return getHeaders();
+            case "cookies": return getCookies();
+            case "params": return getParams();
             case "body": return body;
             default: return null;
         }
@@ -7,7 +7,7 @@ import burp.api.montoya.http.message.responses.HttpResponse;
  * HTTP请求-响应对
  * 封装单个HTTP请求和对应的响应
  */
-public class HttpRequestResponsePair {
+public class HttpRequestResponsePair implements PropertyAccessible {
     private HttpRequestContext request;
     private HttpResponseContext response;
     
@@ -18,6 +18,17 @@ public class HttpRequestResponsePair {
      * 从Montoya API对象构建请求-响应对
      */
     public static HttpRequestResponsePair from(HttpRequest montoyaRequest, HttpResponse montoyaResponse) {
+        HttpRequestResponsePair pair = new HttpRequestResponsePair();
+        pair.request = HttpContextCache.request(montoyaRequest);
+        pair.response = HttpContextCache.response(montoyaResponse);
+        return pair;
+    }
+    
+    /**
+     * 不经过全局上下文缓存构建请求-响应对
+     * 用于批量列表：避免并行构建时争用缓存锁，也避免大批量选择把其他条目挤出缓存
+     */
+    static HttpRequestResponsePair uncached(HttpRequest montoyaRequest, HttpResponse montoyaResponse) {
         HttpRequestResponsePair pair = new HttpRequestResponsePair();
         pair.request = HttpRequestContext.from(montoyaRequest);
         pair.response = HttpResponseContext.from(montoyaResponse);
@@ -34,8 +45,9 @@ public class HttpRequestResponsePair {
     }
     
     /**
-     * 获取属性（用于反射和动态访问）
+     * 获取属性（用于链式访问）
      */
+    @Override
     public Object getProperty(String propertyName) {
         switch (propertyName.toLowerCase()) {
             case "request": return request;
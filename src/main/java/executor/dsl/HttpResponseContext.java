@@ -9,70 +9,104 @@ import java.util.Map;
 /**
  * HTTP响应上下文
  * 封装HTTP响应的所有信息
+ * 
+ * Headers、Cookies和Body按需解析并缓存
  */
-public class HttpResponseContext {
+public class HttpResponseContext implements PropertyAccessible {
+    private final HttpResponse source;
     private int status;
     private String reason;
-    private Map<String, String> headers;
-    private Map<String, String> cookies;
-    private BodyContext body;
+    private final BodyContext body;
     
-    private HttpResponseContext() {
-        this.headers = new HashMap<>();
-        this.cookies = new HashMap<>();
+    // Headers和Cookies在首次访问时一次解析
+    private volatile Map<String, String> headers;
+    private volatile Map<String, String> cookies;
+    
+    private HttpResponseContext(HttpResponse source) {
+        this.source = source;
+        this.body = BodyContext.lazy(source::bodyToString, source::body);
     }
     
     /**
      * 从Montoya API响应对象构建响应上下文
+     * 只读取状态行，Headers、Cookies和Body在首次访问时解析
      */
     public static HttpResponseContext from(HttpResponse montoyaResponse) {
         if (montoyaResponse == null) {
             return null;
         }
         
-        HttpResponseContext context = new HttpResponseContext();
+        HttpResponseContext context = new HttpResponseContext(montoyaResponse);
         
         // 状态信息
         context.status = montoyaResponse.statusCode();
         context.reason = montoyaResponse.reasonPhrase() != null ? montoyaResponse.reasonPhrase() : "";
         
-        // 解析Headers
-        for (HttpHeader header : montoyaResponse.headers()) {
+        return context;
+    }
+    
+    /**
+     * 解析Headers和Set-Cookie
+     */
+    private void parseHeaders() {
+        Map<String, String> parsedHeaders = new HashMap<>();
+        Map<String, String> parsedCookies = new HashMap<>();
+        
+        for (HttpHeader header : source.headers()) {
             String headerName = header.name().toLowerCase().replace("-", ".");
-            context.headers.put(headerName, header.value());
+            parsedHeaders.put(headerName, header.value());
             
             // 特殊处理Set-Cookie
             if (header.name().equalsIgnoreCase("Set-Cookie")) {
                 String[] parts = header.value().split("=", 2);
                 if (parts.length >= 1) {
                     String cookieName = parts[0].trim();
-                    context.cookies.put(cookieName, header.value());
+                    parsedCookies.put(cookieName, header.value());
                 }
             }
         }
         
-        // 解析Body
-        context.body = BodyContext.from(montoyaResponse.bodyToString());
-        
-        return context;
+        cookies = parsedCookies;
+        headers = parsedHeaders;
     }
     
     // Getters
     public int getStatus() { return status; }
     public String getReason() { return reason; }
-    public Map<String, String> getHeaders() { return headers; }
-    public Map<String, String> getCookies() { return cookies; }
     public BodyContext getBody() { return body; }
     
     /**
-     * 获取属性（用于反射和动态访问）
+     * 获取原始Montoya响应对象
+     * @return Montoya HTTP响应
+     */
+    public HttpResponse getSource() { return source; }
+    
+    public Map<String, String> getHeaders() {
+        Map<String, String> result = headers;
+        if (result == null) {
+            parseHeaders();
+            result = headers;
+        }
+        return result;
+    }
+    
+    public Map<String, String> getCookies() {
+        if (headers == null) {
+            parseHeaders();
+        }
+        return cookies;
+    }
+    
+    /**
+     * 获取属性（用于链式访问）
      */
+    @Override
     public Object getProperty(String propertyName) {
         switch (propertyName.toLowerCase()) {
             case "status": return status;
             case "reason": return reason;
-            case "headers": return headers;
-            case "cookies": return cookies;
+            case "headers": return getHeaders();
+            case "cookies": return getCookies();
             case "body": return body;
             default: return null;
         }
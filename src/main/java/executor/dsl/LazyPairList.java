@@ -0,0 +1,116 @@
+package executor.dsl;
+
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 按需构建的请求-响应对列表
+ * 只保存Montoya原始对象，索引访问时才构建对应的HttpRequestResponsePair并缓存，
+ * first、last、count和索引访问不会构建整个列表
+ *
+ * 顺序遍历时按块在 {@link DslWorkers} 线程池上并行构建，块内保持原有顺序，
+ * 未被索引访问过的元素在遍历后不会被列表持有，大批量遍历只占用一个块的额外内存
+ *
+ * 元素不经过全局的 {@link HttpContextCache}：并行构建时各线程不争用同一把缓存锁，
+ * 上万条的批量选择也不会把单条报文的缓存条目挤出；列表本身由渲染管线按模板依赖缓存
+ */
+class LazyPairList extends AbstractList<HttpRequestResponsePair> implements RandomAccess {
+    
+    // 遍历时每块并行构建的元素数
+    private static final int CHUNK_SIZE = 256;
+    
+    private final List<HttpRequest> montoyaRequests;
+    private final List<HttpResponse> montoyaResponses;
+    private final AtomicReferenceArray<HttpRequestResponsePair> pairs;
+    
+    /**
+     * @param montoyaRequests 请求列表
+     * @param montoyaResponses 响应列表，可以为null或短于请求列表
+     */
+    LazyPairList(List<HttpRequest> montoyaRequests, List<HttpResponse> montoyaResponses) {
+        this.montoyaRequests = montoyaRequests == null ? new ArrayList<>() : new ArrayList<>(montoyaRequests);
+        this.montoyaResponses = montoyaResponses == null ? null : new ArrayList<>(montoyaResponses);
+        this.pairs = new AtomicReferenceArray<>(this.montoyaRequests.size());
+    }
+    
+    @Override
+    public int size() {
+        return montoyaRequests.size();
+    }
+    
+    /**
+     * 获取指定位置的请求-响应对，首次访问时构建并缓存
+     */
+    @Override
+    public HttpRequestResponsePair get(int index) {
+        HttpRequestResponsePair pair = pairs.get(index);
+        if (pair == null) {
+            pair = build(index);
+            if (!pairs.compareAndSet(index, null, pair)) {
+                pair = pairs.get(index);
+            }
+        }
+        return pair;
+    }
+    
+    /**
+     * 按块并行构建的顺序迭代器
+     */
+    @Override
+    public Iterator<HttpRequestResponsePair> iterator() {
+        return new Iterator<HttpRequestResponsePair>() {
+            private final HttpRequestResponsePair[] chunk = new HttpRequestResponsePair[CHUNK_SIZE];
+            private int chunkStart = 0;
+            private int chunkEnd = 0;
+            private int cursor = 0;
+            
+            @Override
+            public boolean hasNext() {
+                return cursor < size();
+            }
+            
+            @Override
+            public HttpRequestResponsePair next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (cursor >= chunkEnd) {
+                    chunkStart = cursor;
+                    chunkEnd = Math.min(size(), cursor + CHUNK_SIZE);
+                    fillChunk(chunk, chunkStart, chunkEnd);
+                }
+                HttpRequestResponsePair pair = chunk[cursor - chunkStart];
+                chunk[cursor - chunkStart] = null;
+                cursor++;
+                return pair;
+            }
+        };
+    }
+    
+    /**
+     * 构建[from, to)范围的元素到块缓冲区，已缓存的元素直接复用
+     */
+    private void fillChunk(HttpRequestResponsePair[] chunk, int from, int to) {
+        DslWorkers.parallelFor(from, to, i -> chunk[i - from] = peekOrBuild(i));
+    }
+    
+    private HttpRequestResponsePair peekOrBuild(int index) {
+        HttpRequestResponsePair pair = pairs.get(index);
+        return pair != null ? pair : build(index);
+    }
+    
+    private HttpRequestResponsePair build(int index) {
+        HttpResponse response = (montoyaResponses != null && index < montoyaResponses.size())
+                ? montoyaResponses.get(index)
+                : null;
+        return HttpRequestResponsePair.uncached(montoyaRequests.get(index), response);
+    }
+}
@@ -0,0 +1,29 @@
+package executor.dsl;
+
+/**
+ * 字面量节点
+ * 字符串、数字、布尔值和null，以及不匹配任何语法的原样文本
+ */
+public class LiteralNode implements ExpressionNode {
+    private final String source;
+    private final Object value;
+    
+    public LiteralNode(String source, Object value) {
+        this.source = source;
+        this.value = value;
+    }
+    
+    @Override
+    public Object evaluate(RenderScope scope) {
+        return value;
+    }
+    
+    public Object getValue() {
+        return value;
+    }
+    
+    @Override
+    public String getSource() {
+        return source;
+    }
+}
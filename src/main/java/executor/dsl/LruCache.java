@@ -0,0 +1,191 @@
+package executor.dsl;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * 有界LRU缓存
+ * 基于访问顺序的LinkedHashMap实现，超出条目数或总权重上限时淘汰最久未使用的条目
+ * 所有操作均加锁，可在渲染线程之间安全共享，并统计命中、未命中和淘汰次数
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class LruCache<K, V> {
+
+    private final int maxEntries;
+    private final long maxWeight;
+    private final ToLongBiFunction<? super K, ? super V> weigher;
+    private final LinkedHashMap<K, V> entries;
+
+    private long totalWeight;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * 创建只按条目数限制的缓存
+     * @param maxEntries 最大条目数
+     */
+    public LruCache(int maxEntries) {
+        this(maxEntries, Long.MAX_VALUE, (key, value) -> 0L);
+    }
+
+    /**
+     * 创建按条目数和总权重限制的缓存
+     * @param maxEntries 最大条目数
+     * @param maxWeight 最大总权重
+     * @param weigher 条目权重计算函数
+     */
+    public LruCache(int maxEntries, long maxWeight, ToLongBiFunction<? super K, ? super V> weigher) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("maxWeight must be positive: " + maxWeight);
+        }
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * 获取缓存值
+     * @param key 键
+     * @return 缓存值，不存在返回null
+     */
+    public synchronized V get(K key) {
+        V value = entries.get(key);
+        if (value != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return value;
+    }
+
+    /**
+     * 写入缓存值
+     * 单个条目权重超过总权重上限时不缓存
+     * @param key 键
+     * @param value 值
+     */
+    public synchronized void put(K key, V value) {
+        long weight = weigher.applyAsLong(key, value);
+        if (weight > maxWeight) {
+            remove(key);
+            return;
+        }
+
+        V previous = entries.put(key, value);
+        if (previous != null) {
+            totalWeight -= weigher.applyAsLong(key, previous);
+        }
+        totalWeight += weight;
+        evictIfNeeded();
+    }
+
+    /**
+     * 获取缓存值，不存在时计算并写入
+     * 计算过程在锁外执行，并发计算同一个键时以先写入者为准
+     * @param key 键
+     * @param loader 值计算函数
+     * @return 缓存值
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> loader) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+
+        V computed = loader.apply(key);
+        if (computed == null) {
+            return null;
+        }
+
+        synchronized (this) {
+            V existing = entries.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            put(key, computed);
+            return computed;
+        }
+    }
+
+    /**
+     * 淘汰最久未使用的条目直到满足上限
+     */
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<K, V>> iterator = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || totalWeight > maxWeight) && iterator.hasNext()) {
+            Map.Entry<K, V> eldest = iterator.next();
+            totalWeight -= weigher.applyAsLong(eldest.getKey(), eldest.getValue());
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * 移除缓存值
+     * @param key 键
+     */
+    public synchronized void remove(K key) {
+        V removed = entries.remove(key);
+        if (removed != null) {
+            totalWeight -= weigher.applyAsLong(key, removed);
+        }
+    }
+
+    /**
+     * 当前条目数
+     * @return 条目数
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * 当前总权重
+     * @return 总权重
+     */
+    public synchronized long weight() {
+        return totalWeight;
+    }
+
+    /**
+     * 命中次数
+     * @return 命中次数
+     */
+    public synchronized long hitCount() {
+        return hits;
+    }
+
+    /**
+     * 未命中次数
+     * @return 未命中次数
+     */
+    public synchronized long missCount() {
+        return misses;
+    }
+
+    /**
+     * 淘汰次数
+     * @return 淘汰次数
+     */
+    public synchronized long evictionCount() {
+        return evictions;
+    }
+
+    /**
+     * 清空缓存
+     */
+    public synchronized void clear() {
+        entries.clear();
+        totalWeight = 0;
+    }
+}
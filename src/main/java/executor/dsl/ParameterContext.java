@@ -10,7 +10,7 @@ import java.util.Map;
  * 参数上下文
  * 封装HTTP请求参数（URL参数、Body参数、Cookie参数）
  */
-public class ParameterContext {
+public class ParameterContext implements PropertyAccessible {
     private Map<String, String> url;
     private Map<String, String> body;
     private Map<String, String> cookie;
@@ -58,8 +58,9 @@ public class ParameterContext {
     public Map<String, String> getCookie() { return cookie; }
     
     /**
-     * 获取属性（用于反射和动态访问）
+     * 获取属性（用于链式访问）
      */
+    @Override
     public Object getProperty(String propertyName) {
         switch (propertyName.toLowerCase()) {
             case "url": return url;
@@ -0,0 +1,15 @@
+package executor.dsl;
+
+/**
+ * 属性访问接口
+ * DSL上下文对象实现此接口，链式访问时直接按名称取值，不经过反射
+ */
+public interface PropertyAccessible {
+    
+    /**
+     * 获取属性（用于链式访问）
+     * @param propertyName 属性名称
+     * @return 属性值，不存在返回null
+     */
+    Object getProperty(String propertyName);
+}
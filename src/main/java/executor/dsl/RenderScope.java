@@ -0,0 +1,150 @@
+package executor.dsl;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 单次渲染的求值作用域
+ * 持有渲染使用的HttpContext和一张按表达式源码索引的备忘表，
+ * 同一次渲染中源码相同的纯表达式（包括函数的嵌套参数）只求值一次
+ *
+ * 含有副作用函数（tmpFile、file等，见 {@link FunctionHandler#isPure()}）的表达式每次出现都重新求值
+ * 作用域只在单个渲染线程内使用，不做同步
+ *
+ * 预览渲染（对话框中随编辑实时刷新的渲染）只用于显示，副作用函数通过 {@link #isPreview()} 判断，
+ * 在预览中只计算结果，不追加文件、不记录已见集合、不创建管道；真正执行命令时再以执行模式渲染
+ *
+ * 复制渲染（复制到剪贴板、由用户在别处执行的命令）通过 {@link #isCopy()} 判断：
+ * 与执行模式一样写入文件，但工具不一定会运行，不记录已见集合；命名管道改为临时文件
+ */
+public final class RenderScope {
+    
+    private static final ThreadLocal<RenderScope> CURRENT = new ThreadLocal<>();
+    
+    private final HttpContext context;
+    private final Mode mode;
+    private final Map<String, Object> memo = new HashMap<>();
+    
+    public RenderScope(HttpContext context) {
+        this(context, false);
+    }
+    
+    public RenderScope(HttpContext context, boolean preview) {
+        this(context, preview ? Mode.PREVIEW : Mode.EXECUTE);
+    }
+    
+    public RenderScope(HttpContext context, Mode mode) {
+        this.context = context;
+        this.mode = mode;
+    }
+    
+    /**
+     * 当前线程上正在进行的渲染是否为预览渲染
+     * 不在渲染中调用时返回false
+     * @return 预览渲染时返回true
+     */
+    public static boolean isPreview() {
+        return currentMode() == Mode.PREVIEW;
+    }
+    
+    /**
+     * 当前线程上正在进行的渲染是否为复制渲染
+     * 不在渲染中调用时返回false
+     * @return 复制渲染时返回true
+     */
+    public static boolean isCopy() {
+        return currentMode() == Mode.COPY;
+    }
+    
+    private static Mode currentMode() {
+        RenderScope scope = CURRENT.get();
+        return scope != null ? scope.mode : null;
+    }
+    
+    /**
+     * 把作用域设为当前线程的渲染作用域
+     * @return 之前的作用域，渲染结束后交给 {@link #restore(RenderScope)}
+     */
+    RenderScope enter() {
+        RenderScope previous = CURRENT.get();
+        CURRENT.set(this);
+        return previous;
+    }
+    
+    /**
+     * 恢复之前的渲染作用域
+     * @param previous {@link #enter()} 返回的作用域
+     */
+    static void restore(RenderScope previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+    
+    /**
+     * 在作用域内对节点求值，纯表达式的结果（包括失败）会被记住
+     * @param node 表达式节点
+     * @return 求值结果
+     */
+    public Object evaluate(ExpressionNode node) {
+        // 字面量求值没有开销，不占用备忘表
+        if (node instanceof LiteralNode || !node.isPure()) {
+            return node.evaluate(this);
+        }
+        
+        String key = node.getSource();
+        if (memo.containsKey(key)) {
+            return unwrap(memo.get(key));
+        }
+        
+        Object value;
+        try {
+            value = node.evaluate(this);
+        } catch (RuntimeException e) {
+            memo.put(key, new Failure(e));
+            throw e;
+        }
+        memo.put(key, value);
+        return value;
+    }
+    
+    /**
+     * 获取渲染使用的HTTP上下文
+     * @return HTTP上下文
+     */
+    public HttpContext getContext() {
+        return context;
+    }
+    
+    private static Object unwrap(Object memoized) {
+        if (memoized instanceof Failure) {
+            throw ((Failure) memoized).error;
+        }
+        return memoized;
+    }
+    
+    /**
+     * 渲染模式
+     */
+    public enum Mode {
+        // 只用于显示，副作用函数只计算结果
+        PREVIEW,
+        // 复制到剪贴板，写入文件但不记录状态、不创建管道
+        COPY,
+        // 命令即将由工具执行器启动
+        EXECUTE
+    }
+    
+    /**
+     * 记录求值失败，再次引用同一表达式时抛出相同的异常
+     */
+    private static final class Failure {
+        private final RuntimeException error;
+        
+        private Failure(RuntimeException error) {
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package executor.dsl;
+
+/**
+ * 模板依赖分析结果
+ * 静态分析编译后的模板，得出命令实际引用的上下文根和字段，
+ * 以便只构建命令需要的那部分HttpContext
+ *
+ * 分析规则：
+ * - http.response.* / response.*，以及只引用http本身：引用主响应
+ * - httpList.*：引用批量请求列表；路径经过response或止于请求-响应对本身时引用列表中的响应
+ * - 函数只依赖其参数，函数调用本身不引入额外依赖
+ *
+ * 主请求总是构建（只读取请求行和服务信息）；Headers、Body和JSON在首次访问时才解析，不需要单独分析
+ */
+public final class TemplateDependencies {
+
+    private boolean response;
+    private boolean httpList;
+    private boolean httpListResponses;
+
+    private TemplateDependencies() {
+    }
+
+    /**
+     * 分析编译后的模板
+     * @param template 编译后的模板
+     * @return 依赖分析结果
+     */
+    public static TemplateDependencies analyze(CompiledTemplate template) {
+        TemplateDependencies dependencies = new TemplateDependencies();
+        for (ExpressionNode expression : template.getExpressions()) {
+            dependencies.visit(expression);
+        }
+        return dependencies;
+    }
+
+    /**
+     * 遍历表达式节点
+     */
+    private void visit(ExpressionNode node) {
+        if (node instanceof ChainPathNode) {
+            visitPath((ChainPathNode) node);
+        } else if (node instanceof FunctionCallNode) {
+            for (ExpressionNode argument : ((FunctionCallNode) node).getArguments()) {
+                visit(argument);
+            }
+        }
+    }
+
+    /**
+     * 分析链式访问路径
+     */
+    private void visitPath(ChainPathNode node) {
+        ChainAccessor.PathSegment[] segments = node.getSegments();
+
+        String root = segmentName(segments, 0);
+        switch (root) {
+            case "http":
+                String target = segmentName(segments, 1);
+                // 只引用了http本身时保守处理
+                if ("response".equals(target) || target.isEmpty()) {
+                    response = true;
+                }
+                break;
+            case "response":
+                response = true;
+                break;
+            case "httplist":
+                visitHttpList(segments);
+                break;
+            default:
+                // 未知根对象不依赖任何上下文
+                break;
+        }
+    }
+
+    /**
+     * 分析httpList下的路径
+     * 路径中出现response，或者止于请求-响应对本身（整体传给函数）时，需要列表中的响应
+     */
+    private void visitHttpList(ChainAccessor.PathSegment[] segments) {
+        httpList = true;
+
+        boolean passesPairs = true;
+        for (int i = 1; i < segments.length; i++) {
+            String name = segments[i].getName().toLowerCase();
+            if ("response".equals(name)) {
+                httpListResponses = true;
+                return;
+            }
+            if ("request".equals(name) || "urls".equals(name) || "hosts".equals(name)
+                    || "paths".equals(name) || "methods".equals(name) || "count".equals(name)) {
+                passesPairs = false;
+            }
+        }
+
+        if (passesPairs) {
+            httpListResponses = true;
+        }
+    }
+
+    private static String segmentName(ChainAccessor.PathSegment[] segments, int index) {
+        return index < segments.length ? segments[index].getName().toLowerCase() : "";
+    }
+
+    /**
+     * 是否引用主响应
+     */
+    public boolean usesResponse() {
+        return response;
+    }
+
+    /**
+     * 是否引用批量请求列表
+     */
+    public boolean usesHttpList() {
+        return httpList;
+    }
+
+    /**
+     * 是否引用批量请求列表中的响应
+     */
+    public boolean usesHttpListResponses() {
+        return httpListResponses;
+    }
+}
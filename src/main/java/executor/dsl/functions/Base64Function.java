@@ -1,17 +1,20 @@
 package executor.dsl.functions;
 
+import executor.dsl.BinaryValue;
 import executor.dsl.DslException;
 import executor.dsl.FunctionHandler;
 import executor.dsl.HttpContext;
 
-import java.nio.charset.StandardCharsets;
-import java.util.Base64;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * Base64编解码函数
  * 用法: base64(data, "encode"|"decode")
  * 示例: base64(http.request.headers.authorization, "decode")
+ * 
+ * 按字节编解码：Body使用原始字节，字符串按UTF-8编码
+ * 返回惰性二进制值，写入临时文件时流式输出，渲染时按UTF-8解码为字符串
  */
 public class Base64Function implements FunctionHandler {
     
@@ -21,30 +24,40 @@ public class Base64Function implements FunctionHandler {
             throw new DslException("base64() requires 1-2 arguments: base64(data[, mode])");
         }
         
-        String data = args.get(0) != null ? args.get(0).toString() : "";
+        BinaryValue data = BinaryValue.from(args.get(0));
         String mode = args.size() > 1 ? args.get(1).toString().toLowerCase() : "encode";
         
-        try {
-            switch (mode) {
-                case "encode":
-                case "enc":
-                case "e":
-                    return Base64.getEncoder().encodeToString(data.getBytes(StandardCharsets.UTF_8));
-                    
-                case "decode":
-                case "dec":
-                case "d":
-                    byte[] decoded = Base64.getDecoder().decode(data);
-                    return new String(decoded, StandardCharsets.UTF_8);
-                    
-                default:
-                    throw new DslException("Invalid mode: " + mode + ". Use 'encode' or 'decode'");
-            }
-        } catch (IllegalArgumentException e) {
-            throw new DslException("Base64 operation failed: " + e.getMessage(), e);
+        switch (mode) {
+            case "encode":
+            case "enc":
+            case "e":
+                return data.transform(ByteCodecs::base64Encode);
+            
+            case "decode":
+            case "dec":
+            case "d":
+                return data.transform(ByteCodecs::base64Decode);
+            
+            default:
+                throw new DslException("Invalid mode: " + mode + ". Use 'encode' or 'decode'");
         }
     }
     
+    @Override
+    public int getMinArgs() {
+        return 1;
+    }
+    
+    @Override
+    public List<ValueType> getArgumentTypes() {
+        return Arrays.asList(ValueType.ANY, ValueType.STRING);
+    }
+    
+    @Override
+    public ValueType getReturnType() {
+        return ValueType.BINARY;
+    }
+    
     @Override
     public String getName() {
         return "base64";
@@ -60,4 +73,3 @@ public class Base64Function implements FunctionHandler {
         return "base64(data[, mode]) - mode: encode(default) or decode";
     }
 }
-
@@ -0,0 +1,162 @@
+package executor.dsl.functions;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 基于内存映射文件的Bloom过滤器
+ *
+ * 文件布局：64字节头部（魔数、哈希函数个数、位数、设计容量、已插入个数）后接位数组
+ * 位数组通过MappedByteBuffer直接读写，不占用堆内存；修改写入页缓存，由操作系统回写磁盘，
+ * 进程退出后数据仍然保留
+ *
+ * 位置计算采用双重哈希：第i个位置为 h1 + i * h2 对位数取模
+ * 非线程安全，由调用方同步
+ */
+final class BloomFilterFile {
+    
+    private static final long MAGIC = 0x4250415345454E31L; // "BPASEEN1"
+    private static final int HEADER_SIZE = 64;
+    private static final int OFFSET_HASH_COUNT = 8;
+    private static final int OFFSET_BIT_COUNT = 16;
+    private static final int OFFSET_CAPACITY = 24;
+    private static final int OFFSET_COUNT = 32;
+    
+    private final MappedByteBuffer buffer;
+    private final int hashCount;
+    private final long bitCount;
+    private final long capacity;
+    private long count;
+    
+    private BloomFilterFile(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        this.hashCount = buffer.getInt(OFFSET_HASH_COUNT);
+        this.bitCount = buffer.getLong(OFFSET_BIT_COUNT);
+        this.capacity = buffer.getLong(OFFSET_CAPACITY);
+        this.count = buffer.getLong(OFFSET_COUNT);
+    }
+    
+    /**
+     * 打开已有的过滤器文件
+     * @param file 文件路径
+     * @return 过滤器
+     * @throws IOException 文件损坏或读取失败
+     */
+    static BloomFilterFile open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Bloom filter file is truncated: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            if (buffer.getLong(0) != MAGIC) {
+                throw new IOException("Not a bloom filter file: " + file);
+            }
+            long bitCount = buffer.getLong(OFFSET_BIT_COUNT);
+            if (bitCount <= 0 || HEADER_SIZE + bitCount / 8 > channel.size()) {
+                throw new IOException("Bloom filter file is truncated: " + file);
+            }
+            return new BloomFilterFile(buffer);
+        }
+    }
+    
+    /**
+     * 创建新的过滤器文件
+     * 位数和哈希函数个数按设计容量和误判率计算：m = -n·ln(p) / ln(2)²，k = m/n·ln(2)
+     * @param file 文件路径
+     * @param capacity 设计容量
+     * @param falsePositiveRate 达到设计容量时的误判率
+     * @return 过滤器
+     * @throws IOException 创建失败
+     */
+    static BloomFilterFile create(Path file, long capacity, double falsePositiveRate) throws IOException {
+        double ln2 = Math.log(2);
+        long bits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (ln2 * ln2));
+        bits = (bits + 63) / 64 * 64;
+        int hashes = Math.max(1, (int) Math.round((double) bits / capacity * ln2));
+        
+        Files.createDirectories(file.getParent());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + bits / 8);
+            buffer.putLong(0, MAGIC);
+            buffer.putInt(OFFSET_HASH_COUNT, hashes);
+            buffer.putLong(OFFSET_BIT_COUNT, bits);
+            buffer.putLong(OFFSET_CAPACITY, capacity);
+            buffer.putLong(OFFSET_COUNT, 0);
+            buffer.force();
+            return new BloomFilterFile(buffer);
+        }
+    }
+    
+    /**
+     * 判断键是否可能已插入
+     * @param h1 第一个哈希值
+     * @param h2 第二个哈希值
+     * @return false表示一定未插入，true表示可能已插入
+     */
+    boolean mightContain(long h1, long h2) {
+        long combined = h1;
+        for (int i = 0; i < hashCount; i++) {
+            if (!getBit(Long.remainderUnsigned(combined, bitCount))) {
+                return false;
+            }
+            combined += h2;
+        }
+        return true;
+    }
+    
+    /**
+     * 插入键
+     * @param h1 第一个哈希值
+     * @param h2 第二个哈希值
+     * @return 有位发生变化（键之前一定未插入）时返回true
+     */
+    boolean put(long h1, long h2) {
+        boolean changed = false;
+        long combined = h1;
+        for (int i = 0; i < hashCount; i++) {
+            changed |= setBit(Long.remainderUnsigned(combined, bitCount));
+            combined += h2;
+        }
+        if (changed) {
+            count++;
+            buffer.putLong(OFFSET_COUNT, count);
+        }
+        return changed;
+    }
+    
+    /**
+     * 是否已达到设计容量
+     * @return 是否已满
+     */
+    boolean isFull() {
+        return count >= capacity;
+    }
+    
+    /**
+     * 把修改强制写回磁盘
+     */
+    void force() {
+        buffer.force();
+    }
+    
+    private boolean getBit(long index) {
+        long word = buffer.getLong(HEADER_SIZE + (int) (index >>> 6) * 8);
+        return (word & (1L << (index & 63))) != 0;
+    }
+    
+    private boolean setBit(long index) {
+        int offset = HEADER_SIZE + (int) (index >>> 6) * 8;
+        long word = buffer.getLong(offset);
+        long mask = 1L << (index & 63);
+        if ((word & mask) != 0) {
+            return false;
+        }
+        buffer.putLong(offset, word | mask);
+        return true;
+    }
+}
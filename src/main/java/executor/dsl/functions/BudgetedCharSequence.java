@@ -0,0 +1,69 @@
+package executor.dsl.functions;
+
+/**
+ * 带求值预算的字符序列
+ * 正则匹配通过charAt读取输入，每次读取计数，并定期检查截止时间，
+ * 超出预算时抛出异常中止匹配，避免灾难性回溯拖住渲染
+ */
+final class BudgetedCharSequence implements CharSequence {
+    
+    // 单次匹配允许读取的最大字符次数
+    static final long MAX_CHAR_READS = 100_000_000L;
+    
+    // 单次匹配允许的最长时间（毫秒）
+    static final long MAX_MATCH_MILLIS = 2000;
+    
+    // 每读取多少次字符检查一次预算
+    private static final int CHECK_INTERVAL = 1 << 16;
+    
+    private final CharSequence text;
+    private final long deadline;
+    private long reads;
+    
+    BudgetedCharSequence(CharSequence text) {
+        this.text = text;
+        this.deadline = System.nanoTime() + MAX_MATCH_MILLIS * 1_000_000L;
+    }
+    
+    @Override
+    public char charAt(int index) {
+        if (++reads % CHECK_INTERVAL == 0) {
+            if (reads > MAX_CHAR_READS) {
+                throw new BudgetExceededException("exceeded " + MAX_CHAR_READS + " character reads");
+            }
+            if (System.nanoTime() - deadline > 0) {
+                throw new BudgetExceededException("exceeded " + MAX_MATCH_MILLIS + " ms");
+            }
+        }
+        return text.charAt(index);
+    }
+    
+    @Override
+    public int length() {
+        return text.length();
+    }
+    
+    /**
+     * 只用于提取匹配结果，不再计入预算
+     */
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return text.subSequence(start, end);
+    }
+    
+    @Override
+    public String toString() {
+        return text.toString();
+    }
+    
+    /**
+     * 匹配超出求值预算
+     */
+    static final class BudgetExceededException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        
+        BudgetExceededException(String message) {
+            super(message, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package executor.dsl.functions;
+
+import executor.dsl.DslException;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 字节流编解码
+ * 所有编解码都以输入流包装的形式实现，按块读取上游字节并输出转换结果，
+ * 内存占用只与块大小有关，与内容总长度无关
+ *
+ * 格式错误在读取时以DslException抛出
+ */
+final class ByteCodecs {
+    
+    private static final int CHUNK_SIZE = 16 * 1024;
+    
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HEX_DIGITS_UPPER = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] BASE64_DIGITS =
+        "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".getBytes(StandardCharsets.US_ASCII);
+    
+    private ByteCodecs() {
+    }
+    
+    /**
+     * Base64编码（标准字母表，带填充）
+     */
+    static InputStream base64Encode(InputStream in) {
+        return new TransformInputStream(in) {
+            @Override
+            protected int transform(byte[] src, int length, boolean last, ByteSink out) {
+                int whole = length - length % 3;
+                out.ensure((whole / 3 + 1) * 4);
+                for (int i = 0; i < whole; i += 3) {
+                    int bits = (src[i] & 0xff) << 16 | (src[i + 1] & 0xff) << 8 | (src[i + 2] & 0xff);
+                    out.write(BASE64_DIGITS[bits >>> 18]);
+                    out.write(BASE64_DIGITS[(bits >>> 12) & 0x3f]);
+                    out.write(BASE64_DIGITS[(bits >>> 6) & 0x3f]);
+                    out.write(BASE64_DIGITS[bits & 0x3f]);
+                }
+                if (!last || whole == length) {
+                    return whole;
+                }
+                int bits = (src[whole] & 0xff) << 16;
+                if (length - whole == 2) {
+                    bits |= (src[whole + 1] & 0xff) << 8;
+                }
+                out.write(BASE64_DIGITS[bits >>> 18]);
+                out.write(BASE64_DIGITS[(bits >>> 12) & 0x3f]);
+                out.write(length - whole == 2 ? BASE64_DIGITS[(bits >>> 6) & 0x3f] : (byte) '=');
+                out.write((byte) '=');
+                return length;
+            }
+        };
+    }
+    
+    /**
+     * Base64解码（标准字母表）
+     */
+    static InputStream base64Decode(InputStream in) {
+        return new CheckedInputStream(Base64.getDecoder().wrap(in), "Base64 decode failed");
+    }
+    
+    /**
+     * 十六进制编码（小写）
+     */
+    static InputStream hexEncode(InputStream in) {
+        return new TransformInputStream(in) {
+            @Override
+            protected int transform(byte[] src, int length, boolean last, ByteSink out) {
+                out.ensure(length * 2);
+                for (int i = 0; i < length; i++) {
+                    out.write(HEX_DIGITS[(src[i] >>> 4) & 0x0f]);
+                    out.write(HEX_DIGITS[src[i] & 0x0f]);
+                }
+                return length;
+            }
+        };
+    }
+    
+    /**
+     * 十六进制解码，忽略大小写
+     */
+    static InputStream hexDecode(InputStream in) {
+        return new TransformInputStream(in) {
+            @Override
+            protected int transform(byte[] src, int length, boolean last, ByteSink out) {
+                if (last && length % 2 != 0) {
+                    throw new DslException("Hex decode failed: odd number of digits");
+                }
+                int whole = length - length % 2;
+                out.ensure(whole / 2);
+                for (int i = 0; i < whole; i += 2) {
+                    out.write((byte) (hexValue(src[i], "Hex decode failed") << 4 | hexValue(src[i + 1], "Hex decode failed")));
+                }
+                return whole;
+            }
+        };
+    }
+    
+    /**
+     * URL编码，与 {@link java.net.URLEncoder} 的UTF-8编码结果一致（空格编码为+）
+     */
+    static InputStream urlEncode(InputStream in) {
+        return new TransformInputStream(in) {
+            @Override
+            protected int transform(byte[] src, int length, boolean last, ByteSink out) {
+                out.ensure(length * 3);
+                for (int i = 0; i < length; i++) {
+                    int b = src[i] & 0xff;
+                    if (b >= 'a' && b <= 'z' || b >= 'A' && b <= 'Z' || b >= '0' && b <= '9'
+                            || b == '.' || b == '-' || b == '*' || b == '_') {
+                        out.write((byte) b);
+                    } else if (b == ' ') {
+                        out.write((byte) '+');
+                    } else {
+                        out.write((byte) '%');
+                        out.write(HEX_DIGITS_UPPER[b >>> 4]);
+                        out.write(HEX_DIGITS_UPPER[b & 0x0f]);
+                    }
+                }
+                return length;
+            }
+        };
+    }
+    
+    /**
+     * URL解码，与 {@link java.net.URLDecoder} 的UTF-8解码规则一致（+解码为空格）
+     */
+    static InputStream urlDecode(InputStream in) {
+        return new TransformInputStream(in) {
+            @Override
+            protected int transform(byte[] src, int length, boolean last, ByteSink out) {
+                out.ensure(length);
+                int i = 0;
+                while (i < length) {
+                    byte b = src[i];
+                    if (b == '%') {
+                        if (i + 2 >= length) {
+                            if (last) {
+                                throw new DslException("URL decode failed: incomplete trailing escape pattern");
+                            }
+                            // 转义序列跨块，留到下一块处理
+                            return i;
+                        }
+                        out.write((byte) (hexValue(src[i + 1], "URL decode failed") << 4
+                            | hexValue(src[i + 2], "URL decode failed")));
+                        i += 3;
+                    } else {
+                        out.write(b == '+' ? (byte) ' ' : b);
+                        i++;
+                    }
+                }
+                return length;
+            }
+        };
+    }
+    
+    /**
+     * 解压缩
+     * @param format gzip、deflate（zlib封装或裸deflate）或auto（按头部自动识别，非压缩内容原样返回），调用方已校验
+     */
+    static InputStream inflate(InputStream in, String format) {
+        BufferedInputStream buffered = new BufferedInputStream(in, CHUNK_SIZE);
+        try {
+            String detected = "auto".equals(format) ? detectFormat(buffered) : format;
+            switch (detected) {
+                case "gzip":
+                    return new CheckedInputStream(new GZIPInputStream(buffered, CHUNK_SIZE), "gzip inflate failed");
+                case "deflate":
+                    Inflater inflater = new Inflater(!isZlibHeader(peek(buffered, 2)));
+                    InputStream inflating = new InflaterInputStream(buffered, inflater, CHUNK_SIZE) {
+                        @Override
+                        public void close() throws IOException {
+                            // 自行创建的Inflater不会被InflaterInputStream释放
+                            inflater.end();
+                            super.close();
+                        }
+                    };
+                    return new CheckedInputStream(inflating, "deflate inflate failed");
+                default:
+                    return buffered;
+            }
+        } catch (IOException e) {
+            throw new DslException("Inflate failed: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * 按头部识别压缩格式
+     */
+    private static String detectFormat(BufferedInputStream in) throws IOException {
+        byte[] head = peek(in, 2);
+        if (head.length == 2 && (head[0] & 0xff) == 0x1f && (head[1] & 0xff) == 0x8b) {
+            return "gzip";
+        }
+        if (isZlibHeader(head)) {
+            return "deflate";
+        }
+        return "none";
+    }
+    
+    private static boolean isZlibHeader(byte[] head) {
+        if (head.length < 2) {
+            return false;
+        }
+        int cmf = head[0] & 0xff;
+        int flg = head[1] & 0xff;
+        return (cmf & 0x0f) == 8 && (cmf >>> 4) <= 7 && (cmf * 256 + flg) % 31 == 0;
+    }
+    
+    private static byte[] peek(BufferedInputStream in, int count) throws IOException {
+        in.mark(count);
+        byte[] head = in.readNBytes(count);
+        in.reset();
+        return head;
+    }
+    
+    private static int hexValue(byte b, String error) {
+        int value = Character.digit(b, 16);
+        if (value < 0) {
+            throw new DslException(error + ": illegal hex character '" + (char) (b & 0xff) + "'");
+        }
+        return value;
+    }
+    
+    /**
+     * 可增长的输出缓冲区
+     */
+    static final class ByteSink {
+        private byte[] buffer = new byte[CHUNK_SIZE];
+        private int size;
+        
+        void ensure(int additional) {
+            if (size + additional > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + additional));
+            }
+        }
+        
+        void write(byte b) {
+            buffer[size++] = b;
+        }
+    }
+    
+    /**
+     * 按块转换的输入流基类
+     * 每次读取一块上游字节交给transform，未消费的尾部字节（如跨块的转义序列）保留到下一块
+     */
+    abstract static class TransformInputStream extends InputStream {
+        private final InputStream in;
+        private final byte[] chunk = new byte[CHUNK_SIZE];
+        private final ByteSink out = new ByteSink();
+        private int carry;
+        private int position;
+        private boolean finished;
+        
+        TransformInputStream(InputStream in) {
+            this.in = in;
+        }
+        
+        /**
+         * 转换一块字节
+         * @param src 输入字节
+         * @param length 有效长度
+         * @param last 是否为最后一块，最后一块必须全部消费
+         * @param out 输出缓冲区
+         * @return 消费的字节数
+         */
+        protected abstract int transform(byte[] src, int length, boolean last, ByteSink out);
+        
+        private boolean fill() throws IOException {
+            while (position >= out.size) {
+                if (finished) {
+                    return false;
+                }
+                out.size = 0;
+                position = 0;
+                int read = in.readNBytes(chunk, carry, chunk.length - carry);
+                int length = carry + read;
+                boolean last = read == 0 || length < chunk.length;
+                int consumed = transform(chunk, length, last, out);
+                carry = length - consumed;
+                System.arraycopy(chunk, consumed, chunk, 0, carry);
+                finished = last;
+            }
+            return true;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            return fill() ? out.buffer[position++] & 0xff : -1;
+        }
+        
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int n = Math.min(len, out.size - position);
+            System.arraycopy(out.buffer, position, b, off, n);
+            position += n;
+            return n;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+    
+    /**
+     * 把底层流的格式错误转换为DslException
+     */
+    private static final class CheckedInputStream extends InputStream {
+        private final InputStream in;
+        private final String error;
+        
+        CheckedInputStream(InputStream in, String error) {
+            this.in = in;
+            this.error = error;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            try {
+                return in.read();
+            } catch (IOException | IllegalArgumentException e) {
+                throw failure(e);
+            }
+        }
+        
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            try {
+                return in.read(b, off, len);
+            } catch (IOException | IllegalArgumentException e) {
+                throw failure(e);
+            }
+        }
+        
+        private DslException failure(Exception e) {
+            if (e.getMessage() == null) {
+                return new DslException(error, e);
+            }
+            return new DslException(error + ": " + e.getMessage(), e);
+        }
+        
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
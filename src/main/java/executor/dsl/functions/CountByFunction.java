@@ -0,0 +1,113 @@
+package executor.dsl.functions;
+
+import executor.dsl.DslException;
+import executor.dsl.FunctionHandler;
+import executor.dsl.HttpContext;
+import executor.dsl.PropertyAccessible;
+import org.springframework.expression.Expression;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按键计数函数
+ * 用法: countBy(list[, "keyExpression"])
+ * 示例:
+ * - countBy(httpList.requests, "request.host")
+ * - map(sortBy(countBy(httpList.requests, "request.host"), "count", "desc"), "key")
+ *
+ * 单遍扫描，只保存每个键的计数，不保留元素；结果按键首次出现的顺序返回
+ * 每项可访问 key、count 属性，输出形如 "key: count"；省略键表达式时以元素本身为键
+ */
+public class CountByFunction implements FunctionHandler {
+    
+    @Override
+    public Object execute(List<Object> args, HttpContext context) throws DslException {
+        if (args.size() < 1 || args.size() > 2) {
+            throw new DslException("countBy() requires 1-2 arguments: countBy(list[, \"keyExpression\"])");
+        }
+        
+        Expression keyExpression = ElementKeys.compile("countBy", args, 1);
+        
+        Map<Object, KeyCount> counts = new LinkedHashMap<>();
+        for (Object item : ElementKeys.sequence("countBy", args.get(0))) {
+            Object key = ElementKeys.key(keyExpression, item);
+            if (key != null) {
+                counts.computeIfAbsent(key, KeyCount::new).count++;
+            }
+        }
+        return new ArrayList<>(counts.values());
+    }
+    
+    @Override
+    public int getMinArgs() {
+        return 1;
+    }
+    
+    @Override
+    public List<ValueType> getArgumentTypes() {
+        return Arrays.asList(ValueType.LIST, ValueType.STRING);
+    }
+    
+    @Override
+    public ValueType getReturnType() {
+        return ValueType.LIST;
+    }
+    
+    @Override
+    public Cost getCost() {
+        return Cost.HEAVY;
+    }
+    
+    @Override
+    public String getName() {
+        return "countBy";
+    }
+    
+    @Override
+    public String getDescription() {
+        return "Count list elements per key";
+    }
+    
+    @Override
+    public String getUsage() {
+        return "countBy(list[, \"keyExpression\"]) - e.g. countBy(httpList.requests, \"request.host\")";
+    }
+    
+    /**
+     * 键及其出现次数
+     */
+    public static final class KeyCount implements PropertyAccessible {
+        private final Object key;
+        private long count;
+        
+        KeyCount(Object key) {
+            this.key = key;
+        }
+        
+        public Object getKey() {
+            return key;
+        }
+        
+        public long getCount() {
+            return count;
+        }
+        
+        @Override
+        public Object getProperty(String propertyName) {
+            switch (propertyName.toLowerCase()) {
+                case "key": return key;
+                case "count": return count;
+                default: return null;
+            }
+        }
+        
+        @Override
+        public String toString() {
+            return key + ": " + count;
+        }
+    }
+}
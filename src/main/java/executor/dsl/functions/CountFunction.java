@@ -1,15 +1,20 @@
 package executor.dsl.functions;
 
+import executor.dsl.BinaryValue;
 import executor.dsl.DslException;
+import executor.dsl.DslSequence;
 import executor.dsl.FunctionHandler;
 import executor.dsl.HttpContext;
 
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * 计数函数
  * 用法: count(list)
  * 示例: count(httpList.requests)
+ * 
+ * 字符串返回字符数，二进制值返回字节数
  */
 public class CountFunction implements FunctionHandler {
     
@@ -23,8 +28,12 @@ public class CountFunction implements FunctionHandler {
         
         if (collection instanceof List) {
             return ((List<?>) collection).size();
-        } else if (collection instanceof String) {
-            return ((String) collection).length();
+        } else if (collection instanceof DslSequence) {
+            return ((DslSequence) collection).count();
+        } else if (collection instanceof BinaryValue) {
+            return ((BinaryValue) collection).length();
+        } else if (collection instanceof String || collection instanceof DslSequence.Joined) {
+            return collection.toString().length();
         } else if (collection != null) {
             return 1;
         }
@@ -32,6 +41,16 @@ public class CountFunction implements FunctionHandler {
         return 0;
     }
     
+    @Override
+    public List<ValueType> getArgumentTypes() {
+        return Arrays.asList(ValueType.ANY);
+    }
+    
+    @Override
+    public ValueType getReturnType() {
+        return ValueType.NUMBER;
+    }
+    
     @Override
     public String getName() {
         return "count";
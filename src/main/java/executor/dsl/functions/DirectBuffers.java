@@ -0,0 +1,43 @@
+package executor.dsl.functions;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 按线程复用的直接内存缓冲区
+ * 文件读写在渲染线程上反复进行，每次调用都分配1MB直接内存会给堆外内存和GC带来压力；
+ * 每个线程保留一个缓冲区，用完归还后下次直接复用
+ *
+ * 同一线程上嵌套借用时（缓冲区尚未归还）临时分配新的缓冲区，不会互相覆盖
+ */
+final class DirectBuffers {
+    
+    static final int BUFFER_SIZE = 1024 * 1024;
+    
+    private static final ThreadLocal<ByteBuffer[]> cached = ThreadLocal.withInitial(() -> new ByteBuffer[1]);
+    
+    private DirectBuffers() {
+    }
+    
+    /**
+     * 借用缓冲区，用完后交给 {@link #release(ByteBuffer)}
+     * @return 已清空的缓冲区
+     */
+    static ByteBuffer acquire() {
+        ByteBuffer[] slot = cached.get();
+        ByteBuffer buffer = slot[0];
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+        slot[0] = null;
+        buffer.clear();
+        return buffer;
+    }
+    
+    /**
+     * 归还缓冲区
+     * @param buffer {@link #acquire()} 返回的缓冲区
+     */
+    static void release(ByteBuffer buffer) {
+        cached.get()[0] = buffer;
+    }
+}
@@ -0,0 +1,62 @@
+package executor.dsl.functions;
+
+import executor.dsl.DslException;
+import executor.dsl.FunctionHandler;
+import executor.dsl.HttpContext;
+import org.springframework.expression.Expression;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 按键去重函数
+ * 用法: distinctBy(list, "keyExpression")
+ * 示例:
+ * - distinctBy(httpList.requests, "request.host + request.path")
+ * - map(distinctBy(httpList.requests, "request.host"), "request.url")
+ *
+ * 每个键保留首次出现的元素；返回惰性序列，只保存已出现过的键
+ */
+public class DistinctByFunction implements FunctionHandler {
+    
+    @Override
+    public Object execute(List<Object> args, HttpContext context) throws DslException {
+        if (args.size() != 2) {
+            throw new DslException("distinctBy() requires 2 arguments: distinctBy(list, \"keyExpression\")");
+        }
+        
+        Expression keyExpression = ElementKeys.compile("distinctBy", args, 1);
+        return ElementKeys.sequence("distinctBy", args.get(0))
+            .distinctBy(item -> ElementKeys.key(keyExpression, item));
+    }
+    
+    @Override
+    public List<ValueType> getArgumentTypes() {
+        return Arrays.asList(ValueType.LIST, ValueType.STRING);
+    }
+    
+    @Override
+    public ValueType getReturnType() {
+        return ValueType.LIST;
+    }
+    
+    @Override
+    public Cost getCost() {
+        return Cost.HEAVY;
+    }
+    
+    @Override
+    public String getName() {
+        return "distinctBy";
+    }
+    
+    @Override
+    public String getDescription() {
+        return "Remove elements with duplicate keys";
+    }
+    
+    @Override
+    public String getUsage() {
+        return "distinctBy(list, \"keyExpression\") - e.g. distinctBy(httpList.requests, \"request.host\")";
+    }
+}
@@ -0,0 +1,122 @@
+package executor.dsl.functions;
+
+import executor.dsl.DslException;
+import executor.dsl.DslSequence;
+import executor.dsl.ElementExpressions;
+import org.springframework.expression.Expression;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 聚合函数（groupBy、countBy、sortBy、topK、distinctBy）共用的键提取和比较
+ *
+ * 键表达式是以元素为根对象的SpEL表达式，详见 {@link ElementExpressions}；
+ * 省略键表达式时以元素本身为键
+ */
+final class ElementKeys {
+    
+    /**
+     * 键比较：数字排在字符串之前，字符串排在其他类型之前；
+     * 数字按数值比较，字符串按字典序，其他类型先按类名再按自然顺序或字符串形式比较
+     */
+    static final Comparator<Object> KEY_ORDER = ElementKeys::compareKeys;
+    
+    private ElementKeys() {
+    }
+    
+    /**
+     * 获取列表参数
+     * @param function 函数名称，用于错误信息
+     * @param value 参数值
+     * @return 序列
+     */
+    static DslSequence sequence(String function, Object value) {
+        DslSequence sequence = DslSequence.asSequence(value);
+        if (sequence == null) {
+            throw new DslException(function + "() first argument must be a list");
+        }
+        return sequence;
+    }
+    
+    /**
+     * 编译键表达式
+     * @param function 函数名称，用于错误信息
+     * @param args 参数列表
+     * @param index 键表达式参数下标，参数不存在时返回null（以元素本身为键）
+     * @return 编译后的表达式或null
+     */
+    static Expression compile(String function, List<Object> args, int index) {
+        if (args.size() <= index) {
+            return null;
+        }
+        if (args.get(index) == null) {
+            throw new DslException(function + "() key expression must not be null");
+        }
+        return ElementExpressions.compile(args.get(index).toString());
+    }
+    
+    /**
+     * 计算元素的键
+     * @param expression 键表达式，为null时以元素本身为键
+     * @param element 元素
+     * @return 键，求值失败时返回null
+     */
+    static Object key(Expression expression, Object element) {
+        return expression != null ? ElementExpressions.evaluate(expression, element) : element;
+    }
+    
+    /**
+     * 解析排序方向参数
+     * @param function 函数名称，用于错误信息
+     * @param args 参数列表
+     * @param index 排序方向参数下标
+     * @param descendingByDefault 参数不存在时是否降序
+     * @return 是否降序
+     */
+    static boolean descending(String function, List<Object> args, int index, boolean descendingByDefault) {
+        if (args.size() <= index || args.get(index) == null) {
+            return descendingByDefault;
+        }
+        switch (args.get(index).toString().toLowerCase()) {
+            case "asc":
+                return false;
+            case "desc":
+                return true;
+            default:
+                throw new DslException(function + "() order must be 'asc' or 'desc'");
+        }
+    }
+    
+    /**
+     * 全序比较：先按类型分组（数字、字符串、其他类型按类名），同组内再比较值
+     * 混合类型的键也满足传递性，排序不会抛出 "Comparison method violates its general contract"
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareKeys(Object a, Object b) {
+        int rank = Integer.compare(typeRank(a), typeRank(b));
+        if (rank != 0) {
+            return rank;
+        }
+        if (a instanceof Number) {
+            return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+        }
+        if (a instanceof String) {
+            return ((String) a).compareTo((String) b);
+        }
+        if (a.getClass() != b.getClass()) {
+            return a.getClass().getName().compareTo(b.getClass().getName());
+        }
+        if (a instanceof Comparable) {
+            return ((Comparable) a).compareTo(b);
+        }
+        return a.toString().compareTo(b.toString());
+    }
+    
+    private static int typeRank(Object key) {
+        if (key instanceof Number) {
+            return 0;
+        }
+        return key instanceof String ? 1 : 2;
+    }
+}
@@ -0,0 +1,203 @@
+package executor.dsl.functions;
+
+import executor.dsl.BodyContext;
+import executor.dsl.DslException;
+import executor.dsl.DslSequence;
+import executor.dsl.FunctionHandler;
+import executor.dsl.HttpContext;
+import executor.dsl.LruCache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 多模式提取函数
+ * 用法: extractAll(text|list, name1[, name2, ...])
+ * 示例:
+ * - extractAll(http.response.body, "aws_key", "jwt", "url")
+ * - extractAll(httpList.requests.*.response.body.raw, "jwt", "token=token=[A-Za-z0-9]{16,}")
+ *
+ * 一次扫描同时提取多种模式，结果按出现位置排序，每项形如 "name: value"
+ * 参数为内置模式名称，或 "名称=正则" 形式的自定义模式
+ * 内置模式的字面前缀合并为一个Aho-Corasick自动机，自定义模式合并为一个交替正则，每段文本只扫描一遍
+ * 输入为列表时在线程池上分块并行扫描，结果保持列表顺序
+ */
+public class ExtractAllFunction implements FunctionHandler {
+    
+    // 列表输入每块并行扫描的元素数
+    private static final int PARALLEL_CHUNK_SIZE = 64;
+    
+    // 内置命名模式
+    private static final Map<String, MultiPatternScanner.NamedPattern> BUILTIN_PATTERNS = new LinkedHashMap<>();
+    
+    static {
+        builtin("aws_key", "(?:AKIA|ASIA|AGPA|AIDA|AROA|ANPA|ANVA|AIPA)[0-9A-Z]{16}",
+                "AKIA", "ASIA", "AGPA", "AIDA", "AROA", "ANPA", "ANVA", "AIPA");
+        builtin("google_api_key", "AIza[0-9A-Za-z_\\-]{35}", "AIza");
+        builtin("github_token", "gh[pousr]_[A-Za-z0-9]{36,}", "ghp_", "gho_", "ghu_", "ghs_", "ghr_");
+        builtin("slack_token", "xox[abprs]-[A-Za-z0-9\\-]{10,}", "xoxa-", "xoxb-", "xoxp-", "xoxr-", "xoxs-");
+        builtin("jwt", "eyJ[A-Za-z0-9_\\-]{8,}\\.eyJ[A-Za-z0-9_\\-]{8,}\\.[A-Za-z0-9_\\-]*", "eyJ");
+        builtin("bearer", "Bearer\\s+[A-Za-z0-9._~+/\\-]+=*", "Bearer");
+        builtin("private_key", "-----BEGIN [A-Z ]*PRIVATE KEY-----", "-----BEGIN ");
+        builtin("url", "https?://[^\\s\"'<>\\\\`]+", "http://", "https://");
+        builtin("email", "[A-Za-z0-9._%+\\-]+@[A-Za-z0-9.\\-]+\\.[A-Za-z]{2,}");
+        builtin("ipv4", "\\b(?:(?:25[0-5]|2[0-4]\\d|1?\\d?\\d)\\.){3}(?:25[0-5]|2[0-4]\\d|1?\\d?\\d)\\b");
+    }
+    
+    // 按模式参数组合缓存编译后的扫描器
+    private static final LruCache<List<String>, MultiPatternScanner> scannerCache = new LruCache<>(64);
+    
+    private static void builtin(String name, String regex, String... anchors) {
+        BUILTIN_PATTERNS.put(name, new MultiPatternScanner.NamedPattern(name, regex, anchors));
+    }
+    
+    @Override
+    public Object execute(List<Object> args, HttpContext context) throws DslException {
+        if (args.size() < 2) {
+            throw new DslException("extractAll() requires at least 2 arguments: extractAll(text, name1[, name2, ...])");
+        }
+        
+        List<String> names = new ArrayList<>(args.size() - 1);
+        for (int i = 1; i < args.size(); i++) {
+            if (args.get(i) == null) {
+                throw new DslException("extractAll() pattern name must not be null");
+            }
+            names.add(args.get(i).toString());
+        }
+        MultiPatternScanner scanner = scannerCache.computeIfAbsent(names, ExtractAllFunction::compileScanner);
+        
+        Object input = args.get(0);
+        DslSequence sequence = DslSequence.asSequence(input);
+        if (sequence == null) {
+            return scan(scanner, input);
+        }
+        
+        // 列表输入：分块并行扫描，按原有顺序展开
+        return sequence
+            .parallelMap(item -> scan(scanner, item), PARALLEL_CHUNK_SIZE)
+            .flatMap(matches -> (List<?>) matches);
+    }
+    
+    /**
+     * 扫描单个输入
+     */
+    private static List<Object> scan(MultiPatternScanner scanner, Object input) {
+        if (input == null) {
+            return Collections.emptyList();
+        }
+        String text = input instanceof BodyContext ? ((BodyContext) input).getRaw() : input.toString();
+        
+        List<MultiPatternScanner.ScanMatch> matches;
+        try {
+            matches = scanner.scan(text);
+        } catch (BudgetedCharSequence.BudgetExceededException e) {
+            throw new DslException("extractAll() aborted: " + e.getMessage(), e);
+        }
+        
+        List<Object> results = new ArrayList<>(matches.size());
+        for (MultiPatternScanner.ScanMatch match : matches) {
+            results.add(new Match(match.name, match.value));
+        }
+        return results;
+    }
+    
+    /**
+     * 根据模式参数编译扫描器
+     */
+    private static MultiPatternScanner compileScanner(List<String> names) {
+        List<MultiPatternScanner.NamedPattern> patterns = new ArrayList<>(names.size());
+        for (String name : names) {
+            MultiPatternScanner.NamedPattern pattern = BUILTIN_PATTERNS.get(name.toLowerCase());
+            if (pattern == null) {
+                pattern = parseCustomPattern(name);
+            }
+            patterns.add(pattern);
+        }
+        return new MultiPatternScanner(patterns);
+    }
+    
+    /**
+     * 解析 "名称=正则" 形式的自定义模式
+     */
+    private static MultiPatternScanner.NamedPattern parseCustomPattern(String spec) {
+        int separator = spec.indexOf('=');
+        if (separator <= 0 || separator == spec.length() - 1) {
+            throw new DslException("extractAll(): unknown pattern '" + spec + "'. Built-in patterns: "
+                    + String.join(", ", BUILTIN_PATTERNS.keySet()) + "; custom patterns use name=regex");
+        }
+        String name = spec.substring(0, separator).trim();
+        String regex = spec.substring(separator + 1);
+        try {
+            return new MultiPatternScanner.NamedPattern(name, regex);
+        } catch (PatternSyntaxException e) {
+            throw new DslException("extractAll(): invalid pattern '" + name + "': " + e.getDescription(), e);
+        }
+    }
+    
+    @Override
+    public int getMinArgs() {
+        return 2;
+    }
+    
+    @Override
+    public int getMaxArgs() {
+        return VARIADIC;
+    }
+    
+    @Override
+    public List<ValueType> getArgumentTypes() {
+        return Arrays.asList(ValueType.ANY);
+    }
+    
+    @Override
+    public ValueType getReturnType() {
+        return ValueType.LIST;
+    }
+    
+    @Override
+    public String getName() {
+        return "extractAll";
+    }
+    
+    @Override
+    public String getDescription() {
+        return "Extract multiple named patterns in a single pass";
+    }
+    
+    @Override
+    public String getUsage() {
+        return "extractAll(text, name1[, name2, ...]) - Names: " + String.join(", ", BUILTIN_PATTERNS.keySet())
+                + " or name=regex";
+    }
+    
+    /**
+     * 带模式名称的匹配结果
+     */
+    public static final class Match {
+        private final String name;
+        private final String value;
+        
+        Match(String name, String value) {
+            this.name = name;
+            this.value = value;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public String getValue() {
+            return value;
+        }
+        
+        @Override
+        public String toString() {
+            return name + ": " + value;
+        }
+    }
+}
@@ -1,14 +1,34 @@
 package executor.dsl.functions;
 
+import executor.dsl.BinaryValue;
 import executor.dsl.FunctionHandler;
 import executor.dsl.HttpContext;
+import executor.dsl.RenderScope;
 import executor.dsl.DslException;
+import executor.dsl.DslSequence;
+import util.TempFileStore;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * file函数实现 - 生成持久化文件
@@ -16,93 +36,177 @@ import java.util.List;
  * 支持的格式：
  * 1. %file(content, filepath)% - 创建包含单个内容的文件
  * 2. %file(listContent, filepath)% - 创建包含列表内容的文件（每行一项）
+ * 3. %file(content, filepath, mode)% - 按指定模式写入
+ * 
+ * 写入模式：
+ * - overwrite（默认）：写入同目录下的暂存文件后原子重命名替换，读取方只会看到完整的旧文件或新文件
+ * - append：追加到文件末尾
+ * - unique：只追加文件中还没有的行，已有行通过 {@link LineHashIndex} 判断，不需要每次重新读取文件
  * 
  * 示例：
  * - %file(http.request.body.raw, 'request.txt')% - 将请求体保存到request.txt
  * - %file(httpList.requests.*.request.url, 'urls.txt')% - 将URL列表保存到urls.txt
  * - %file(httpList.requests.*.request.host, 'hosts.txt')% - 将主机列表保存到hosts.txt
+ * - %file(httpList.urls, 'targets.txt', 'unique')% - 多次选择的URL累积到同一个文件，跳过已有的URL
  * 
  * 文件路径支持：
  * - 相对路径：保存到当前工作目录（'urls.txt', './output/urls.txt'）
  * - 绝对路径：保存到指定位置（'/tmp/urls.txt', 'C:/temp/urls.txt'）
+ * 
+ * 内容统一按UTF-8编码，经过直接内存缓冲区（见 {@link DirectBuffers}）写入FileChannel；缓冲区写满时只写出完整的行，
+ * 追加时正在读取文件的工具不会读到半行；追加期间持有文件锁，多个Burp实例追加同一文件时不会交错
+ *
+ * 预览渲染（见 {@link RenderScope#isPreview()}）只返回文件路径，不写入；命令真正执行时才写入文件
  */
 public class FileFunction implements FunctionHandler {
     
+    // 同一文件的写入在进程内串行（FileLock只能协调不同进程）
+    private static final Map<Path, Object> fileLocks = new ConcurrentHashMap<>();
+    
+    /**
+     * 写入模式
+     */
+    enum Mode {
+        OVERWRITE, APPEND, UNIQUE;
+        
+        static Mode parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new DslException("file: unknown mode '" + value + "', expected overwrite, append or unique");
+            }
+        }
+    }
+    
+    @Override
+    public int getMinArgs() {
+        return 2;
+    }
+    
+    @Override
+    public List<ValueType> getArgumentTypes() {
+        return Arrays.asList(ValueType.ANY, ValueType.STRING, ValueType.STRING);
+    }
+    
+    @Override
+    public ValueType getReturnType() {
+        return ValueType.STRING;
+    }
+    
+    @Override
+    public Cost getCost() {
+        return Cost.IO;
+    }
+    
     @Override
     public String getName() {
         return "file";
     }
     
+    /**
+     * 每次调用都会创建文件，不能在渲染中合并
+     */
+    @Override
+    public boolean isPure() {
+        return false;
+    }
+    
     @Override
     public String getDescription() {
-        return "Create persistent file with content";
+        return "Create persistent file with content (mode: overwrite, append, unique)";
     }
     
     @Override
     public Object execute(List<Object> args, HttpContext context) throws DslException {
         if (args.size() < 2) {
-            throw new DslException("file requires 2 arguments: file(content, filepath)");
+            throw new DslException("file requires 2 arguments: file(content, filepath[, mode])");
         }
         
         Object input = args.get(0);
         String filepath = args.get(1).toString();
+        Mode mode = args.size() > 2 ? Mode.parse(args.get(2).toString()) : Mode.OVERWRITE;
         
         try {
             // 处理输入内容
-            List<String> lines = convertToLines(input);
+            Iterator<Object> lines = convertToLines(input).iterator();
             
-            if (lines.isEmpty()) {
+            if (!lines.hasNext()) {
                 throw new DslException("file: content is empty");
             }
             
-            // 创建文件
-            File outputFile = createFile(filepath);
-            
-            // 写入内容
-            writeLinesToFile(outputFile, lines);
+            if (RenderScope.isPreview()) {
+                return resolvePath(filepath).toString();
+            }
             
-            return outputFile.getAbsolutePath();
+            Path file = resolveFile(filepath);
+            synchronized (fileLocks.computeIfAbsent(file, path -> new Object())) {
+                switch (mode) {
+                    case APPEND:
+                        append(file, lines, null);
+                        break;
+                    case UNIQUE:
+                        append(file, lines, LineHashIndex.forFile(file));
+                        break;
+                    default:
+                        overwrite(file, lines);
+                        break;
+                }
+            }
             
+            return file.toString();
+        
         } catch (IOException e) {
-            throw new DslException("Failed to create file: " + e.getMessage(), e);
+            throw new DslException("Failed to write file: " + e.getMessage(), e);
         }
     }
     
     /**
-     * 将输入转换为行列表
+     * 将输入转换为行序列
+     * 列表和序列逐项输出，不在内存中生成中间列表
      */
-    private List<String> convertToLines(Object input) {
-        List<String> lines = new ArrayList<>();
-        
+    private DslSequence convertToLines(Object input) {
         if (input == null) {
-            return lines;
+            return DslSequence.of(Collections.emptyList());
         }
         
-        if (input instanceof List) {
+        DslSequence sequence = DslSequence.asSequence(input);
+        if (sequence != null) {
             // 如果是列表，逐项添加
-            for (Object item : (List<?>) input) {
-                if (item != null) {
-                    lines.add(item.toString());
-                }
-            }
-        } else if (input instanceof String) {
+            return sequence.filter(item -> item != null);
+        }
+        
+        if (input instanceof String) {
             // 如果是字符串，直接添加
             String content = (String) input;
-            if (!content.isEmpty()) {
-                lines.add(content);
-            }
-        } else {
-            // 其他类型转为字符串
-            lines.add(input.toString());
+            return DslSequence.of(content.isEmpty()
+                ? Collections.emptyList()
+                : Collections.singletonList(content));
+        }
+        
+        if (input instanceof BinaryValue) {
+            // 二进制值在写入时按字节流式输出
+            BinaryValue binary = (BinaryValue) input;
+            return DslSequence.of(binary.isEmpty()
+                ? Collections.emptyList()
+                : Collections.singletonList(binary));
+        }
+        
+        if (input instanceof DslSequence.Joined) {
+            // 连接结果在写入时流式输出
+            DslSequence.Joined joined = (DslSequence.Joined) input;
+            return DslSequence.of(joined.isEmpty()
+                ? Collections.emptyList()
+                : Collections.singletonList(joined));
         }
         
-        return lines;
+        // 其他类型转为字符串
+        return DslSequence.of(Collections.singletonList(input.toString()));
     }
     
     /**
-     * 创建文件（如果目录不存在则创建）
+     * 解析文件路径（不创建目录）
      */
-    private File createFile(String filepath) throws IOException {
+    private static Path resolvePath(String filepath) {
         File file = new File(filepath);
         
         // 如果是相对路径，使用当前工作目录
@@ -111,6 +215,15 @@ public class FileFunction implements FunctionHandler {
             file = new File(workDir, filepath);
         }
         
+        return file.toPath().toAbsolutePath().normalize();
+    }
+    
+    /**
+     * 解析文件路径（如果目录不存在则创建）
+     */
+    private Path resolveFile(String filepath) throws IOException {
+        File file = resolvePath(filepath).toFile();
+        
         // 创建父目录（如果不存在）
         File parentDir = file.getParentFile();
         if (parentDir != null && !parentDir.exists()) {
@@ -119,26 +232,208 @@ public class FileFunction implements FunctionHandler {
             }
         }
         
-        // 如果文件已存在，先删除
-        if (file.exists()) {
-            if (!file.delete()) {
-                throw new IOException("Failed to delete existing file: " + file.getAbsolutePath());
+        return file.toPath();
+    }
+    
+    /**
+     * 覆盖写入：写入同目录下的暂存文件，完成后原子替换目标文件
+     */
+    private void overwrite(Path file, Iterator<Object> lines) throws IOException {
+        Path staging = createStagingFile(file);
+        try {
+            try (FileChannel channel = FileChannel.open(staging, StandardOpenOption.WRITE)) {
+                writeLines(channel, lines, false, null);
             }
+            copyPermissions(file, staging);
+            TempFileStore.moveIntoPlace(staging, file);
+        } finally {
+            Files.deleteIfExists(staging);
         }
-        
-        return file;
     }
     
     /**
-     * 写入行到文件
+     * 追加写入，持有文件锁直到写完
+     * @param index 去重索引，为null时不去重
      */
-    private void writeLinesToFile(File file, List<String> lines) throws IOException {
-        try (FileWriter writer = new FileWriter(file)) {
-            for (String line : lines) {
-                writer.write(line);
+    private void append(Path file, Iterator<Object> lines, LineHashIndex index) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            FileLock lock = channel.lock();
+            try {
+                if (index != null) {
+                    // 持有锁之后再同步，其他进程追加的行也会被计入
+                    index.sync();
+                }
+                
+                // 原文件最后一行没有换行时先补上，避免新内容接在最后一行后面
+                boolean separatorFirst = !endsWithNewline(file);
+                try {
+                    writeLines(channel, lines, separatorFirst, index);
+                } catch (IOException | RuntimeException e) {
+                    if (index != null) {
+                        index.invalidate();
+                    }
+                    throw e;
+                }
+                if (index != null) {
+                    index.commit();
+                }
+            } finally {
+                lock.release();
+            }
+        }
+    }
+    
+    /**
+     * 写入行到文件通道，统一使用UTF-8编码
+     * 二进制值按原始字节写入，之后只在还有后续内容时才写入换行
+     * @param separatorFirst 第一行之前是否先写入换行
+     * @param index 去重索引，为null时不去重
+     */
+    private void writeLines(FileChannel channel, Iterator<Object> lines, boolean separatorFirst,
+                            LineHashIndex index) throws IOException {
+        try (LineChannelOutputStream out = new LineChannelOutputStream(channel);
+             Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+            boolean pendingSeparator = separatorFirst;
+            while (lines.hasNext()) {
+                Object line = lines.next();
+                if (index != null && !index.add(line.toString())) {
+                    continue;
+                }
+                if (pendingSeparator) {
+                    writer.write(System.lineSeparator());
+                    pendingSeparator = false;
+                }
+                if (line instanceof BinaryValue) {
+                    writer.flush();
+                    ((BinaryValue) line).writeTo(out);
+                    pendingSeparator = true;
+                    continue;
+                }
+                if (line instanceof DslSequence.Joined) {
+                    ((DslSequence.Joined) line).appendTo(writer);
+                } else {
+                    writer.write(line.toString());
+                }
                 writer.write(System.lineSeparator());
             }
         }
     }
+    
+    /**
+     * 文件是否为空或以换行结尾
+     */
+    private static boolean endsWithNewline(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return true;
+            }
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.read(last, size - 1);
+            return last.get(0) == '\n';
+        }
+    }
+    
+    /**
+     * 在目标文件同目录下创建唯一的隐藏暂存文件（同一文件系统内才能原子重命名）
+     */
+    private static Path createStagingFile(Path file) throws IOException {
+        while (true) {
+            Path staging = file.resolveSibling("." + file.getFileName() + "."
+                + Long.toUnsignedString(ThreadLocalRandom.current().nextLong()) + ".part");
+            try {
+                return Files.createFile(staging);
+            } catch (FileAlreadyExistsException e) {
+                // 名称冲突，换一个随机数重试
+            }
+        }
+    }
+    
+    /**
+     * 替换已有文件时保留原文件的权限
+     */
+    private static void copyPermissions(Path file, Path staging) {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try {
+            Files.setPosixFilePermissions(staging, Files.getPosixFilePermissions(file));
+        } catch (UnsupportedOperationException | IOException e) {
+            // 非POSIX文件系统，使用默认权限
+        }
+    }
+    
+    /**
+     * 经过直接内存缓冲区写入文件通道的输出流
+     * 缓冲区写满时只写出到最后一个换行为止，剩余的半行留在缓冲区；flush()不写出，关闭时写出全部内容。
+     * 单行超过缓冲区大小时才会分多次写出
+     * 关闭流不关闭通道，缓冲区在关闭时归还
+     */
+    private static final class LineChannelOutputStream extends OutputStream {
+        private final FileChannel channel;
+        private ByteBuffer buffer = DirectBuffers.acquire();
+        
+        LineChannelOutputStream(FileChannel channel) {
+            this.channel = channel;
+        }
+        
+        @Override
+        public void write(int b) throws IOException {
+            if (!buffer.hasRemaining()) {
+                drainLines();
+            }
+            buffer.put((byte) b);
+        }
+        
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (!buffer.hasRemaining()) {
+                    drainLines();
+                }
+                int chunk = Math.min(length, buffer.remaining());
+                buffer.put(bytes, offset, chunk);
+                offset += chunk;
+                length -= chunk;
+            }
+        }
+        
+        @Override
+        public void close() throws IOException {
+            if (buffer == null) {
+                return;
+            }
+            try {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } finally {
+                DirectBuffers.release(buffer);
+                buffer = null;
+            }
+        }
+        
+        /**
+         * 写出缓冲区中完整的行，没有换行时写出全部内容
+         */
+        private void drainLines() throws IOException {
+            int end = buffer.position();
+            int cut = end;
+            for (int i = end - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n') {
+                    cut = i + 1;
+                    break;
+                }
+            }
+            buffer.flip();
+            buffer.limit(cut);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.limit(end);
+            buffer.compact();
+        }
+    }
 }
-
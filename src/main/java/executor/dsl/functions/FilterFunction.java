@@ -1,23 +1,69 @@
 package executor.dsl.functions;
 
 import executor.dsl.DslException;
+import executor.dsl.DslSequence;
+import executor.dsl.ElementExpressions;
 import executor.dsl.FunctionHandler;
 import executor.dsl.HttpContext;
+import org.springframework.expression.Expression;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 
 /**
- * 过滤函数（简化版）
- * 用法: filter(list, propertyPath, value)
- * 示例: filter(httpList.requests, "request.method", "POST")
+ * 过滤函数
+ * 用法: filter(list, "predicate") 或 filter(list, propertyPath, value)
+ * 示例:
+ * - filter(httpList.requests, "response.status >= 200 && request.method == 'POST'")
+ * - filter(httpList.requests, "request.method", "POST")
  * 
- * 注意：这是简化实现，完整实现需要表达式求值引擎
+ * 条件是以列表元素为根对象的SpEL表达式，详见 {@link ElementExpressions}
+ * 返回惰性序列，只在输出时逐个判断元素；条件求值失败的元素被过滤掉
  */
 public class FilterFunction implements FunctionHandler {
     
     @Override
     public Object execute(List<Object> args, HttpContext context) throws DslException {
-        throw new DslException("filter() function is not yet fully implemented. Use chain accessor with wildcards instead.");
+        if (args.size() < 2 || args.size() > 3) {
+            throw new DslException("filter() requires 2-3 arguments: filter(list, \"predicate\") or filter(list, propertyPath, value)");
+        }
+        
+        DslSequence sequence = DslSequence.asSequence(args.get(0));
+        if (sequence == null) {
+            throw new DslException("filter() first argument must be a list");
+        }
+        if (args.get(1) == null) {
+            throw new DslException("filter() predicate must not be null");
+        }
+        
+        Expression expression = ElementExpressions.compile(args.get(1).toString());
+        
+        if (args.size() == 3) {
+            // 属性等值比较
+            String expected = Objects.toString(args.get(2), null);
+            return sequence.filter(item -> {
+                Object value = ElementExpressions.evaluate(expression, item);
+                return value != null && value.toString().equals(expected);
+            });
+        }
+        
+        return sequence.filter(item -> ElementExpressions.test(expression, item));
+    }
+    
+    @Override
+    public int getMinArgs() {
+        return 2;
+    }
+    
+    @Override
+    public List<ValueType> getArgumentTypes() {
+        return Arrays.asList(ValueType.LIST, ValueType.STRING, ValueType.ANY);
+    }
+    
+    @Override
+    public ValueType getReturnType() {
+        return ValueType.LIST;
     }
     
     @Override
@@ -27,12 +73,11 @@ public class FilterFunction implements FunctionHandler {
     
     @Override
     public String getDescription() {
-        return "Filter list elements (not yet implemented)";
+        return "Filter list elements by predicate expression";
     }
     
     @Override
     public String getUsage() {
-        return "filter(list, propertyPath, value) - Use chain accessor wildcards as alternative";
+        return "filter(list, \"predicate\") or filter(list, propertyPath, value) - e.g. filter(httpList.requests, \"response.status == 200\")";
     }
 }
-
@@ -0,0 +1,64 @@
+package executor.dsl.functions;
+
+import executor.dsl.DslException;
+import executor.dsl.DslSequence;
+import executor.dsl.FunctionHandler;
+import executor.dsl.HttpContext;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 展开函数
+ * 用法: flatten(list)
+ * 示例:
+ * - flatten(map(httpList.requests, "{request.host, request.path}"))
+ * - unique(flatten(map(groupBy(httpList.requests, "request.host"), "values.![request.path]")))
+ *
+ * 只展开List和序列；数组（如String.split的结果）和Map不展开，需要先在表达式中构造列表
+ *
+ * 把元素中的列表展开一层，其他元素原样保留，null元素被忽略；返回惰性序列
+ */
+public class FlattenFunction implements FunctionHandler {
+    
+    @Override
+    public Object execute(List<Object> args, HttpContext context) throws DslException {
+        if (args.size() != 1) {
+            throw new DslException("flatten() requires 1 argument: flatten(list)");
+        }
+        
+        return ElementKeys.sequence("flatten", args.get(0))
+            .flatMap(item -> {
+                DslSequence nested = DslSequence.asSequence(item);
+                return nested != null ? nested : Collections.singletonList(item);
+            })
+            .filter(Objects::nonNull);
+    }
+    
+    @Override
+    public List<ValueType> getArgumentTypes() {
+        return Arrays.asList(ValueType.LIST);
+    }
+    
+    @Override
+    public ValueType getReturnType() {
+        return ValueType.LIST;
+    }
+    
+    @Override
+    public String getName() {
+        return "flatten";
+    }
+    
+    @Override
+    public String getDescription() {
+        return "Flatten nested lists by one level";
+    }
+    
+    @Override
+    public String getUsage() {
+        return "flatten(list)";
+    }
+}
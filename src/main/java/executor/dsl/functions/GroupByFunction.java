@@ -0,0 +1,113 @@
+package executor.dsl.functions;
+
+import executor.dsl.DslException;
+import executor.dsl.FunctionHandler;
+import executor.dsl.HttpContext;
+import executor.dsl.PropertyAccessible;
+import org.springframework.expression.Expression;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分组函数
+ * 用法: groupBy(list, "keyExpression")
+ * 示例:
+ * - groupBy(httpList.requests, "request.host")
+ * - map(groupBy(httpList.requests, "request.host"), "key + ' ' + count")
+ *
+ * 单遍扫描，按键哈希收集元素，分组按键首次出现的顺序返回，组内保持原有顺序
+ * 每个分组可访问 key、values、count 属性；键求值失败的元素被忽略
+ */
+public class GroupByFunction implements FunctionHandler {
+    
+    @Override
+    public Object execute(List<Object> args, HttpContext context) throws DslException {
+        if (args.size() != 2) {
+            throw new DslException("groupBy() requires 2 arguments: groupBy(list, \"keyExpression\")");
+        }
+        
+        Expression keyExpression = ElementKeys.compile("groupBy", args, 1);
+        
+        Map<Object, Group> groups = new LinkedHashMap<>();
+        for (Object item : ElementKeys.sequence("groupBy", args.get(0))) {
+            Object key = ElementKeys.key(keyExpression, item);
+            if (key != null) {
+                groups.computeIfAbsent(key, Group::new).values.add(item);
+            }
+        }
+        return new ArrayList<>(groups.values());
+    }
+    
+    @Override
+    public List<ValueType> getArgumentTypes() {
+        return Arrays.asList(ValueType.LIST, ValueType.STRING);
+    }
+    
+    @Override
+    public ValueType getReturnType() {
+        return ValueType.LIST;
+    }
+    
+    @Override
+    public Cost getCost() {
+        return Cost.HEAVY;
+    }
+    
+    @Override
+    public String getName() {
+        return "groupBy";
+    }
+    
+    @Override
+    public String getDescription() {
+        return "Group list elements by a key expression";
+    }
+    
+    @Override
+    public String getUsage() {
+        return "groupBy(list, \"keyExpression\") - e.g. groupBy(httpList.requests, \"request.host\")";
+    }
+    
+    /**
+     * 分组结果
+     */
+    public static final class Group implements PropertyAccessible {
+        private final Object key;
+        private final List<Object> values = new ArrayList<>();
+        
+        Group(Object key) {
+            this.key = key;
+        }
+        
+        public Object getKey() {
+            return key;
+        }
+        
+        public List<Object> getValues() {
+            return values;
+        }
+        
+        public int getCount() {
+            return values.size();
+        }
+        
+        @Override
+        public Object getProperty(String propertyName) {
+            switch (propertyName.toLowerCase()) {
+                case "key": return key;
+                case "values": return values;
+                case "count": return values.size();
+                default: return null;
+            }
+        }
+        
+        @Override
+        public String toString() {
+            return key + ": " + values;
+        }
+    }
+}
@@ -1,47 +1,158 @@
 package executor.dsl.functions;
 
+import executor.dsl.BinaryValue;
+import executor.dsl.BodyContext;
 import executor.dsl.DslException;
+import executor.dsl.DslSequence;
 import executor.dsl.FunctionHandler;
 import executor.dsl.HttpContext;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 哈希函数
  * 用法: hash(data, algorithm)
- * 示例: hash(http.request.body, "sha256")
- * 
- * 支持的算法: MD5, SHA-1, SHA-256, SHA-512
+ * 示例:
+ * - hash(http.request.body, "sha256")
+ * - hash(http.request.body.raw, "sha256")（与hash(http.request.body, "sha256")相同，按原始字节计算）
+ * - hash(httpList.requests.*.response.body, "md5")
+ *
+ * 支持的算法: MD5, SHA-1, SHA-256, SHA-512（以及JDK支持的其他摘要算法）
+ *
+ * Body和二进制值按块读取原始字节计算摘要；字符串按UTF-8分块编码后送入摘要，均不生成完整的字节副本
+ * 参数为Body的raw/bytes属性时在编译阶段改为Body本身（见 {@link #consumesBytes()}），同样按原始字节计算
+ * 摘要对象按线程复用；输入为列表时在线程池上分块并行计算，返回与输入顺序一致的摘要序列
  */
 public class HashFunction implements FunctionHandler {
     
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    
+    // 字符串分块编码的缓冲区大小（字节数）
+    private static final int ENCODE_BUFFER_SIZE = 16 * 1024;
+    
+    // 列表输入每块并行计算的元素数
+    private static final int PARALLEL_CHUNK_SIZE = 64;
+    
+    // 每种算法一个线程本地摘要对象
+    private static final Map<String, ThreadLocal<MessageDigest>> digests = new ConcurrentHashMap<>();
+    
+    // 线程本地的UTF-8编码器和编码缓冲区
+    private static final ThreadLocal<EncodeBuffers> encodeBuffers = ThreadLocal.withInitial(EncodeBuffers::new);
+    
     @Override
     public Object execute(List<Object> args, HttpContext context) throws DslException {
         if (args.size() != 2) {
             throw new DslException("hash() requires 2 arguments: hash(data, algorithm)");
         }
         
-        String data = args.get(0) != null ? args.get(0).toString() : "";
+        Object input = args.get(0);
         String algorithm = args.get(1).toString();
         
         try {
             // 标准化算法名称
-            String normalizedAlgorithm = normalizeAlgorithm(algorithm);
+            ThreadLocal<MessageDigest> digest = digestFor(normalizeAlgorithm(algorithm));
             
-            MessageDigest digest = MessageDigest.getInstance(normalizedAlgorithm);
-            byte[] hash = digest.digest(data.getBytes(StandardCharsets.UTF_8));
-            return bytesToHex(hash);
+            DslSequence sequence = DslSequence.asSequence(input);
+            if (sequence != null) {
+                return sequence.parallelMap(item -> hash(digest.get(), item), PARALLEL_CHUNK_SIZE);
+            }
+            return hash(digest.get(), input);
         } catch (Exception e) {
             throw new DslException("Hash calculation failed: " + e.getMessage(), e);
         }
     }
     
+    /**
+     * 计算单个值的摘要
+     */
+    private static String hash(MessageDigest digest, Object input) {
+        digest.reset();
+        if (input instanceof BodyContext) {
+            updateStream(digest, ((BodyContext) input).openStream());
+        } else if (input instanceof BinaryValue) {
+            updateStream(digest, ((BinaryValue) input).openStream());
+        } else {
+            updateUtf8(digest, input != null ? input.toString() : "");
+        }
+        return bytesToHex(digest.digest());
+    }
+    
+    /**
+     * 流式读取字节并更新摘要
+     */
+    private static void updateStream(MessageDigest digest, InputStream stream) {
+        ByteBuffer buffer = encodeBuffers.get().bytes;
+        byte[] chunk = buffer.array();
+        try (InputStream in = stream) {
+            for (int n; (n = in.read(chunk)) > 0; ) {
+                digest.update(chunk, 0, n);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * 按UTF-8分块编码字符串并更新摘要
+     */
+    private static void updateUtf8(MessageDigest digest, String text) {
+        EncodeBuffers buffers = encodeBuffers.get();
+        CharsetEncoder encoder = buffers.encoder.reset();
+        ByteBuffer out = buffers.bytes;
+        CharBuffer in = CharBuffer.wrap(text);
+        
+        CoderResult result;
+        do {
+            out.clear();
+            result = encoder.encode(in, out, true);
+            out.flip();
+            digest.update(out);
+        } while (result.isOverflow());
+        do {
+            out.clear();
+            result = encoder.flush(out);
+            out.flip();
+            digest.update(out);
+        } while (result.isOverflow());
+    }
+    
+    /**
+     * 获取算法对应的线程本地摘要对象
+     * 算法名称先校验一次，不支持的算法立即报错
+     */
+    private static ThreadLocal<MessageDigest> digestFor(String algorithm) throws NoSuchAlgorithmException {
+        ThreadLocal<MessageDigest> digest = digests.get(algorithm);
+        if (digest == null) {
+            MessageDigest.getInstance(algorithm);
+            digest = digests.computeIfAbsent(algorithm, name -> ThreadLocal.withInitial(() -> {
+                try {
+                    return MessageDigest.getInstance(name);
+                } catch (NoSuchAlgorithmException e) {
+                    throw new IllegalStateException(e);
+                }
+            }));
+        }
+        return digest;
+    }
+    
     /**
      * 标准化算法名称
      */
-    private String normalizeAlgorithm(String algorithm) {
+    private static String normalizeAlgorithm(String algorithm) {
         switch (algorithm.toLowerCase().replace("-", "")) {
             case "md5":
                 return "MD5";
@@ -59,14 +170,26 @@ public class HashFunction implements FunctionHandler {
     }
     
     /**
-     * 字节数组转十六进制字符串
+     * 字节数组转十六进制字符串（查表）
      */
-    private String bytesToHex(byte[] bytes) {
-        StringBuilder result = new StringBuilder();
-        for (byte b : bytes) {
-            result.append(String.format("%02x", b));
+    private static String bytesToHex(byte[] bytes) {
+        char[] result = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int value = bytes[i] & 0xff;
+            result[i * 2] = HEX_DIGITS[value >>> 4];
+            result[i * 2 + 1] = HEX_DIGITS[value & 0x0f];
         }
-        return result.toString();
+        return new String(result);
+    }
+    
+    @Override
+    public boolean consumesBytes() {
+        return true;
+    }
+    
+    @Override
+    public List<ValueType> getArgumentTypes() {
+        return Arrays.asList(ValueType.ANY, ValueType.STRING);
     }
     
     @Override
@@ -83,5 +206,14 @@ public class HashFunction implements FunctionHandler {
     public String getUsage() {
         return "hash(data, algorithm) - Supported algorithms: md5, sha1, sha256, sha512";
     }
+    
+    /**
+     * 线程本地的编码器和缓冲区
+     */
+    private static final class EncodeBuffers {
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private final ByteBuffer bytes = ByteBuffer.allocate(ENCODE_BUFFER_SIZE);
+    }
 }
-
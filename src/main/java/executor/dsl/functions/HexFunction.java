@@ -0,0 +1,74 @@
+package executor.dsl.functions;
+
+import executor.dsl.BinaryValue;
+import executor.dsl.DslException;
+import executor.dsl.FunctionHandler;
+import executor.dsl.HttpContext;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 十六进制编解码函数
+ * 用法: hex(data, "encode"|"decode")
+ * 示例: hex(http.request.body.bytes, "encode")
+ * 
+ * 按字节编解码：Body使用原始字节，字符串按UTF-8编码；编码输出小写，解码忽略大小写
+ */
+public class HexFunction implements FunctionHandler {
+    
+    @Override
+    public Object execute(List<Object> args, HttpContext context) throws DslException {
+        if (args.size() < 1 || args.size() > 2) {
+            throw new DslException("hex() requires 1-2 arguments: hex(data[, mode])");
+        }
+        
+        BinaryValue data = BinaryValue.from(args.get(0));
+        String mode = args.size() > 1 ? args.get(1).toString().toLowerCase() : "encode";
+        
+        switch (mode) {
+            case "encode":
+            case "enc":
+            case "e":
+                return data.transform(ByteCodecs::hexEncode);
+            
+            case "decode":
+            case "dec":
+            case "d":
+                return data.transform(ByteCodecs::hexDecode);
+            
+            default:
+                throw new DslException("Invalid mode: " + mode + ". Use 'encode' or 'decode'");
+        }
+    }
+    
+    @Override
+    public int getMinArgs() {
+        return 1;
+    }
+    
+    @Override
+    public List<ValueType> getArgumentTypes() {
+        return Arrays.asList(ValueType.ANY, ValueType.STRING);
+    }
+    
+    @Override
+    public ValueType getReturnType() {
+        return ValueType.BINARY;
+    }
+    
+    @Override
+    public String getName() {
+        return "hex";
+    }
+    
+    @Override
+    public String getDescription() {
+        return "Hex encode or decode data";
+    }
+    
+    @Override
+    public String getUsage() {
+        return "hex(data[, mode]) - mode: encode(default) or decode";
+    }
+}
@@ -0,0 +1,72 @@
+package executor.dsl.functions;
+
+import executor.dsl.BinaryValue;
+import executor.dsl.DslException;
+import executor.dsl.FunctionHandler;
+import executor.dsl.HttpContext;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 解压缩函数
+ * 用法: inflate(data[, format])
+ * 示例:
+ * - inflate(http.response.body)
+ * - tmpFile(inflate(http.response.body, "gzip"), "html")
+ * 
+ * format: gzip、deflate（自动区分zlib封装和裸deflate）或auto（默认，按头部识别，未压缩内容原样返回）
+ * 流式解压原始Body字节，写入临时文件时不在内存中保留解压结果
+ */
+public class InflateFunction implements FunctionHandler {
+    
+    @Override
+    public Object execute(List<Object> args, HttpContext context) throws DslException {
+        if (args.size() < 1 || args.size() > 2) {
+            throw new DslException("inflate() requires 1-2 arguments: inflate(data[, format])");
+        }
+        
+        BinaryValue data = BinaryValue.from(args.get(0));
+        String format = args.size() > 1 ? args.get(1).toString().toLowerCase() : "auto";
+        
+        switch (format) {
+            case "gzip":
+            case "deflate":
+            case "auto":
+                return data.transform(in -> ByteCodecs.inflate(in, format));
+            
+            default:
+                throw new DslException("Invalid format: " + format + ". Use 'gzip', 'deflate' or 'auto'");
+        }
+    }
+    
+    @Override
+    public int getMinArgs() {
+        return 1;
+    }
+    
+    @Override
+    public List<ValueType> getArgumentTypes() {
+        return Arrays.asList(ValueType.ANY, ValueType.STRING);
+    }
+    
+    @Override
+    public ValueType getReturnType() {
+        return ValueType.BINARY;
+    }
+    
+    @Override
+    public String getName() {
+        return "inflate";
+    }
+    
+    @Override
+    public String getDescription() {
+        return "Decompress gzip or deflate data";
+    }
+    
+    @Override
+    public String getUsage() {
+        return "inflate(data[, format]) - format: auto(default), gzip or deflate";
+    }
+}
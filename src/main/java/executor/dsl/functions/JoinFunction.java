@@ -1,11 +1,12 @@
 package executor.dsl.functions;
 
 import executor.dsl.DslException;
+import executor.dsl.DslSequence;
 import executor.dsl.FunctionHandler;
 import executor.dsl.HttpContext;
 
+import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * 连接函数
@@ -20,18 +21,35 @@ public class JoinFunction implements FunctionHandler {
             throw new DslException("join() requires 1-2 arguments: join(list[, delimiter])");
         }
         
+        if (args.size() > 1 && args.get(1) == null) {
+            throw new DslException("join() delimiter must not be null");
+        }
         Object collection = args.get(0);
         String delimiter = args.size() > 1 ? args.get(1).toString() : ",";
         
-        if (!(collection instanceof List)) {
+        DslSequence sequence = DslSequence.asSequence(collection);
+        if (sequence == null) {
             // 如果不是列表，直接返回字符串
             return collection != null ? collection.toString() : "";
         }
         
-        List<?> list = (List<?>) collection;
-        return list.stream()
-            .map(obj -> obj != null ? obj.toString() : "")
-            .collect(Collectors.joining(delimiter));
+        // 输出时才遍历序列
+        return sequence.join(delimiter);
+    }
+    
+    @Override
+    public int getMinArgs() {
+        return 1;
+    }
+    
+    @Override
+    public List<ValueType> getArgumentTypes() {
+        return Arrays.asList(ValueType.LIST, ValueType.STRING);
+    }
+    
+    @Override
+    public ValueType getReturnType() {
+        return ValueType.STRING;
     }
     
     @Override
@@ -1,25 +1,57 @@
 package executor.dsl.functions;
 
 import com.google.gson.Gson;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
 import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.InvalidPathException;
+import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.Option;
+import com.jayway.jsonpath.spi.json.GsonJsonProvider;
+import com.jayway.jsonpath.spi.mapper.GsonMappingProvider;
+import executor.dsl.BodyContext;
 import executor.dsl.DslException;
 import executor.dsl.FunctionHandler;
 import executor.dsl.HttpContext;
+import executor.dsl.LruCache;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 /**
  * JSON路径提取函数
- * 用法: json(jsonString, path)
+ * 用法: json(json, path)
  * 示例: json(http.request.body, "$.user.id")
- * 
- * 支持简单的JSON Path语法（不依赖外部库）
+ *
+ * 基于Jayway JsonPath，支持完整的JSON Path语法（通配符、过滤器、递归下降等）：
+ * - $.user.id、$.users[0].name
+ * - $.items[*].id、$..token、$.users[?(@.admin == true)].name
+ *
+ * 路径按字符串编译并缓存；第一个参数为Body时直接使用Body已解析的JSON，
+ * 为字符串时按对象身份缓存解析结果，同一次渲染中对同一个Body多次调用json()只解析一次；
+ * 解析结果的内存占用是原文的数倍，缓存按估算的解析树大小（加上原文字符串）限制总量
+ * 不确定路径（通配符、过滤器等）返回列表，确定路径返回单个值，路径不存在时返回空
  */
 public class JsonPathFunction implements FunctionHandler {
     
-    private final Gson gson = new Gson();
+    private static final Gson GSON = new Gson();
+    
+    private static final Configuration CONFIGURATION = Configuration.builder()
+        .jsonProvider(new GsonJsonProvider(GSON))
+        .mappingProvider(new GsonMappingProvider(GSON))
+        .options(Option.SUPPRESS_EXCEPTIONS)
+        .build();
+    
+    // 编译后的路径缓存
+    private static final LruCache<String, JsonPath> pathCache = new LruCache<>(256);
+    
+    // 按字符串身份缓存的解析结果，按估算的内存占用（字节）限制总量
+    private static final LruCache<IdentityKey, JsonElement> documentCache =
+        new LruCache<>(32, 64L * 1024 * 1024, (key, value) -> key.retainedBytes);
     
     @Override
     public Object execute(List<Object> args, HttpContext context) throws DslException {
@@ -27,76 +59,129 @@ public class JsonPathFunction implements FunctionHandler {
             throw new DslException("json() requires 2 arguments: json(jsonString, path)");
         }
         
-        String jsonString = args.get(0) != null ? args.get(0).toString() : "";
         String path = args.get(1).toString();
         
         try {
-            JsonElement root = gson.fromJson(jsonString, JsonElement.class);
-            return extractValue(root, path);
+            JsonElement document = resolveDocument(args.get(0));
+            if (document == null || document.isJsonNull()) {
+                return null;
+            }
+            
+            JsonPath jsonPath = compile(path);
+            Object result = jsonPath.read(document, CONFIGURATION);
+            return toResult(result, jsonPath.isDefinite());
+        } catch (DslException e) {
+            throw e;
         } catch (Exception e) {
             throw new DslException("JSON path extraction failed: " + e.getMessage(), e);
         }
     }
     
     /**
-     * 提取JSON值
-     * 支持简单路径: $.user.id, $.users[0].name
+     * 获取参数对应的JSON文档
+     * Body和JsonElement直接复用已解析结果，字符串按身份缓存解析结果
      */
-    private Object extractValue(JsonElement element, String path) {
-        // 移除开头的$. 或 $
-        if (path.startsWith("$.")) {
-            path = path.substring(2);
-        } else if (path.startsWith("$")) {
-            path = path.substring(1);
+    private JsonElement resolveDocument(Object input) {
+        if (input == null) {
+            return null;
         }
-        
-        if (path.isEmpty()) {
-            return jsonElementToObject(element);
+        if (input instanceof JsonElement) {
+            return (JsonElement) input;
         }
-        
-        String[] parts = path.split("\\.");
-        JsonElement current = element;
-        
-        for (String part : parts) {
-            if (current == null || current.isJsonNull()) {
-                return null;
+        if (input instanceof BodyContext) {
+            BodyContext body = (BodyContext) input;
+            JsonElement json = body.getJson();
+            return json != null ? json : parse(body.getRaw());
+        }
+        return parse(input.toString());
+    }
+    
+    /**
+     * 解析JSON字符串（按字符串对象身份缓存）
+     */
+    private static JsonElement parse(String jsonString) {
+        JsonElement document = documentCache.get(new IdentityKey(jsonString, 0));
+        if (document == null) {
+            document = GSON.fromJson(jsonString, JsonElement.class);
+            if (document != null) {
+                long retained = stringBytes(jsonString) + estimateTreeBytes(document);
+                documentCache.put(new IdentityKey(jsonString, retained), document);
             }
-            
-            // 处理数组索引: users[0]
-            if (part.contains("[")) {
-                int bracketIndex = part.indexOf('[');
-                String fieldName = part.substring(0, bracketIndex);
-                String indexStr = part.substring(bracketIndex + 1, part.indexOf(']'));
-                int index = Integer.parseInt(indexStr);
-                
-                // 先获取字段
-                if (!fieldName.isEmpty() && current.isJsonObject()) {
-                    current = current.getAsJsonObject().get(fieldName);
+        }
+        return document;
+    }
+    
+    /**
+     * 估算Gson解析树占用的堆内存（64位JVM、压缩指针）
+     * 对象节点按LinkedTreeMap及其节点估算，数组按ArrayList估算，字符串按每字符1字节估算；
+     * 用显式栈遍历，深层嵌套的文档不会栈溢出
+     */
+    static long estimateTreeBytes(JsonElement root) {
+        long total = 0;
+        ArrayDeque<JsonElement> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            JsonElement element = pending.pop();
+            if (element.isJsonObject()) {
+                total += 72;
+                for (Map.Entry<String, JsonElement> member : element.getAsJsonObject().entrySet()) {
+                    total += 40 + stringBytes(member.getKey());
+                    pending.push(member.getValue());
                 }
-                
-                // 再获取数组元素
-                if (current != null && current.isJsonArray()) {
-                    JsonArray array = current.getAsJsonArray();
-                    if (index >= 0 && index < array.size()) {
-                        current = array.get(index);
-                    } else {
-                        return null;
-                    }
-                } else {
-                    return null;
+            } else if (element.isJsonArray()) {
+                JsonArray array = element.getAsJsonArray();
+                total += 56 + 4L * array.size();
+                for (JsonElement item : array) {
+                    pending.push(item);
                 }
+            } else if (element.isJsonPrimitive()) {
+                JsonPrimitive primitive = element.getAsJsonPrimitive();
+                total += 16 + (primitive.isBoolean() ? 0 : primitive.isString()
+                    ? stringBytes(primitive.getAsString()) : 40);
             }
-            // 普通字段访问
-            else {
-                if (current.isJsonObject()) {
-                    current = current.getAsJsonObject().get(part);
-                } else {
-                    return null;
-                }
+        }
+        return total;
+    }
+    
+    private static long stringBytes(String value) {
+        return 40 + value.length();
+    }
+    
+    /**
+     * 编译JSON路径（带缓存）
+     */
+    private static JsonPath compile(String path) {
+        JsonPath jsonPath = pathCache.get(path);
+        if (jsonPath == null) {
+            try {
+                jsonPath = JsonPath.compile(path);
+            } catch (InvalidPathException e) {
+                throw new DslException("Invalid JSON path '" + path + "': " + e.getMessage(), e);
             }
+            pathCache.put(path, jsonPath);
+        }
+        return jsonPath;
+    }
+    
+    /**
+     * 转换路径求值结果
+     * 不确定路径的结果数组展开为列表
+     */
+    private Object toResult(Object result, boolean definite) {
+        if (!(result instanceof JsonElement)) {
+            return result;
         }
         
-        return jsonElementToObject(current);
+        JsonElement element = (JsonElement) result;
+        if (!definite && element.isJsonArray()) {
+            JsonArray array = element.getAsJsonArray();
+            List<Object> values = new ArrayList<>(array.size());
+            for (JsonElement item : array) {
+                values.add(jsonElementToObject(item));
+            }
+            return values;
+        }
+        return jsonElementToObject(element);
     }
     
     /**
@@ -119,6 +204,11 @@ public class JsonPathFunction implements FunctionHandler {
         return element.toString();
     }
     
+    @Override
+    public List<ValueType> getArgumentTypes() {
+        return Arrays.asList(ValueType.ANY, ValueType.STRING);
+    }
+    
     @Override
     public String getName() {
         return "json";
@@ -133,5 +223,32 @@ public class JsonPathFunction implements FunctionHandler {
     public String getUsage() {
         return "json(jsonString, path) - Example: json(http.request.body, \"$.user.id\")";
     }
+    
+    /**
+     * 按对象身份比较的缓存键
+     * Body的原始字符串在上下文中只解码一次，多次引用得到的是同一个字符串对象
+     */
+    private static final class IdentityKey {
+        private final String value;
+        private final long retainedBytes;
+        
+        /**
+         * @param value JSON字符串
+         * @param retainedBytes 缓存条目估算的内存占用，只用于查找的键为0
+         */
+        IdentityKey(String value, long retainedBytes) {
+            this.value = value;
+            this.retainedBytes = retainedBytes;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof IdentityKey && ((IdentityKey) o).value == value;
+        }
+        
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(value);
+        }
+    }
 }
-
@@ -0,0 +1,324 @@
+package executor.dsl.functions;
+
+import executor.dsl.LruCache;
+import manager.ConfigManager;
+import util.TempFileStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+
+/**
+ * 文本文件的行哈希索引，用于file()的去重追加
+ * 索引默认存放在 ~/.bparsenal/index/ 目录下（可通过 {@link #setIndexDirectory(Path)} 更换），
+ * 按目标文件绝对路径的摘要命名，不在目标文件旁边生成额外文件
+ *
+ * 文件布局：64字节头部（魔数、已覆盖的目标文件长度和修改时间、哈希个数）后接每行的64位哈希
+ * 打开时把哈希读入 {@link LongHashSet}，追加新行后只把新增的哈希写到索引末尾，不需要重新扫描目标文件
+ *
+ * 目标文件的长度或修改时间与头部记录不一致（被其他程序修改、截断或删除）时，从目标文件重建索引
+ *
+ * 最近使用的 {@link #MAX_OPEN_INDEXES} 个索引保留在内存中；超过 {@link #MAX_RETAINED_HASHES} 行的索引
+ * 提交后释放内存中的哈希集合，下次使用时从索引文件重新加载
+ * 非线程安全，由调用方按目标文件同步
+ */
+final class LineHashIndex {
+    
+    private static final long MAGIC = 0x4250414C49445831L; // "BPALIDX1"
+    private static final int HEADER_SIZE = 64;
+    private static final int OFFSET_COVERED_LENGTH = 8;
+    private static final int OFFSET_COVERED_MODIFIED = 16;
+    private static final int OFFSET_COUNT = 24;
+    private static final long HASH_SEED = 0xcbf29ce484222325L;
+    private static final String FILE_SUFFIX = ".idx";
+    
+    // 内存中保留的索引数
+    static final int MAX_OPEN_INDEXES = 16;
+    
+    // 提交后仍保留在内存中的最大哈希个数（约每个16字节）
+    static final int MAX_RETAINED_HASHES = 1 << 18;
+    
+    private static final LruCache<Path, LineHashIndex> openIndexes = new LruCache<>(MAX_OPEN_INDEXES);
+    
+    // 索引目录，为null时使用用户数据目录下的index目录
+    private static volatile Path indexDirectory;
+    
+    private final Path target;
+    private final Path indexFile;
+    private LongHashSet hashes;
+    private long count;
+    private long coveredLength = -1;
+    private long coveredModified = -1;
+    private long[] pending = new long[1024];
+    private int pendingCount;
+    
+    private LineHashIndex(Path target, Path indexFile) {
+        this.target = target;
+        this.indexFile = indexFile;
+    }
+    
+    /**
+     * 获取目标文件对应的索引
+     * @param target 目标文件
+     * @return 索引
+     * @throws IOException 摘要算法不可用
+     */
+    static LineHashIndex forFile(Path target) throws IOException {
+        Path key = target.toAbsolutePath().normalize();
+        LineHashIndex index = openIndexes.get(key);
+        if (index == null) {
+            Path indexFile = indexFileFor(key);
+            index = openIndexes.computeIfAbsent(key, path -> new LineHashIndex(path, indexFile));
+        }
+        return index;
+    }
+    
+    /**
+     * 判断文件是否由file()去重写入过（索引文件存在）
+     * 只看磁盘上的索引文件，结果不受本次运行中打开过哪些索引影响
+     * @param target 文件
+     * @return 存在索引文件时返回true
+     * @throws IOException 摘要算法不可用
+     */
+    static boolean isIndexed(Path target) throws IOException {
+        return Files.isRegularFile(indexFileFor(target.toAbsolutePath().normalize()));
+    }
+    
+    /**
+     * 更换索引目录并丢弃内存中的索引（测试使用）
+     * @param directory 索引目录，为null时恢复默认目录
+     */
+    static void setIndexDirectory(Path directory) {
+        indexDirectory = directory;
+        openIndexes.clear();
+    }
+    
+    private static Path indexFileFor(Path key) throws IOException {
+        String name = TempFileStore.digest(key.toString().getBytes(StandardCharsets.UTF_8)).substring(0, 32);
+        Path directory = indexDirectory;
+        if (directory == null) {
+            directory = Paths.get(ConfigManager.getUserDataDirectory(), "index");
+        }
+        return directory.resolve(name + FILE_SUFFIX);
+    }
+    
+    /**
+     * 确保索引与目标文件当前内容一致
+     * 内存中的索引仍然有效时直接返回，否则从索引文件加载，索引文件过期时从目标文件重建
+     * @throws IOException 读取失败
+     */
+    void sync() throws IOException {
+        pendingCount = 0;
+        long[] state = targetState();
+        if (hashes != null && state[0] == coveredLength && state[1] == coveredModified) {
+            return;
+        }
+        if (!load(state)) {
+            rebuild(state);
+        }
+    }
+    
+    /**
+     * 登记一行
+     * @param line 行内容
+     * @return 目标文件和本次已登记的行中没有相同内容时返回true
+     */
+    boolean add(String line) {
+        long hash = PersistentSeenSet.hash(line, HASH_SEED);
+        if (!hashes.add(hash)) {
+            return false;
+        }
+        if (pendingCount == pending.length) {
+            pending = Arrays.copyOf(pending, pending.length * 2);
+        }
+        pending[pendingCount++] = hash;
+        return true;
+    }
+    
+    /**
+     * 目标文件写入完成后，把新登记的哈希写入索引文件并记录目标文件的当前状态
+     * @throws IOException 写入失败
+     */
+    void commit() throws IOException {
+        flush();
+        if (pending.length > 1024) {
+            // 重建或大批量追加后不保留放大的登记缓冲区
+            pending = new long[1024];
+        }
+        if (count > MAX_RETAINED_HASHES) {
+            // 大索引不常驻内存，下次sync()时从索引文件加载
+            hashes = null;
+        }
+    }
+    
+    /**
+     * 把新登记的哈希追加到索引文件并更新头部
+     */
+    private void flush() throws IOException {
+        long[] state = targetState();
+        Files.createDirectories(indexFile.getParent());
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = DirectBuffers.acquire();
+            try {
+                long position = HEADER_SIZE + count * Long.BYTES;
+                for (int i = 0; i < pendingCount; i++) {
+                    if (buffer.remaining() < Long.BYTES) {
+                        position += writeFully(channel, buffer, position);
+                    }
+                    buffer.putLong(pending[i]);
+                }
+                writeFully(channel, buffer, position);
+            } finally {
+                DirectBuffers.release(buffer);
+            }
+            count += pendingCount;
+            writeHeader(channel, state, count);
+        }
+        pendingCount = 0;
+        coveredLength = state[0];
+        coveredModified = state[1];
+    }
+    
+    /**
+     * 写入失败后丢弃内存中的索引，下次使用时重新加载或重建
+     */
+    void invalidate() {
+        hashes = null;
+        pendingCount = 0;
+    }
+    
+    /**
+     * 从索引文件加载
+     * @return 索引文件存在且与目标文件状态一致时返回true
+     */
+    private boolean load(long[] state) throws IOException {
+        if (!Files.isRegularFile(indexFile)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(channel, header, 0);
+            header.flip();
+            if (header.limit() < HEADER_SIZE || header.getLong(0) != MAGIC
+                    || header.getLong(OFFSET_COVERED_LENGTH) != state[0]
+                    || header.getLong(OFFSET_COVERED_MODIFIED) != state[1]) {
+                return false;
+            }
+            long total = header.getLong(OFFSET_COUNT);
+            if (total < 0 || HEADER_SIZE + total * Long.BYTES > channel.size()) {
+                return false;
+            }
+            
+            LongHashSet loaded = new LongHashSet();
+            ByteBuffer buffer = DirectBuffers.acquire();
+            try {
+                long position = HEADER_SIZE;
+                long remaining = total;
+                while (remaining > 0) {
+                    buffer.clear();
+                    buffer.limit((int) Math.min(buffer.capacity(), remaining * Long.BYTES));
+                    int read = readFully(channel, buffer, position);
+                    if (read < buffer.limit()) {
+                        return false;
+                    }
+                    position += read;
+                    buffer.flip();
+                    LongBuffer longs = buffer.asLongBuffer();
+                    while (longs.hasRemaining()) {
+                        loaded.add(longs.get());
+                        remaining--;
+                    }
+                }
+            } finally {
+                DirectBuffers.release(buffer);
+            }
+            hashes = loaded;
+            count = total;
+        }
+        coveredLength = state[0];
+        coveredModified = state[1];
+        return true;
+    }
+    
+    /**
+     * 扫描目标文件的所有行重建索引
+     */
+    private void rebuild(long[] state) throws IOException {
+        hashes = new LongHashSet();
+        count = 0;
+        if (state[0] > 0) {
+            // 按位置读取，不映射目标文件，之后覆盖或截断目标文件不受影响
+            try {
+                for (Object line : TextFileLines.read(target)) {
+                    add((String) line);
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+        // 重建的哈希整体重写到索引文件
+        Files.deleteIfExists(indexFile);
+        flush();
+    }
+    
+    /**
+     * 目标文件的长度和修改时间，不存在时均为0
+     */
+    private long[] targetState() throws IOException {
+        if (!Files.exists(target)) {
+            return new long[] {0, 0};
+        }
+        BasicFileAttributes attributes = Files.readAttributes(target, BasicFileAttributes.class);
+        return new long[] {attributes.size(), attributes.lastModifiedTime().toMillis()};
+    }
+    
+    private static void writeHeader(FileChannel channel, long[] state, long count) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putLong(0, MAGIC);
+        header.putLong(OFFSET_COVERED_LENGTH, state[0]);
+        header.putLong(OFFSET_COVERED_MODIFIED, state[1]);
+        header.putLong(OFFSET_COUNT, count);
+        header.position(HEADER_SIZE);
+        writeFully(channel, header, 0);
+    }
+    
+    /**
+     * 写出缓冲区中的内容并清空缓冲区
+     * @return 写入的字节数
+     */
+    private static int writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        buffer.flip();
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        buffer.clear();
+        return written;
+    }
+    
+    /**
+     * 读满缓冲区或读到文件末尾
+     * @return 读取的字节数
+     */
+    private static int readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int read = 0;
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position + read);
+            if (n < 0) {
+                break;
+            }
+            read += n;
+        }
+        return read;
+    }
+}
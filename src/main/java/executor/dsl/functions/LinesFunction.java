@@ -0,0 +1,100 @@
+package executor.dsl.functions;
+
+import executor.dsl.DslException;
+import executor.dsl.FunctionHandler;
+import executor.dsl.HttpContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 读取文件行函数
+ * 用法: lines(filepath)
+ * 示例:
+ * - ffuf -w %tmpFile(unique(lines('~/wordlists/dirs.txt')), 'txt')% -u %http.request.url%/FUZZ
+ * - %count(lines('/tmp/scope.txt'))%
+ *
+ * 文件以UTF-8按行读取，返回惰性序列，可与unique、filter、tmpFile等函数组合
+ * 文件按位置分块读取，只保留当前一行，多GB的字典也不会载入堆内存；迭代期间不持有文件句柄，
+ * 文件可以同时被file()等写入
+ * 超过 {@link #MAPPED_THRESHOLD} 且没有被file()去重写入过（没有行哈希索引文件）的文件视为只读字典，改用内存映射读取
+ * （映射要等GC回收才释放，期间不应覆盖或截断该文件，见 {@link MappedTextFile}）
+ *
+ * 文件路径支持：
+ * - 相对路径：相对于当前工作目录（与file()一致）
+ * - 绝对路径，以及以~/开头的用户目录路径
+ */
+public class LinesFunction implements FunctionHandler {
+    
+    // 按只读字典内存映射的最小文件大小
+    static final long MAPPED_THRESHOLD = 256L * 1024 * 1024;
+    
+    @Override
+    public Object execute(List<Object> args, HttpContext context) throws DslException {
+        if (args.size() != 1 || args.get(0) == null) {
+            throw new DslException("lines() requires 1 argument: lines(filepath)");
+        }
+        
+        Path path = resolvePath(args.get(0).toString());
+        try {
+            if (Files.size(path) >= MAPPED_THRESHOLD && !LineHashIndex.isIndexed(path)) {
+                return MappedTextFile.open(path).lines();
+            }
+            return TextFileLines.read(path);
+        } catch (NoSuchFileException e) {
+            throw new DslException("lines() file not found: " + path);
+        } catch (IOException e) {
+            throw new DslException("lines() failed to read " + path + ": " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * 解析文件路径
+     */
+    private static Path resolvePath(String filepath) {
+        String trimmed = filepath.trim();
+        if (trimmed.equals("~") || trimmed.startsWith("~/") || trimmed.startsWith("~\\")) {
+            return Paths.get(System.getProperty("user.home") + trimmed.substring(1));
+        }
+        Path path = Paths.get(trimmed);
+        if (!path.isAbsolute()) {
+            path = Paths.get(System.getProperty("user.dir")).resolve(path);
+        }
+        return path;
+    }
+    
+    @Override
+    public List<ValueType> getArgumentTypes() {
+        return Arrays.asList(ValueType.STRING);
+    }
+    
+    @Override
+    public ValueType getReturnType() {
+        return ValueType.LIST;
+    }
+    
+    @Override
+    public Cost getCost() {
+        return Cost.IO;
+    }
+    
+    @Override
+    public String getName() {
+        return "lines";
+    }
+    
+    @Override
+    public String getDescription() {
+        return "Read lines from a file lazily";
+    }
+    
+    @Override
+    public String getUsage() {
+        return "lines(filepath) - e.g. lines('~/wordlists/common.txt')";
+    }
+}
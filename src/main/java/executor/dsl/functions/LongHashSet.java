@@ -0,0 +1,70 @@
+package executor.dsl.functions;
+
+/**
+ * 64位键的开放寻址哈希集合
+ * 键直接存放在long数组中，每个键只占8字节（按负载因子约16字节），不装箱
+ * 0作为空槽标记，键0单独记录
+ */
+final class LongHashSet {
+    
+    private static final int INITIAL_CAPACITY = 1024;
+    
+    private long[] slots = new long[INITIAL_CAPACITY];
+    private int size;
+    private boolean containsZero;
+    
+    /**
+     * 添加键
+     * @param key 键
+     * @return 键之前不存在时返回true
+     */
+    boolean add(long key) {
+        if (key == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        if ((size + 1) * 2 > slots.length) {
+            resize();
+        }
+        if (insert(slots, key)) {
+            size++;
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * 键的数量
+     * @return 数量
+     */
+    int size() {
+        return size;
+    }
+    
+    private static boolean insert(long[] table, long key) {
+        int mask = table.length - 1;
+        int index = (int) (key ^ (key >>> 32)) & mask;
+        while (table[index] != 0) {
+            if (table[index] == key) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        table[index] = key;
+        return true;
+    }
+    
+    private void resize() {
+        long[] resized = new long[slots.length * 2];
+        for (long key : slots) {
+            if (key != 0) {
+                insert(resized, key);
+            }
+        }
+        slots = resized;
+    }
+}
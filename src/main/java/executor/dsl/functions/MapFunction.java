@@ -1,23 +1,56 @@
 package executor.dsl.functions;
 
 import executor.dsl.DslException;
+import executor.dsl.DslSequence;
+import executor.dsl.ElementExpressions;
 import executor.dsl.FunctionHandler;
 import executor.dsl.HttpContext;
+import org.springframework.expression.Expression;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 
 /**
- * 映射函数（简化版）
- * 用法: map(list, propertyPath)
- * 示例: map(httpList.requests, "request.url")
+ * 映射函数
+ * 用法: map(list, "expression")
+ * 示例:
+ * - map(httpList.requests, "request.url")
+ * - map(filter(httpList.requests, "response.status == 200"), "request.host + ':' + request.port")
  * 
- * 注意：这是简化实现，推荐使用通配符语法作为替代
+ * 表达式是以列表元素为根对象的SpEL表达式，详见 {@link ElementExpressions}
+ * 返回惰性序列，与通配符一致，结果为null或求值失败的元素被忽略
  */
 public class MapFunction implements FunctionHandler {
     
     @Override
     public Object execute(List<Object> args, HttpContext context) throws DslException {
-        throw new DslException("map() function is not yet fully implemented. Use chain accessor with wildcards instead: httpList.requests.*.request.url");
+        if (args.size() != 2) {
+            throw new DslException("map() requires 2 arguments: map(list, \"expression\")");
+        }
+        
+        DslSequence sequence = DslSequence.asSequence(args.get(0));
+        if (sequence == null) {
+            throw new DslException("map() first argument must be a list");
+        }
+        if (args.get(1) == null) {
+            throw new DslException("map() expression must not be null");
+        }
+        
+        Expression expression = ElementExpressions.compile(args.get(1).toString());
+        return sequence
+            .map(item -> ElementExpressions.evaluate(expression, item))
+            .filter(Objects::nonNull);
+    }
+    
+    @Override
+    public List<ValueType> getArgumentTypes() {
+        return Arrays.asList(ValueType.LIST, ValueType.STRING);
+    }
+    
+    @Override
+    public ValueType getReturnType() {
+        return ValueType.LIST;
     }
     
     @Override
@@ -27,12 +60,11 @@ public class MapFunction implements FunctionHandler {
     
     @Override
     public String getDescription() {
-        return "Map list elements to property values (not yet implemented)";
+        return "Map list elements with an expression";
     }
     
     @Override
     public String getUsage() {
-        return "map(list, propertyPath) - Use wildcard syntax as alternative: list.*.property";
+        return "map(list, \"expression\") - e.g. map(httpList.requests, \"request.url\")";
     }
 }
-
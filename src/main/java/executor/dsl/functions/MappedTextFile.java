@@ -0,0 +1,142 @@
+package executor.dsl.functions;
+
+import executor.dsl.DslSequence;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * 内存映射的只读文本文件
+ * 文件按1GB分段映射，超过2GB的文件同样可用；逐行读取时直接扫描映射区域，
+ * 每次只解码当前一行，文件内容不进入堆内存
+ *
+ * 只用于只读的大字典（见 {@link LinesFunction}），其他文件用 {@link TextFileLines} 按位置读取：
+ * 映射无法主动释放，要等到GC回收后才解除，期间在Windows上文件无法被覆盖或删除，
+ * 文件被其他程序截断后访问映射区域会触发SIGBUS使整个进程崩溃
+ * 因此映射不缓存，每次打开重新映射，不再使用的映射尽快交给GC回收
+ */
+final class MappedTextFile {
+    
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+    private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+    
+    private final long size;
+    private final MappedByteBuffer[] segments;
+    
+    private MappedTextFile(long size, MappedByteBuffer[] segments) {
+        this.size = size;
+        this.segments = segments;
+    }
+    
+    /**
+     * 映射文件
+     * @param path 文件路径
+     * @return 文件映射
+     * @throws IOException 文件不存在或映射失败
+     */
+    static MappedTextFile open(Path path) throws IOException {
+        Path key = path.toAbsolutePath().normalize();
+        BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+        if (!attributes.isRegularFile()) {
+            throw new IOException("Not a regular file: " + key);
+        }
+        return map(key, attributes.size());
+    }
+    
+    private static MappedTextFile map(Path path, long size) throws IOException {
+        int count = (int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT);
+        MappedByteBuffer[] segments = new MappedByteBuffer[count];
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            for (int i = 0; i < count; i++) {
+                long offset = (long) i << SEGMENT_SHIFT;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(SEGMENT_SIZE, size - offset));
+            }
+        }
+        return new MappedTextFile(size, segments);
+    }
+    
+    /**
+     * 按行读取的惰性序列
+     * 支持\n和\r\n换行，跳过开头的UTF-8 BOM，末尾换行之后不产生空行
+     * @return 行序列
+     */
+    DslSequence lines() {
+        return new DslSequence() {
+            @Override
+            public Iterator<Object> iterator() {
+                return new LineIterator();
+            }
+        };
+    }
+    
+    private byte byteAt(long offset) {
+        return segments[(int) (offset >>> SEGMENT_SHIFT)].get((int) (offset & SEGMENT_MASK));
+    }
+    
+    /**
+     * 把区间内的字节复制到数组，区间可以跨段
+     */
+    private void copy(long from, byte[] target, int length) {
+        int copied = 0;
+        while (copied < length) {
+            long offset = from + copied;
+            MappedByteBuffer segment = segments[(int) (offset >>> SEGMENT_SHIFT)];
+            int index = (int) (offset & SEGMENT_MASK);
+            int chunk = Math.min(length - copied, segment.limit() - index);
+            segment.get(index, target, copied, chunk);
+            copied += chunk;
+        }
+    }
+    
+    /**
+     * 行迭代器，复用一个行缓冲区
+     */
+    private final class LineIterator implements Iterator<Object> {
+        private long position;
+        private byte[] line = new byte[256];
+        
+        LineIterator() {
+            if (size >= 3 && byteAt(0) == (byte) 0xEF && byteAt(1) == (byte) 0xBB && byteAt(2) == (byte) 0xBF) {
+                position = 3;
+            }
+        }
+        
+        @Override
+        public boolean hasNext() {
+            return position < size;
+        }
+        
+        @Override
+        public Object next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            long start = position;
+            long end = start;
+            while (end < size && byteAt(end) != '\n') {
+                end++;
+            }
+            position = end + 1;
+            
+            if (end > start && byteAt(end - 1) == '\r') {
+                end--;
+            }
+            int length = (int) Math.min(end - start, Integer.MAX_VALUE - 8);
+            if (length > line.length) {
+                line = Arrays.copyOf(line, Math.max(length, line.length * 2));
+            }
+            copy(start, line, length);
+            return new String(line, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
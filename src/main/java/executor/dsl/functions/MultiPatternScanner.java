@@ -0,0 +1,325 @@
+package executor.dsl.functions;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 多模式单遍扫描器
+ *
+ * 以字面前缀开头的模式（锚定模式）：所有前缀编译进一个Aho-Corasick自动机，
+ * 自动机逐字符推进找出前缀命中位置，只在命中位置用对应正则做lookingAt校验
+ * 没有字面前缀的模式（非锚定模式）：合并为一个带命名分组的交替正则；
+ * 含反向引用或命名分组的模式合并后分组编号/名称会变化，单独保留各自的正则
+ *
+ * 扫描只从前往后走一遍：非锚定正则的find与自动机同步推进，自动机越过其下一个匹配的起点时
+ * 才报告该匹配并继续查找，所有正则都读取同一个带预算的字符序列
+ *
+ * 扫描器编译后不可变，可在多个线程间共享；匹配结果按出现位置排序
+ */
+final class MultiPatternScanner {
+    
+    // 自动机只处理ASCII字符，其他字符使状态回到根节点
+    private static final int ALPHABET = 128;
+    
+    private final List<NamedPattern> anchored = new ArrayList<>();
+    private final List<NamedPattern> unanchored = new ArrayList<>();
+    private final List<NamedPattern> standalone = new ArrayList<>();
+    
+    // Aho-Corasick自动机：完整的状态转移表，每个状态命中的模式下标及对应前缀长度
+    private int[][] transitions;
+    private int[][] outputs;
+    private int[][] anchorLengths;
+    
+    private Pattern combined;
+    
+    /**
+     * @param patterns 命名模式集合
+     */
+    MultiPatternScanner(List<NamedPattern> patterns) {
+        for (NamedPattern pattern : patterns) {
+            if (pattern.anchors.length > 0) {
+                anchored.add(pattern);
+            } else if (!isCombinable(pattern.pattern.pattern())) {
+                standalone.add(pattern);
+            } else {
+                unanchored.add(pattern);
+            }
+        }
+        buildAutomaton();
+        buildCombinedPattern();
+    }
+    
+    /**
+     * 扫描文本
+     * @param text 文本
+     * @return 按出现位置排序的匹配结果
+     * @throws BudgetedCharSequence.BudgetExceededException 正则匹配超出求值预算
+     */
+    List<ScanMatch> scan(CharSequence text) {
+        CharSequence budgeted = new BudgetedCharSequence(text);
+        List<ScanMatch> matches = new ArrayList<>();
+        List<Cursor> cursors = new ArrayList<>(standalone.size() + 1);
+        if (combined != null) {
+            cursors.add(new Cursor(combined.matcher(budgeted), unanchored, true));
+        }
+        for (NamedPattern pattern : standalone) {
+            cursors.add(new Cursor(pattern.pattern.matcher(budgeted), Collections.singletonList(pattern), false));
+        }
+        
+        if (!anchored.isEmpty()) {
+            Matcher[] matchers = new Matcher[anchored.size()];
+            // 每个模式上一次匹配的结束位置，避免在已匹配区间内重复报告
+            int[] nextAllowed = new int[anchored.size()];
+            int length = text.length();
+            int state = 0;
+            
+            for (int i = 0; i < length; i++) {
+                for (int k = 0; k < cursors.size(); k++) {
+                    cursors.get(k).reportUpTo(i, text, matches);
+                }
+                
+                char c = text.charAt(i);
+                state = c < ALPHABET ? transitions[state][c] : 0;
+                
+                int[] hits = outputs[state];
+                for (int h = 0; h < hits.length; h++) {
+                    int patternIndex = hits[h];
+                    int start = i - anchorLengths[state][h] + 1;
+                    if (start < nextAllowed[patternIndex]) {
+                        continue;
+                    }
+                    
+                    Matcher matcher = matchers[patternIndex];
+                    if (matcher == null) {
+                        matcher = anchored.get(patternIndex).pattern.matcher(budgeted);
+                        matcher.useTransparentBounds(true).useAnchoringBounds(false);
+                        matchers[patternIndex] = matcher;
+                    }
+                    matcher.region(start, length);
+                    if (matcher.lookingAt() && matcher.end() > start) {
+                        matches.add(new ScanMatch(anchored.get(patternIndex).name,
+                                text.subSequence(start, matcher.end()).toString(), start));
+                        nextAllowed[patternIndex] = matcher.end();
+                    }
+                }
+            }
+        }
+        for (Cursor cursor : cursors) {
+            cursor.reportUpTo(Integer.MAX_VALUE, text, matches);
+        }
+        
+        // 前缀长度不同的锚定命中可能比先报告的匹配起点更早，结果基本有序，稳定排序开销很小
+        matches.sort(Comparator.comparingInt(match -> match.start));
+        return matches;
+    }
+    
+    /**
+     * 判断模式能否合并进交替正则
+     * 反向引用（{@code \1}、{@code \k<name>}）和命名分组在合并后会引用到错误的分组或名称冲突
+     */
+    private static boolean isCombinable(String regex) {
+        for (int i = 0; i < regex.length() - 1; i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                char next = regex.charAt(i + 1);
+                if ((next >= '1' && next <= '9') || next == 'k') {
+                    return false;
+                }
+                // 跳过被转义的字符
+                i++;
+            } else if (c == '(' && regex.startsWith("?<", i + 1)
+                    && i + 3 < regex.length() && regex.charAt(i + 3) != '=' && regex.charAt(i + 3) != '!') {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * 构建Aho-Corasick自动机
+     * 先建字典树，再按广度优先计算失败链接，并把转移补全为确定自动机
+     */
+    private void buildAutomaton() {
+        List<int[]> gotoTable = new ArrayList<>();
+        List<List<int[]>> outputList = new ArrayList<>();
+        gotoTable.add(newRow());
+        outputList.add(new ArrayList<>());
+        
+        for (int p = 0; p < anchored.size(); p++) {
+            for (String anchor : anchored.get(p).anchors) {
+                int state = 0;
+                for (int i = 0; i < anchor.length(); i++) {
+                    char c = anchor.charAt(i);
+                    if (c >= ALPHABET) {
+                        throw new IllegalArgumentException("Anchor must be ASCII: " + anchor);
+                    }
+                    if (gotoTable.get(state)[c] < 0) {
+                        gotoTable.get(state)[c] = gotoTable.size();
+                        gotoTable.add(newRow());
+                        outputList.add(new ArrayList<>());
+                    }
+                    state = gotoTable.get(state)[c];
+                }
+                outputList.get(state).add(new int[]{p, anchor.length()});
+            }
+        }
+        
+        int stateCount = gotoTable.size();
+        int[] fail = new int[stateCount];
+        transitions = new int[stateCount][];
+        for (int s = 0; s < stateCount; s++) {
+            transitions[s] = gotoTable.get(s);
+        }
+        
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < ALPHABET; c++) {
+            int next = transitions[0][c];
+            if (next < 0) {
+                transitions[0][c] = 0;
+            } else {
+                fail[next] = 0;
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            // 继承失败状态的输出
+            outputList.get(state).addAll(outputList.get(fail[state]));
+            for (int c = 0; c < ALPHABET; c++) {
+                int next = transitions[state][c];
+                if (next < 0) {
+                    transitions[state][c] = transitions[fail[state]][c];
+                } else {
+                    fail[next] = transitions[fail[state]][c];
+                    queue.add(next);
+                }
+            }
+        }
+        
+        outputs = new int[stateCount][];
+        anchorLengths = new int[stateCount][];
+        for (int s = 0; s < stateCount; s++) {
+            List<int[]> entries = outputList.get(s);
+            outputs[s] = new int[entries.size()];
+            anchorLengths[s] = new int[entries.size()];
+            for (int e = 0; e < entries.size(); e++) {
+                outputs[s][e] = entries.get(e)[0];
+                anchorLengths[s][e] = entries.get(e)[1];
+            }
+        }
+    }
+    
+    private static int[] newRow() {
+        int[] row = new int[ALPHABET];
+        Arrays.fill(row, -1);
+        return row;
+    }
+    
+    /**
+     * 把非锚定模式合并为一个交替正则，每个模式占一个命名分组
+     */
+    private void buildCombinedPattern() {
+        if (unanchored.isEmpty()) {
+            return;
+        }
+        StringBuilder regex = new StringBuilder();
+        for (int p = 0; p < unanchored.size(); p++) {
+            if (p > 0) {
+                regex.append('|');
+            }
+            regex.append("(?<").append(groupName(p)).append('>')
+                 .append(unanchored.get(p).pattern.pattern()).append(')');
+        }
+        combined = Pattern.compile(regex.toString());
+    }
+    
+    private static String groupName(int index) {
+        return "bpaP" + index;
+    }
+    
+    /**
+     * 非锚定正则的查找游标，预先找好下一个匹配，扫描位置越过其起点时报告
+     */
+    private static final class Cursor {
+        private final Matcher matcher;
+        private final List<NamedPattern> patterns;
+        private final boolean grouped;
+        private boolean pending;
+        
+        /**
+         * @param matcher 正则匹配器
+         * @param patterns 匹配器对应的模式
+         * @param grouped 是否为合并后的交替正则（按命名分组区分模式）
+         */
+        Cursor(Matcher matcher, List<NamedPattern> patterns, boolean grouped) {
+            this.matcher = matcher;
+            this.patterns = patterns;
+            this.grouped = grouped;
+            this.pending = matcher.find();
+        }
+        
+        /**
+         * 报告起点不超过limit的匹配
+         */
+        void reportUpTo(int limit, CharSequence text, List<ScanMatch> matches) {
+            while (pending && matcher.start() <= limit) {
+                int start = matcher.start();
+                matches.add(new ScanMatch(nameOfMatch(), text.subSequence(start, matcher.end()).toString(), start));
+                pending = matcher.find();
+            }
+        }
+        
+        private String nameOfMatch() {
+            if (grouped) {
+                for (int p = 0; p < patterns.size(); p++) {
+                    if (matcher.start(groupName(p)) >= 0) {
+                        return patterns.get(p).name;
+                    }
+                }
+            }
+            return patterns.get(0).name;
+        }
+    }
+    
+    /**
+     * 命名模式
+     */
+    static final class NamedPattern {
+        final String name;
+        final Pattern pattern;
+        final String[] anchors;
+        
+        /**
+         * @param name 模式名称
+         * @param regex 正则表达式
+         * @param anchors 匹配必定以其中之一开头的字面前缀，为空表示非锚定模式
+         */
+        NamedPattern(String name, String regex, String... anchors) {
+            this.name = name;
+            this.pattern = Pattern.compile(regex);
+            this.anchors = anchors;
+        }
+    }
+    
+    /**
+     * 扫描匹配结果
+     */
+    static final class ScanMatch {
+        final String name;
+        final String value;
+        final int start;
+        
+        ScanMatch(String name, String value, int start) {
+            this.name = name;
+            this.value = value;
+            this.start = start;
+        }
+    }
+}
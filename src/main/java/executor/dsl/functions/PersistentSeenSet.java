@@ -0,0 +1,164 @@
+package executor.dsl.functions;
+
+import manager.ConfigManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按工具划分的持久化已处理集合
+ * 存放在 ~/.bparsenal/seen/ 目录下，每个工具一组Bloom过滤器文件（工具名.代数.bloom）
+ *
+ * 采用可扩展Bloom过滤器：每代容量固定，当前代写满后创建下一代，
+ * 第i代的误判率为 FALSE_POSITIVE_RATE / 2^i，总误判率不超过 2 × FALSE_POSITIVE_RATE，
+ * 不随插入个数增长；查询时依次检查所有代，只向最新一代插入
+ *
+ * 每个工具的集合在进程内只打开一次，打开后常驻，方法按实例同步
+ */
+final class PersistentSeenSet {
+    
+    // 每代设计容量
+    private static final long GENERATION_CAPACITY = 4_000_000L;
+    
+    // 第一代误判率
+    private static final double FALSE_POSITIVE_RATE = 1e-4;
+    
+    private static final String FILE_SUFFIX = ".bloom";
+    
+    private static final Map<String, PersistentSeenSet> openSets = new ConcurrentHashMap<>();
+    
+    private final Path directory;
+    private final String name;
+    private final long generationCapacity;
+    private final List<BloomFilterFile> generations = new ArrayList<>();
+    
+    /**
+     * 打开或创建目录中的集合
+     * @param directory 过滤器文件所在目录
+     * @param name 集合名称（已转换为安全的文件名）
+     * @param generationCapacity 每代设计容量
+     * @throws IOException 打开或创建过滤器文件失败
+     */
+    PersistentSeenSet(Path directory, String name, long generationCapacity) throws IOException {
+        this.directory = directory;
+        this.name = name;
+        this.generationCapacity = generationCapacity;
+        for (int i = 0; ; i++) {
+            Path file = generationFile(i);
+            if (!Files.exists(file)) {
+                break;
+            }
+            generations.add(BloomFilterFile.open(file));
+        }
+        if (generations.isEmpty()) {
+            addGeneration();
+        }
+    }
+    
+    /**
+     * 获取工具对应的集合
+     * @param tool 工具名称
+     * @return 集合
+     * @throws IOException 打开或创建过滤器文件失败
+     */
+    static PersistentSeenSet forTool(String tool) throws IOException {
+        String name = sanitize(tool);
+        PersistentSeenSet set = openSets.get(name);
+        if (set == null) {
+            synchronized (openSets) {
+                set = openSets.get(name);
+                if (set == null) {
+                    set = new PersistentSeenSet(Paths.get(ConfigManager.getUserDataDirectory(), "seen"), name,
+                        GENERATION_CAPACITY);
+                    openSets.put(name, set);
+                }
+            }
+        }
+        return set;
+    }
+    
+    /**
+     * 判断键是否已记录
+     * @param key 键
+     * @return 是否已记录（可能误判为已记录，不会误判为未记录）
+     */
+    synchronized boolean contains(String key) {
+        long h1 = hash(key, 0xcbf29ce484222325L);
+        long h2 = hash(key, 0x84222325cbf29ce4L) | 1;
+        return containsHash(h1, h2);
+    }
+    
+    /**
+     * 记录键
+     * @param key 键
+     * @return 键之前未记录时返回true
+     * @throws IOException 创建下一代过滤器文件失败
+     */
+    synchronized boolean add(String key) throws IOException {
+        long h1 = hash(key, 0xcbf29ce484222325L);
+        long h2 = hash(key, 0x84222325cbf29ce4L) | 1;
+        if (containsHash(h1, h2)) {
+            return false;
+        }
+        BloomFilterFile current = generations.get(generations.size() - 1);
+        if (current.isFull()) {
+            current.force();
+            current = addGeneration();
+        }
+        current.put(h1, h2);
+        return true;
+    }
+    
+    private boolean containsHash(long h1, long h2) {
+        for (BloomFilterFile generation : generations) {
+            if (generation.mightContain(h1, h2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private BloomFilterFile addGeneration() throws IOException {
+        int index = generations.size();
+        double rate = FALSE_POSITIVE_RATE / (1L << Math.min(index, 30));
+        BloomFilterFile generation = BloomFilterFile.create(generationFile(index), generationCapacity, rate);
+        generations.add(generation);
+        return generation;
+    }
+    
+    private Path generationFile(int index) {
+        return directory.resolve(name + "." + index + FILE_SUFFIX);
+    }
+    
+    /**
+     * 工具名称转换为安全的文件名
+     */
+    private static String sanitize(String tool) {
+        String name = tool.trim().toLowerCase().replaceAll("[^a-z0-9._-]", "_");
+        return name.isEmpty() ? "_" : name;
+    }
+    
+    /**
+     * 64位字符串哈希：以seed为初值逐字符FNV-1a累积，再做MurmurHash3 fmix64混合
+     */
+    static long hash(String key, long seed) {
+        long h = seed;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= key.length();
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
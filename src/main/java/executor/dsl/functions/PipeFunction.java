@@ -0,0 +1,117 @@
+package executor.dsl.functions;
+
+import executor.PipeFeeder;
+import executor.dsl.DslException;
+import executor.dsl.DslSequence;
+import executor.dsl.FunctionHandler;
+import executor.dsl.HttpContext;
+import executor.dsl.RenderScope;
+import manager.TempArtifactManager;
+import util.TempFileStore;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * pipe函数实现 - 通过命名管道把内容流式交给工具
+ * 用法: pipe(content)
+ * 示例:
+ * - nuclei -l %pipe(unique(httpList.requests.*.request.url))%
+ * - httpx -l %pipe(httpList.urls)%
+ *
+ * 返回命名管道（FIFO）路径，内容格式与tmpFile()相同（每行一项）；
+ * 命令启动时才创建管道，工具打开管道即开始读取，内容边生成边写入，不落盘
+ * 管道路径随机生成，只能被顺序读取一次：先检查路径是否为普通文件（如sqlmap -m）、
+ * 或多次打开同一路径的工具无法使用管道，需要改用tmpFile()
+ *
+ * 预览渲染只显示路径，不登记内容；不支持命名管道的系统（Windows）退化为写入临时文件。
+ * 复制渲染（见 {@link RenderScope#isCopy()}）同样写入临时文件：管道只在工具执行器启动命令时创建，
+ * 复制到别处执行的命令引用的管道永远不会存在
+ */
+public class PipeFunction implements FunctionHandler {
+    
+    private static final String PIPE_PREFIX = "bparsenal_pipe_";
+    private static final String FALLBACK_PREFIX = "bparsenal_tmp_";
+    private static final String FALLBACK_EXTENSION = ".txt";
+    
+    @Override
+    public Object execute(List<Object> args, HttpContext context) throws DslException {
+        if (args.size() != 1) {
+            throw new DslException("pipe() requires 1 argument: pipe(content)");
+        }
+        
+        return deliver(args.get(0)).toString();
+    }
+    
+    /**
+     * 准备内容投递
+     * @param input 内容
+     * @return 命名管道路径，不支持或复制渲染时为临时文件路径
+     * @throws DslException 创建失败
+     */
+    static Path deliver(Object input) throws DslException {
+        DslSequence lines = TmpFileFunction.convertToLines(input);
+        TempFileStore.ContentWriter writer = out -> TmpFileFunction.writeLines(out, lines.iterator());
+        Path directory = Paths.get(System.getProperty("java.io.tmpdir")).toAbsolutePath();
+        
+        boolean preview = RenderScope.isPreview();
+        if (PipeFeeder.isSupported() && !RenderScope.isCopy()) {
+            // 内容在命令启动后由投递线程生成，渲染时不遍历内容
+            return preview
+                ? PipeFeeder.newPipePath(directory, PIPE_PREFIX)
+                : PipeFeeder.offer(directory, PIPE_PREFIX, writer);
+        }
+        
+        try {
+            if (preview) {
+                return TempFileStore.locate(directory, FALLBACK_PREFIX, FALLBACK_EXTENSION, writer);
+            }
+            Path target = TempFileStore.store(directory, FALLBACK_PREFIX, FALLBACK_EXTENSION, writer);
+            TempArtifactManager.getInstance().track(target);
+            return target;
+        } catch (IOException e) {
+            throw new DslException("Failed to prepare pipe: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * 每次调用都会登记一个新的管道，不能在渲染中合并
+     */
+    @Override
+    public boolean isPure() {
+        return false;
+    }
+    
+    @Override
+    public List<ValueType> getArgumentTypes() {
+        return Arrays.asList(ValueType.ANY);
+    }
+    
+    @Override
+    public ValueType getReturnType() {
+        return ValueType.STRING;
+    }
+    
+    @Override
+    public Cost getCost() {
+        return Cost.IO;
+    }
+    
+    @Override
+    public String getName() {
+        return "pipe";
+    }
+    
+    @Override
+    public String getDescription() {
+        return "Stream content to the tool through a named pipe (temp file on Windows)";
+    }
+    
+    @Override
+    public String getUsage() {
+        return "pipe(content) - e.g. nuclei -l %pipe(httpList.urls)%";
+    }
+}
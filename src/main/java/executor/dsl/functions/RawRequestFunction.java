@@ -0,0 +1,124 @@
+package executor.dsl.functions;
+
+import burp.api.montoya.http.message.requests.HttpRequest;
+import executor.dsl.DslException;
+import executor.dsl.FunctionHandler;
+import executor.dsl.HttpContext;
+import executor.dsl.HttpRequestContext;
+import executor.dsl.HttpRequestResponsePair;
+import executor.dsl.RenderScope;
+import manager.TempArtifactManager;
+import util.TempFileStore;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * rawRequest函数实现 - 把完整的原始请求写入临时文件
+ * 用法: rawRequest(request)
+ * 示例:
+ * - sqlmap -r %rawRequest(http.request)% --batch
+ * - sqlmap -r %rawRequest(httpList.requests[0])% --batch
+ *
+ * 文件内容为Burp中请求的原始字节（请求行、Headers和Body），不经过字符串解码/编码，
+ * 二进制Body和大文件上传也能原样重放；文件按内容摘要命名，重复渲染时复用同一个文件
+ * 文件仅所有者可读写（请求中通常带有Cookie和Authorization）；预览渲染只计算文件名，不写入
+ */
+public class RawRequestFunction implements FunctionHandler {
+    
+    private static final String TEMP_PREFIX = "bparsenal_req_";
+    private static final String EXTENSION = ".txt";
+    
+    @Override
+    public Object execute(List<Object> args, HttpContext context) throws DslException {
+        if (args.size() != 1) {
+            throw new DslException("rawRequest() requires 1 argument: rawRequest(request)");
+        }
+        
+        HttpRequest request = sourceOf(args.get(0));
+        if (request == null) {
+            throw new DslException("rawRequest() requires an HTTP request, e.g. rawRequest(http.request); "
+                + "use rawRequests() for lists");
+        }
+        
+        try {
+            Path directory = Paths.get(System.getProperty("java.io.tmpdir"));
+            if (RenderScope.isPreview()) {
+                return TempFileStore.locate(directory, TEMP_PREFIX, EXTENSION, rawBytes(request))
+                    .toAbsolutePath().toString();
+            }
+            Path file = TempFileStore.store(directory, TEMP_PREFIX, EXTENSION, rawBytes(request));
+            TempArtifactManager.getInstance().track(file);
+            return file.toAbsolutePath().toString();
+        } catch (IOException e) {
+            throw new DslException("Failed to write raw request: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * 取得DSL值对应的Montoya请求
+     * @param value http.request、请求-响应对或Montoya请求
+     * @return Montoya请求，其他值返回null
+     */
+    static HttpRequest sourceOf(Object value) {
+        if (value instanceof HttpRequestContext) {
+            return ((HttpRequestContext) value).getSource();
+        }
+        if (value instanceof HttpRequestResponsePair) {
+            HttpRequestContext request = ((HttpRequestResponsePair) value).getRequest();
+            return request != null ? request.getSource() : null;
+        }
+        if (value instanceof HttpRequest) {
+            return (HttpRequest) value;
+        }
+        return null;
+    }
+    
+    /**
+     * 请求的原始字节（Montoya每次调用都会复制一份，调用方应只取一次）
+     */
+    static byte[] rawBytes(HttpRequest request) {
+        return request.toByteArray().getBytes();
+    }
+    
+    /**
+     * 每次调用都会创建文件，不能在渲染中合并
+     */
+    @Override
+    public boolean isPure() {
+        return false;
+    }
+    
+    @Override
+    public List<ValueType> getArgumentTypes() {
+        return Arrays.asList(ValueType.ANY);
+    }
+    
+    @Override
+    public ValueType getReturnType() {
+        return ValueType.STRING;
+    }
+    
+    @Override
+    public Cost getCost() {
+        return Cost.IO;
+    }
+    
+    @Override
+    public String getName() {
+        return "rawRequest";
+    }
+    
+    @Override
+    public String getDescription() {
+        return "Write the exact raw request bytes to a temporary file";
+    }
+    
+    @Override
+    public String getUsage() {
+        return "rawRequest(request) - e.g. sqlmap -r %rawRequest(http.request)%";
+    }
+}
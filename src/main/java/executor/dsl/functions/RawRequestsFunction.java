@@ -0,0 +1,198 @@
+package executor.dsl.functions;
+
+import burp.api.montoya.http.message.requests.HttpRequest;
+import executor.dsl.DslException;
+import executor.dsl.DslSequence;
+import executor.dsl.DslWorkers;
+import executor.dsl.FunctionHandler;
+import executor.dsl.HttpContext;
+import executor.dsl.HttpListContext;
+import executor.dsl.RenderScope;
+import manager.TempArtifactManager;
+import util.TempFileStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * rawRequests函数实现 - 把每个原始请求写入目录中的单独文件
+ * 用法: rawRequests(requests)
+ * 示例:
+ * - for f in %rawRequests(httpList.requests)%/*; do sqlmap -r "$f" --batch; done
+ * - %rawRequests(filter(httpList.requests, "request.method == 'POST'"))%
+ *
+ * 返回目录路径，目录中按选择顺序生成 request_001.txt、request_002.txt ...，
+ * 每个文件为对应请求的原始字节（与 {@link RawRequestFunction} 相同）
+ *
+ * 目录按所有请求的内容摘要命名：每个请求只取一次原始字节，同时计算摘要并写入暂存目录，
+ * 写完后整体原子重命名，工具不会看到写了一半的目录；目录已存在（内容相同）时复用已有目录并删除暂存目录
+ * 暂存目录和文件仅所有者可访问；预览渲染只计算目录名，不写入
+ */
+public class RawRequestsFunction implements FunctionHandler {
+    
+    private static final String TEMP_PREFIX = "bparsenal_reqs_";
+    private static final String FILE_PREFIX = "request_";
+    private static final String EXTENSION = ".txt";
+    
+    @Override
+    public Object execute(List<Object> args, HttpContext context) throws DslException {
+        if (args.size() != 1) {
+            throw new DslException("rawRequests() requires 1 argument: rawRequests(requests)");
+        }
+        
+        List<HttpRequest> requests = toRequests(args.get(0));
+        if (requests.isEmpty()) {
+            throw new DslException("rawRequests: no requests");
+        }
+        
+        try {
+            Path directory = Paths.get(System.getProperty("java.io.tmpdir")).toAbsolutePath();
+            if (RenderScope.isPreview()) {
+                return directory.resolve(TEMP_PREFIX + digestAll(requests)).toString();
+            }
+            Path target = writeAll(requests, directory);
+            TempArtifactManager.getInstance().track(target);
+            return target.toString();
+        } catch (IOException e) {
+            throw new DslException("Failed to write raw requests: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * 转换为Montoya请求列表
+     * 接受httpList、请求列表或单个请求，忽略空元素
+     */
+    private static List<HttpRequest> toRequests(Object input) throws DslException {
+        List<HttpRequest> requests = new ArrayList<>();
+        if (input instanceof HttpListContext) {
+            input = ((HttpListContext) input).getRequests();
+        }
+        
+        HttpRequest single = RawRequestFunction.sourceOf(input);
+        if (single != null) {
+            requests.add(single);
+            return requests;
+        }
+        
+        DslSequence sequence = DslSequence.asSequence(input);
+        if (sequence == null) {
+            throw new DslException("rawRequests() requires a list of HTTP requests, e.g. rawRequests(httpList.requests)");
+        }
+        for (Object item : sequence) {
+            if (item == null) {
+                continue;
+            }
+            HttpRequest request = RawRequestFunction.sourceOf(item);
+            if (request == null) {
+                throw new DslException("rawRequests: not an HTTP request: " + item.getClass().getSimpleName());
+            }
+            requests.add(request);
+        }
+        return requests;
+    }
+    
+    /**
+     * 并行计算每个请求的摘要，再对摘要序列计算目录摘要（不写入）
+     */
+    private static String digestAll(List<HttpRequest> requests) throws IOException {
+        String[] digests = new String[requests.size()];
+        try {
+            DslWorkers.parallelFor(0, digests.length, i -> {
+                try {
+                    digests[i] = TempFileStore.digest(RawRequestFunction.rawBytes(requests.get(i)));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return directoryDigest(digests);
+    }
+    
+    /**
+     * 在暂存目录中并行写入所有请求，同时计算摘要，完成后发布为按摘要命名的目标目录
+     * @return 目标目录
+     */
+    private static Path writeAll(List<HttpRequest> requests, Path directory) throws IOException {
+        Path staging = TempFileStore.createStagingDirectory(directory, TEMP_PREFIX);
+        String nameFormat = FILE_PREFIX + "%0" + Math.max(3, String.valueOf(requests.size()).length()) + "d" + EXTENSION;
+        String[] digests = new String[requests.size()];
+        boolean published = false;
+        try {
+            DslWorkers.parallelFor(0, requests.size(), i -> {
+                try {
+                    // 摘要和写入使用同一份字节
+                    byte[] content = RawRequestFunction.rawBytes(requests.get(i));
+                    digests[i] = TempFileStore.digest(content);
+                    TempFileStore.write(staging.resolve(String.format(nameFormat, i + 1)), content);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            Path target = directory.resolve(TEMP_PREFIX + directoryDigest(digests));
+            published = TempFileStore.publishDirectory(staging, target);
+            if (!published) {
+                // 目录已存在（内容相同），复用已有目录
+                TempFileStore.discardDirectory(staging);
+            }
+            return target;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            if (!published && Files.exists(staging)) {
+                // 写入或删除失败，暂存目录交给回收线程删除
+                TempArtifactManager.getInstance().track(staging);
+            }
+        }
+    }
+    
+    private static String directoryDigest(String[] digests) throws IOException {
+        return TempFileStore.digest(String.join("\n", digests).getBytes(StandardCharsets.US_ASCII));
+    }
+    
+    /**
+     * 每次调用都会创建目录，不能在渲染中合并
+     */
+    @Override
+    public boolean isPure() {
+        return false;
+    }
+    
+    @Override
+    public List<ValueType> getArgumentTypes() {
+        return Arrays.asList(ValueType.ANY);
+    }
+    
+    @Override
+    public ValueType getReturnType() {
+        return ValueType.STRING;
+    }
+    
+    @Override
+    public Cost getCost() {
+        return Cost.IO;
+    }
+    
+    @Override
+    public String getName() {
+        return "rawRequests";
+    }
+    
+    @Override
+    public String getDescription() {
+        return "Write each raw request to its own file in a temporary directory";
+    }
+    
+    @Override
+    public String getUsage() {
+        return "rawRequests(requests) - e.g. %rawRequests(httpList.requests)%";
+    }
+}
@@ -1,34 +1,45 @@
 package executor.dsl.functions;
 
+import executor.dsl.BodyContext;
 import executor.dsl.DslException;
 import executor.dsl.FunctionHandler;
 import executor.dsl.HttpContext;
+import executor.dsl.LruCache;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 /**
  * 正则表达式提取函数
  * 用法: regex(text, pattern[, group])
  * 示例: regex(http.response.body, "token=([^&]+)", 1)
+ * 
+ * 编译后的Pattern在所有渲染之间共享缓存；匹配过程受求值预算限制，
+ * 读取字符次数或耗时超出预算时中止匹配并报错，避免灾难性回溯拖住渲染
  */
 public class RegexFunction implements FunctionHandler {
     
+    private static final LruCache<String, Pattern> patternCache = new LruCache<>(512);
+    
     @Override
     public Object execute(List<Object> args, HttpContext context) throws DslException {
         if (args.size() < 2 || args.size() > 3) {
             throw new DslException("regex() requires 2-3 arguments: regex(text, pattern[, group])");
         }
         
-        String text = args.get(0) != null ? args.get(0).toString() : "";
+        Object input = args.get(0);
+        String text = input instanceof BodyContext ? ((BodyContext) input).getRaw()
+                    : input != null ? input.toString() : "";
         String patternStr = args.get(1).toString();
         int group = args.size() > 2 ? ((Number) args.get(2)).intValue() : 1;
         
         try {
-            Pattern pattern = Pattern.compile(patternStr);
-            Matcher matcher = pattern.matcher(text);
+            Pattern pattern = compile(patternStr);
+            Matcher matcher = pattern.matcher(new BudgetedCharSequence(text));
             
             List<String> matches = new ArrayList<>();
             while (matcher.find()) {
@@ -47,11 +58,35 @@ public class RegexFunction implements FunctionHandler {
             } else {
                 return matches;
             }
+        } catch (BudgetedCharSequence.BudgetExceededException e) {
+            throw new DslException("Regex extraction aborted: " + e.getMessage() + " (pattern: " + patternStr + ")", e);
         } catch (Exception e) {
             throw new DslException("Regex extraction failed: " + e.getMessage(), e);
         }
     }
     
+    /**
+     * 编译正则表达式（带缓存）
+     */
+    private static Pattern compile(String patternStr) throws PatternSyntaxException {
+        Pattern pattern = patternCache.get(patternStr);
+        if (pattern == null) {
+            pattern = Pattern.compile(patternStr);
+            patternCache.put(patternStr, pattern);
+        }
+        return pattern;
+    }
+    
+    @Override
+    public int getMinArgs() {
+        return 2;
+    }
+    
+    @Override
+    public List<ValueType> getArgumentTypes() {
+        return Arrays.asList(ValueType.ANY, ValueType.STRING, ValueType.NUMBER);
+    }
+    
     @Override
     public String getName() {
         return "regex";
@@ -67,4 +102,3 @@ public class RegexFunction implements FunctionHandler {
         return "regex(text, pattern[, group]) - Extract matching group (default: 1)";
     }
 }
-
@@ -0,0 +1,83 @@
+package executor.dsl.functions;
+
+import executor.dsl.DslException;
+import executor.dsl.FunctionHandler;
+import executor.dsl.HttpContext;
+import org.springframework.expression.Expression;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 排序函数
+ * 用法: sortBy(list[, "keyExpression"[, "asc"|"desc"]])
+ * 示例:
+ * - sortBy(httpList.urls)
+ * - sortBy(countBy(httpList.requests, "request.host"), "count", "desc")
+ *
+ * 每个元素的键只计算一次，稳定排序（键相同的元素保持原有顺序）
+ * 数字按数值比较，其他按自然顺序或字符串比较；键求值失败的元素排在最后
+ */
+public class SortByFunction implements FunctionHandler {
+    
+    @Override
+    public Object execute(List<Object> args, HttpContext context) throws DslException {
+        if (args.size() < 1 || args.size() > 3) {
+            throw new DslException("sortBy() requires 1-3 arguments: sortBy(list[, \"keyExpression\"[, order]])");
+        }
+        
+        Expression keyExpression = ElementKeys.compile("sortBy", args, 1);
+        boolean descending = ElementKeys.descending("sortBy", args, 2, false);
+        
+        List<Object[]> keyed = new ArrayList<>();
+        for (Object item : ElementKeys.sequence("sortBy", args.get(0))) {
+            keyed.add(new Object[]{ElementKeys.key(keyExpression, item), item});
+        }
+        
+        Comparator<Object> order = descending ? ElementKeys.KEY_ORDER.reversed() : ElementKeys.KEY_ORDER;
+        keyed.sort(Comparator.comparing(entry -> entry[0], Comparator.nullsLast(order)));
+        
+        List<Object> sorted = new ArrayList<>(keyed.size());
+        for (Object[] entry : keyed) {
+            sorted.add(entry[1]);
+        }
+        return sorted;
+    }
+    
+    @Override
+    public int getMinArgs() {
+        return 1;
+    }
+    
+    @Override
+    public List<ValueType> getArgumentTypes() {
+        return Arrays.asList(ValueType.LIST, ValueType.STRING, ValueType.STRING);
+    }
+    
+    @Override
+    public ValueType getReturnType() {
+        return ValueType.LIST;
+    }
+    
+    @Override
+    public Cost getCost() {
+        return Cost.HEAVY;
+    }
+    
+    @Override
+    public String getName() {
+        return "sortBy";
+    }
+    
+    @Override
+    public String getDescription() {
+        return "Sort list elements by a key expression";
+    }
+    
+    @Override
+    public String getUsage() {
+        return "sortBy(list[, \"keyExpression\"[, order]]) - order: asc(default) or desc";
+    }
+}
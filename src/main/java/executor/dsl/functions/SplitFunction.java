@@ -1,10 +1,12 @@
 package executor.dsl.functions;
 
 import executor.dsl.DslException;
+import executor.dsl.DslSequence;
 import executor.dsl.FunctionHandler;
 import executor.dsl.HttpContext;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -42,8 +44,9 @@ public class SplitFunction implements FunctionHandler {
         }
         
         // 处理列表输入
-        if (input instanceof List) {
-            return splitList((List<?>) input, delimiter);
+        DslSequence sequence = DslSequence.asSequence(input);
+        if (sequence != null) {
+            return splitSequence(sequence, delimiter);
         }
         
         // 其他类型转为字符串处理
@@ -71,20 +74,27 @@ public class SplitFunction implements FunctionHandler {
     }
     
     /**
-     * 切割列表中的每个字符串
+     * 惰性切割序列中的每个字符串
      */
-    private List<String> splitList(List<?> list, String delimiter) {
-        List<String> result = new ArrayList<>();
-        
-        for (Object item : list) {
-            if (item != null) {
-                String text = item.toString();
-                List<String> parts = splitString(text, delimiter);
-                result.addAll(parts);
-            }
-        }
-        
-        return result;
+    private DslSequence splitSequence(DslSequence sequence, String delimiter) {
+        return sequence
+            .filter(item -> item != null)
+            .flatMap(item -> splitString(item.toString(), delimiter));
+    }
+    
+    @Override
+    public int getMinArgs() {
+        return 1;
+    }
+    
+    @Override
+    public List<ValueType> getArgumentTypes() {
+        return Arrays.asList(ValueType.STRING, ValueType.STRING);
+    }
+    
+    @Override
+    public ValueType getReturnType() {
+        return ValueType.LIST;
     }
     
     @Override
@@ -0,0 +1,74 @@
+package executor.dsl.functions;
+
+import executor.dsl.DslException;
+import executor.dsl.FunctionHandler;
+import executor.dsl.HttpContext;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * stdin函数实现 - 把内容流式输入工具的标准输入
+ * 用法: stdin(content)
+ * 示例:
+ * - httpx -silent %stdin(httpList.hosts)%
+ * - nuclei -silent %stdin(unique(httpList.requests.*.request.url))%
+ *
+ * 渲染为从命名管道重定向的shell输入（&lt; 管道路径），投递方式与 {@link PipeFunction} 相同；
+ * Windows上和复制渲染时重定向自临时文件
+ */
+public class StdinFunction implements FunctionHandler {
+    
+    @Override
+    public Object execute(List<Object> args, HttpContext context) throws DslException {
+        if (args.size() != 1) {
+            throw new DslException("stdin() requires 1 argument: stdin(content)");
+        }
+        
+        Path source = PipeFunction.deliver(args.get(0));
+        String path = source.toString();
+        if (path.indexOf(' ') >= 0) {
+            path = "\"" + path + "\"";
+        }
+        return "< " + path;
+    }
+    
+    /**
+     * 每次调用都会登记一个新的管道，不能在渲染中合并
+     */
+    @Override
+    public boolean isPure() {
+        return false;
+    }
+    
+    @Override
+    public List<ValueType> getArgumentTypes() {
+        return Arrays.asList(ValueType.ANY);
+    }
+    
+    @Override
+    public ValueType getReturnType() {
+        return ValueType.STRING;
+    }
+    
+    @Override
+    public Cost getCost() {
+        return Cost.IO;
+    }
+    
+    @Override
+    public String getName() {
+        return "stdin";
+    }
+    
+    @Override
+    public String getDescription() {
+        return "Stream content into the tool's standard input";
+    }
+    
+    @Override
+    public String getUsage() {
+        return "stdin(content) - renders a shell redirect, e.g. httpx %stdin(httpList.hosts)%";
+    }
+}
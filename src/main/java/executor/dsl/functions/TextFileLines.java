@@ -0,0 +1,141 @@
+package executor.dsl.functions;
+
+import executor.dsl.DslSequence;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * 按行读取文本文件的惰性序列
+ * 按位置分块读取文件（FileChannel.read），每个迭代器复用一个读缓冲区，每次只解码当前一行
+ *
+ * 每次补充缓冲区时才打开文件、读完即关闭，迭代期间不持有文件句柄和内存映射：
+ * 文件可以随时被覆盖、截断或删除（Windows上也不会被锁定），截断后迭代在新的文件末尾结束
+ */
+final class TextFileLines {
+    
+    // 读缓冲区初始大小，单行超过时按需扩大
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    private TextFileLines() {
+    }
+    
+    /**
+     * 按行读取文件
+     * 支持\n和\r\n换行，跳过开头的UTF-8 BOM，末尾换行之后不产生空行
+     * @param path 文件路径
+     * @return 行序列，迭代中读取失败时抛出 {@link UncheckedIOException}
+     * @throws IOException 文件不存在或不是普通文件
+     */
+    static DslSequence read(Path path) throws IOException {
+        Path file = path.toAbsolutePath().normalize();
+        if (!Files.readAttributes(file, BasicFileAttributes.class).isRegularFile()) {
+            throw new IOException("Not a regular file: " + file);
+        }
+        return new DslSequence() {
+            @Override
+            public Iterator<Object> iterator() {
+                return new LineIterator(file);
+            }
+        };
+    }
+    
+    /**
+     * 行迭代器，缓冲区中 [start, limit) 为尚未返回的字节
+     */
+    private static final class LineIterator implements Iterator<Object> {
+        private final Path file;
+        private byte[] buffer = new byte[BUFFER_SIZE];
+        private int start;
+        private int limit;
+        private long filePosition;
+        private boolean endOfFile;
+        
+        LineIterator(Path file) {
+            this.file = file;
+        }
+        
+        @Override
+        public boolean hasNext() {
+            return start < limit || fill();
+        }
+        
+        @Override
+        public Object next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int scanned = start;
+            while (true) {
+                for (int i = scanned; i < limit; i++) {
+                    if (buffer[i] == '\n') {
+                        String line = decode(start, i);
+                        start = i + 1;
+                        return line;
+                    }
+                }
+                // 当前缓冲区中没有换行，补充后从未扫描的位置继续
+                scanned = limit - start;
+                if (!fill()) {
+                    String line = decode(start, limit);
+                    start = limit;
+                    return line;
+                }
+                scanned += start;
+            }
+        }
+        
+        private String decode(int from, int to) {
+            if (to > from && buffer[to - 1] == '\r') {
+                to--;
+            }
+            return new String(buffer, from, to - from, StandardCharsets.UTF_8);
+        }
+        
+        /**
+         * 把未返回的字节移到缓冲区开头，再从文件读取一块追加在后面
+         * @return 读到新数据时返回true
+         */
+        private boolean fill() {
+            if (endOfFile) {
+                return false;
+            }
+            if (start > 0) {
+                System.arraycopy(buffer, start, buffer, 0, limit - start);
+                limit -= start;
+                start = 0;
+            }
+            if (limit == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            
+            int read;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                read = channel.read(ByteBuffer.wrap(buffer, limit, buffer.length - limit), filePosition);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (read <= 0) {
+                endOfFile = true;
+                return false;
+            }
+            if (filePosition == 0 && read >= 3
+                    && buffer[0] == (byte) 0xEF && buffer[1] == (byte) 0xBB && buffer[2] == (byte) 0xBF) {
+                start = 3;
+            }
+            filePosition += read;
+            limit += read;
+            return start < limit || fill();
+        }
+    }
+}
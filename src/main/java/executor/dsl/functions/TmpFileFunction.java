@@ -1,13 +1,24 @@
 package executor.dsl.functions;
 
+import executor.dsl.BinaryValue;
 import executor.dsl.FunctionHandler;
 import executor.dsl.HttpContext;
+import executor.dsl.RenderScope;
 import executor.dsl.DslException;
+import executor.dsl.DslSequence;
+import manager.TempArtifactManager;
+import util.TempFileStore;
 
-import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -21,19 +32,44 @@ import java.util.List;
  * - %tmpFile(http.request.body.raw, 'txt')% - 将请求体保存到临时.txt文件
  * - %tmpFile(httpList.requests.*.request.url, 'txt')% - 将URL列表保存到临时文件
  * - %tmpFile(http.request.headers.*, 'txt')% - 将所有请求头保存到临时文件
+ * 
+ * 文件按内容摘要命名（见 {@link TempFileStore}），重复渲染相同内容时复用同一个文件；预览渲染只计算文件名，不写入
  */
 public class TmpFileFunction implements FunctionHandler {
     
     private static final String TEMP_PREFIX = "bparsenal_tmp_";
     
+    @Override
+    public List<ValueType> getArgumentTypes() {
+        return Arrays.asList(ValueType.ANY, ValueType.STRING);
+    }
+    
+    @Override
+    public ValueType getReturnType() {
+        return ValueType.STRING;
+    }
+    
+    @Override
+    public Cost getCost() {
+        return Cost.IO;
+    }
+    
     @Override
     public String getName() {
         return "tmpFile";
     }
     
+    /**
+     * 每次调用都会创建文件，不能在渲染中合并
+     */
+    @Override
+    public boolean isPure() {
+        return false;
+    }
+    
     @Override
     public String getDescription() {
-        return "Create temporary file with content (auto-deleted on exit)";
+        return "Create temporary file with content (reclaimed when idle)";
     }
     
     @Override
@@ -51,85 +87,94 @@ public class TmpFileFunction implements FunctionHandler {
         
         try {
             // 处理输入内容
-            List<String> lines = convertToLines(input);
+            Iterator<Object> lines = convertToLines(input).iterator();
             
-            if (lines.isEmpty()) {
+            if (!lines.hasNext()) {
                 throw new DslException("tmpFile: content is empty");
             }
             
-            // 创建临时文件
-            File tempFile = createTempFile(extension);
-            tempFile.deleteOnExit();
-            
-            // 写入内容
-            writeLinesToFile(tempFile, lines);
+            Path directory = Paths.get(System.getProperty("java.io.tmpdir"));
+            if (RenderScope.isPreview()) {
+                // 预览只计算文件名，执行时才写入
+                return TempFileStore.locate(directory, TEMP_PREFIX, extension, out -> writeLines(out, lines))
+                    .toAbsolutePath().toString();
+            }
             
-            return tempFile.getAbsolutePath();
+            // 写入按内容命名的临时文件，内容相同时复用已有文件
+            Path tempFile = TempFileStore.store(directory, TEMP_PREFIX, extension, out -> writeLines(out, lines));
+            TempArtifactManager.getInstance().track(tempFile);
             
+            return tempFile.toAbsolutePath().toString();
+        
         } catch (IOException e) {
             throw new DslException("Failed to create temporary file: " + e.getMessage(), e);
         }
     }
     
     /**
-     * 将输入转换为行列表
+     * 将输入转换为行序列
+     * 列表和序列逐项输出，不在内存中生成中间列表
      */
-    private List<String> convertToLines(Object input) {
-        List<String> lines = new ArrayList<>();
-        
+    static DslSequence convertToLines(Object input) {
         if (input == null) {
-            return lines;
+            return DslSequence.of(Collections.emptyList());
         }
         
-        if (input instanceof List) {
+        DslSequence sequence = DslSequence.asSequence(input);
+        if (sequence != null) {
             // 如果是列表，逐项添加
-            for (Object item : (List<?>) input) {
-                if (item != null) {
-                    lines.add(item.toString());
-                }
-            }
-        } else if (input instanceof String) {
+            return sequence.filter(item -> item != null);
+        }
+        
+        if (input instanceof String) {
             // 如果是字符串，直接添加
             String content = (String) input;
-            if (!content.isEmpty()) {
-                lines.add(content);
-            }
-        } else {
-            // 其他类型转为字符串
-            lines.add(input.toString());
+            return DslSequence.of(content.isEmpty()
+                ? Collections.emptyList()
+                : Collections.singletonList(content));
         }
         
-        return lines;
-    }
-    
-    /**
-     * 创建临时文件
-     */
-    private File createTempFile(String extension) throws IOException {
-        // 获取临时目录
-        String tempDir = System.getProperty("java.io.tmpdir");
-        
-        // 创建唯一的临时文件名
-        String fileName = TEMP_PREFIX + System.currentTimeMillis() + "_" + 
-                         Thread.currentThread().getId() + extension;
-        
-        File tempFile = new File(tempDir, fileName);
+        if (input instanceof BinaryValue) {
+            // 二进制值在写入时按字节流式输出
+            BinaryValue binary = (BinaryValue) input;
+            return DslSequence.of(binary.isEmpty()
+                ? Collections.emptyList()
+                : Collections.singletonList(binary));
+        }
         
-        // 确保文件不存在
-        if (tempFile.exists()) {
-            tempFile.delete();
+        if (input instanceof DslSequence.Joined) {
+            // 连接结果在写入时流式输出
+            DslSequence.Joined joined = (DslSequence.Joined) input;
+            return DslSequence.of(joined.isEmpty()
+                ? Collections.emptyList()
+                : Collections.singletonList(joined));
         }
         
-        return tempFile;
+        // 其他类型转为字符串
+        return DslSequence.of(Collections.singletonList(input.toString()));
     }
     
     /**
-     * 写入行到文件
+     * 写入行到输出流
+     * 二进制值按原始字节写入，之后只在还有后续内容时才写入换行
      */
-    private void writeLinesToFile(File file, List<String> lines) throws IOException {
-        try (FileWriter writer = new FileWriter(file)) {
-            for (String line : lines) {
-                writer.write(line);
+    static void writeLines(OutputStream out, Iterator<Object> lines) throws IOException {
+        try (Writer writer = new OutputStreamWriter(out, Charset.defaultCharset())) {
+            while (lines.hasNext()) {
+                Object line = lines.next();
+                if (line instanceof BinaryValue) {
+                    writer.flush();
+                    ((BinaryValue) line).writeTo(out);
+                    if (lines.hasNext()) {
+                        writer.write(System.lineSeparator());
+                    }
+                    continue;
+                }
+                if (line instanceof DslSequence.Joined) {
+                    ((DslSequence.Joined) line).appendTo(writer);
+                } else {
+                    writer.write(line.toString());
+                }
                 writer.write(System.lineSeparator());
             }
         }
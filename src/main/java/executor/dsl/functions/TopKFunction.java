@@ -0,0 +1,129 @@
+package executor.dsl.functions;
+
+import executor.dsl.DslException;
+import executor.dsl.FunctionHandler;
+import executor.dsl.HttpContext;
+import org.springframework.expression.Expression;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 前K项函数
+ * 用法: topK(list, k) 或 topK(list, "keyExpression", k[, "desc"|"asc"])
+ * 示例:
+ * - topK(countBy(httpList.requests, "request.path"), "count", 20)
+ * - topK(httpList.requests, "response.body.length", 10, "asc")
+ *
+ * 用容量为k的堆单遍扫描，时间O(n log k)，额外内存O(k)
+ * 默认取键最大的k项（desc），结果按排名排序，键相同时先出现的元素优先；键求值失败的元素被忽略
+ */
+public class TopKFunction implements FunctionHandler {
+    
+    @Override
+    public Object execute(List<Object> args, HttpContext context) throws DslException {
+        if (args.size() < 2 || args.size() > 4) {
+            throw new DslException("topK() requires 2-4 arguments: topK(list[, \"keyExpression\"], k[, order])");
+        }
+        
+        // topK(list, k) 以元素本身为键
+        boolean elementKey = args.size() == 2;
+        Expression keyExpression = elementKey ? null : ElementKeys.compile("topK", args, 1);
+        int k = parseK(args.get(elementKey ? 1 : 2));
+        boolean descending = ElementKeys.descending("topK", args, 3, true);
+        
+        Comparator<Object> keyOrder = descending ? ElementKeys.KEY_ORDER.reversed() : ElementKeys.KEY_ORDER;
+        Comparator<Ranked> rank = Comparator.<Ranked, Object>comparing(ranked -> ranked.key, keyOrder)
+            .thenComparingLong(ranked -> ranked.sequence);
+        
+        // 堆顶是当前排名最差的一项
+        PriorityQueue<Ranked> heap = new PriorityQueue<>(Math.max(1, k), rank.reversed());
+        long sequence = 0;
+        for (Object item : ElementKeys.sequence("topK", args.get(0))) {
+            Object key = ElementKeys.key(keyExpression, item);
+            if (key == null || k == 0) {
+                continue;
+            }
+            Ranked candidate = new Ranked(key, item, sequence++);
+            if (heap.size() < k) {
+                heap.add(candidate);
+            } else if (rank.compare(candidate, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(candidate);
+            }
+        }
+        
+        List<Ranked> ranked = new ArrayList<>(heap);
+        ranked.sort(rank);
+        List<Object> result = new ArrayList<>(ranked.size());
+        for (Ranked entry : ranked) {
+            result.add(entry.item);
+        }
+        return result;
+    }
+    
+    private static int parseK(Object value) {
+        try {
+            int k = value instanceof Number ? ((Number) value).intValue() : Integer.parseInt(String.valueOf(value).trim());
+            if (k < 0) {
+                throw new DslException("topK() k must not be negative");
+            }
+            return k;
+        } catch (NumberFormatException e) {
+            throw new DslException("topK() k must be an integer: " + value, e);
+        }
+    }
+    
+    @Override
+    public int getMinArgs() {
+        return 2;
+    }
+    
+    @Override
+    public List<ValueType> getArgumentTypes() {
+        return Arrays.asList(ValueType.LIST, ValueType.ANY, ValueType.ANY, ValueType.STRING);
+    }
+    
+    @Override
+    public ValueType getReturnType() {
+        return ValueType.LIST;
+    }
+    
+    @Override
+    public Cost getCost() {
+        return Cost.HEAVY;
+    }
+    
+    @Override
+    public String getName() {
+        return "topK";
+    }
+    
+    @Override
+    public String getDescription() {
+        return "Select the k elements with the largest (or smallest) key";
+    }
+    
+    @Override
+    public String getUsage() {
+        return "topK(list[, \"keyExpression\"], k[, order]) - order: desc(default) or asc";
+    }
+    
+    /**
+     * 堆中的元素及其键和出现序号
+     */
+    private static final class Ranked {
+        private final Object key;
+        private final Object item;
+        private final long sequence;
+        
+        Ranked(Object key, Object item, long sequence) {
+            this.key = key;
+            this.item = item;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package executor.dsl.functions;
+
+import executor.dsl.DslException;
+import executor.dsl.DslSequence;
+import executor.dsl.FunctionHandler;
+import executor.dsl.HttpContext;
+import executor.dsl.HttpRequestContext;
+import executor.dsl.HttpRequestResponsePair;
+import executor.dsl.ParameterContext;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 端点去重函数
+ * 用法: uniqueEndpoints(list[, paramScope])
+ * 示例:
+ * - uniqueEndpoints(httpList.requests)
+ * - map(uniqueEndpoints(httpList.requests, "url"), "request.url")
+ * - uniqueEndpoints(httpList.urls, "none")
+ *
+ * 按端点去重，每个端点保留首次出现的元素。端点的规范形式由以下部分组成：
+ * - 大写的请求方法、小写的主机名、端口
+ * - 路径模板：纯数字段替换为{n}，UUID段替换为{uuid}，16位以上含数字的十六进制段替换为{hex}
+ * - 参数名称（不含参数值），排序后参与比较
+ *
+ * paramScope指定参与比较的参数类型：url、body、cookie的逗号组合，all或none，默认url,body
+ * 列表元素可以是请求-响应对、请求或URL字符串（URL字符串没有方法和Body参数）
+ *
+ * 规范形式直接计算为64位哈希，只保存哈希值，10万个端点约占用2MB；
+ * 哈希在线程池上分块并行计算，返回惰性序列
+ */
+public class UniqueEndpointsFunction implements FunctionHandler {
+    
+    // 列表输入每块并行计算的元素数
+    private static final int PARALLEL_CHUNK_SIZE = 64;
+    
+    private static final int SCOPE_URL = 1;
+    private static final int SCOPE_BODY = 2;
+    private static final int SCOPE_COOKIE = 4;
+    
+    @Override
+    public Object execute(List<Object> args, HttpContext context) throws DslException {
+        if (args.size() < 1 || args.size() > 2) {
+            throw new DslException("uniqueEndpoints() requires 1-2 arguments: uniqueEndpoints(list[, paramScope])");
+        }
+        
+        DslSequence sequence = DslSequence.asSequence(args.get(0));
+        if (sequence == null) {
+            throw new DslException("uniqueEndpoints() first argument must be a list");
+        }
+        int scope = args.size() > 1 ? parseScope(args.get(1)) : SCOPE_URL | SCOPE_BODY;
+        
+        DslSequence keyed = sequence.parallelMap(item -> new Keyed(endpointKey(item, scope), item), PARALLEL_CHUNK_SIZE);
+        return new DslSequence() {
+            @Override
+            public Iterator<Object> iterator() {
+                LongHashSet seen = new LongHashSet();
+                return keyed
+                    .filter(item -> ((Keyed) item).valid && seen.add(((Keyed) item).key))
+                    .map(item -> ((Keyed) item).item)
+                    .iterator();
+            }
+        };
+    }
+    
+    /**
+     * 解析参数范围
+     */
+    private static int parseScope(Object value) {
+        if (value == null) {
+            throw new DslException("uniqueEndpoints() paramScope must not be null");
+        }
+        int scope = 0;
+        for (String part : value.toString().toLowerCase().split(",")) {
+            switch (part.trim()) {
+                case "url":
+                    scope |= SCOPE_URL;
+                    break;
+                case "body":
+                    scope |= SCOPE_BODY;
+                    break;
+                case "cookie":
+                    scope |= SCOPE_COOKIE;
+                    break;
+                case "all":
+                    scope |= SCOPE_URL | SCOPE_BODY | SCOPE_COOKIE;
+                    break;
+                case "none":
+                case "":
+                    break;
+                default:
+                    throw new DslException("uniqueEndpoints() invalid paramScope: " + part.trim()
+                            + ". Use url, body, cookie, all or none");
+            }
+        }
+        return scope;
+    }
+    
+    /**
+     * 计算元素的端点哈希
+     * @return 端点哈希，元素为null时返回0
+     */
+    private static long endpointKey(Object item, int scope) {
+        if (item == null) {
+            return 0;
+        }
+        HttpRequestContext request = null;
+        if (item instanceof HttpRequestResponsePair) {
+            request = ((HttpRequestResponsePair) item).getRequest();
+        } else if (item instanceof HttpRequestContext) {
+            request = (HttpRequestContext) item;
+        }
+        
+        EndpointHasher hasher = new EndpointHasher();
+        if (request != null) {
+            hasher.text(request.getMethod() != null ? request.getMethod().toUpperCase() : "");
+            hasher.text(request.getHost() != null ? request.getHost().toLowerCase() : "");
+            hasher.number(request.getPort());
+            hasher.pathTemplate(stripQuery(request.getPath()));
+            if (scope != 0) {
+                ParameterContext params = request.getParams();
+                hasher.names((scope & SCOPE_URL) != 0 ? params.getUrl().keySet() : null);
+                hasher.names((scope & SCOPE_BODY) != 0 ? params.getBody().keySet() : null);
+                hasher.names((scope & SCOPE_COOKIE) != 0 ? params.getCookie().keySet() : null);
+            }
+            return hasher.finish();
+        }
+        
+        // URL字符串
+        String url = item.toString();
+        try {
+            URI uri = URI.create(url.trim());
+            int port = uri.getPort();
+            if (port < 0) {
+                port = "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+            }
+            hasher.text("");
+            hasher.text(uri.getHost() != null ? uri.getHost().toLowerCase() : "");
+            hasher.number(port);
+            hasher.pathTemplate(uri.getRawPath() != null ? uri.getRawPath() : "");
+            if ((scope & SCOPE_URL) != 0) {
+                hasher.names(queryNames(uri.getRawQuery()));
+            }
+        } catch (IllegalArgumentException e) {
+            // 无法解析的字符串按原文比较
+            hasher.text(url);
+        }
+        return hasher.finish();
+    }
+    
+    private static String stripQuery(String path) {
+        if (path == null) {
+            return "";
+        }
+        int query = path.indexOf('?');
+        return query >= 0 ? path.substring(0, query) : path;
+    }
+    
+    private static List<String> queryNames(String query) {
+        List<String> names = new ArrayList<>();
+        if (query == null || query.isEmpty()) {
+            return names;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals >= 0 ? pair.substring(0, equals) : pair;
+            if (!name.isEmpty()) {
+                names.add(name);
+            }
+        }
+        return names;
+    }
+    
+    @Override
+    public int getMinArgs() {
+        return 1;
+    }
+    
+    @Override
+    public List<ValueType> getArgumentTypes() {
+        return Arrays.asList(ValueType.LIST, ValueType.STRING);
+    }
+    
+    @Override
+    public ValueType getReturnType() {
+        return ValueType.LIST;
+    }
+    
+    @Override
+    public Cost getCost() {
+        return Cost.HEAVY;
+    }
+    
+    @Override
+    public String getName() {
+        return "uniqueEndpoints";
+    }
+    
+    @Override
+    public String getDescription() {
+        return "Keep one request per normalized endpoint (method, host, port, path template, parameter names)";
+    }
+    
+    @Override
+    public String getUsage() {
+        return "uniqueEndpoints(list[, paramScope]) - paramScope: url,body(default), cookie, all or none";
+    }
+    
+    /**
+     * 元素及其端点哈希
+     */
+    private static final class Keyed {
+        private final long key;
+        private final boolean valid;
+        private final Object item;
+        
+        Keyed(long key, Object item) {
+            this.key = key;
+            this.valid = item != null;
+            this.item = item;
+        }
+    }
+    
+    /**
+     * 端点规范形式的64位哈希
+     * 逐字符FNV-1a累积，字段之间插入分隔值，结束时做一次混合使低位分布均匀
+     */
+    private static final class EndpointHasher {
+        private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+        private static final long FNV_PRIME = 0x100000001b3L;
+        private static final char FIELD_SEPARATOR = '\u0000';
+        
+        private long hash = FNV_OFFSET;
+        
+        void text(CharSequence value) {
+            for (int i = 0; i < value.length(); i++) {
+                mix(value.charAt(i));
+            }
+            mix(FIELD_SEPARATOR);
+        }
+        
+        void number(int value) {
+            mix(value >>> 16);
+            mix(value & 0xffff);
+            mix(FIELD_SEPARATOR);
+        }
+        
+        /**
+         * 按段累积路径模板，可变段替换为占位符
+         */
+        void pathTemplate(String path) {
+            int start = 0;
+            int length = path.length();
+            while (start <= length) {
+                int end = path.indexOf('/', start);
+                if (end < 0) {
+                    end = length;
+                }
+                String placeholder = placeholder(path, start, end);
+                if (placeholder != null) {
+                    text(placeholder);
+                } else {
+                    for (int i = start; i < end; i++) {
+                        mix(path.charAt(i));
+                    }
+                    mix('/');
+                }
+                start = end + 1;
+            }
+            mix(FIELD_SEPARATOR);
+        }
+        
+        /**
+         * 参数名称排序去重后累积
+         */
+        void names(Collection<String> names) {
+            if (names != null && !names.isEmpty()) {
+                String[] sorted = names.toArray(new String[0]);
+                Arrays.sort(sorted);
+                String previous = null;
+                for (String name : sorted) {
+                    if (!name.equals(previous)) {
+                        text(name);
+                    }
+                    previous = name;
+                }
+            }
+            mix(FIELD_SEPARATOR);
+        }
+        
+        long finish() {
+            // MurmurHash3 fmix64
+            long h = hash;
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+        
+        private void mix(int c) {
+            hash ^= c;
+            hash *= FNV_PRIME;
+        }
+        
+        /**
+         * 判断路径段是否为可变段
+         * @return 占位符，不是可变段时返回null
+         */
+        private static String placeholder(String path, int start, int end) {
+            int length = end - start;
+            if (length == 0) {
+                return null;
+            }
+            boolean digits = true;
+            boolean hex = true;
+            boolean hasDigit = false;
+            for (int i = start; i < end; i++) {
+                char c = path.charAt(i);
+                boolean isDigit = c >= '0' && c <= '9';
+                hasDigit |= isDigit;
+                digits &= isDigit;
+                hex &= isDigit || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+            }
+            if (digits) {
+                return "{n}";
+            }
+            if (length == 36 && isUuid(path, start)) {
+                return "{uuid}";
+            }
+            if (hex && hasDigit && length >= 16) {
+                return "{hex}";
+            }
+            return null;
+        }
+        
+        private static boolean isUuid(String path, int start) {
+            for (int i = 0; i < 36; i++) {
+                char c = path.charAt(start + i);
+                if (i == 8 || i == 13 || i == 18 || i == 23) {
+                    if (c != '-') {
+                        return false;
+                    }
+                } else if (Character.digit(c, 16) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -1,11 +1,12 @@
 package executor.dsl.functions;
 
 import executor.dsl.DslException;
+import executor.dsl.DslSequence;
 import executor.dsl.FunctionHandler;
 import executor.dsl.HttpContext;
 
+import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * 去重函数
@@ -22,14 +23,27 @@ public class UniqueFunction implements FunctionHandler {
         
         Object collection = args.get(0);
         
-        if (!(collection instanceof List)) {
+        DslSequence sequence = DslSequence.asSequence(collection);
+        if (sequence == null) {
             return collection;
         }
         
-        List<?> list = (List<?>) collection;
-        return list.stream()
-            .distinct()
-            .collect(Collectors.toList());
+        return sequence.distinct();
+    }
+    
+    @Override
+    public List<ValueType> getArgumentTypes() {
+        return Arrays.asList(ValueType.LIST);
+    }
+    
+    @Override
+    public ValueType getReturnType() {
+        return ValueType.LIST;
+    }
+    
+    @Override
+    public Cost getCost() {
+        return Cost.HEAVY;
     }
     
     @Override
@@ -0,0 +1,148 @@
+package executor.dsl.functions;
+
+import executor.dsl.DslException;
+import executor.dsl.DslSequence;
+import executor.dsl.FunctionHandler;
+import executor.dsl.HttpContext;
+import executor.dsl.HttpRequestContext;
+import executor.dsl.HttpRequestResponsePair;
+import executor.dsl.RenderScope;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 增量过滤函数：只输出从未交给指定工具处理过的元素
+ * 用法: unseen(list, tool[, mode])
+ * 示例:
+ * - sqlmap -m %tmpFile(unseen(unique(httpList.requests.*.request.url), "sqlmap"), 'txt')%
+ * - nuclei -l %tmpFile(map(unseen(httpList.requests, "nuclei"), "request.url"), 'txt')%
+ *
+ * 已输出的元素按工具持久化记录在 ~/.bparsenal/seen/ 下的内存映射Bloom过滤器中，跨会话保留；
+ * 误判率固定（约万分之二），误判只会导致少量新元素被跳过，不会重复输出
+ * 请求-响应对和请求按"方法 URL"记录，其他元素按字符串形式记录
+ *
+ * mode: record（默认，输出的同时记录）或 peek（只过滤不记录）
+ * 返回惰性序列，首次遍历时记录，之后重复遍历得到相同结果
+ * 预览渲染和复制渲染（见 {@link RenderScope#isPreview()}、{@link RenderScope#isCopy()}）中record模式只过滤不记录，
+ * 只有工具执行器真正启动命令时才记录
+ */
+public class UnseenFunction implements FunctionHandler {
+    
+    @Override
+    public Object execute(List<Object> args, HttpContext context) throws DslException {
+        if (args.size() < 2 || args.size() > 3) {
+            throw new DslException("unseen() requires 2-3 arguments: unseen(list, tool[, mode])");
+        }
+        
+        DslSequence sequence = DslSequence.asSequence(args.get(0));
+        if (sequence == null) {
+            throw new DslException("unseen() first argument must be a list");
+        }
+        if (args.get(1) == null || args.get(1).toString().trim().isEmpty()) {
+            throw new DslException("unseen() tool name must not be empty");
+        }
+        String mode = args.size() > 2 && args.get(2) != null ? args.get(2).toString().toLowerCase() : "record";
+        if (!"record".equals(mode) && !"peek".equals(mode)) {
+            throw new DslException("Invalid mode: " + mode + ". Use 'record' or 'peek'");
+        }
+        
+        PersistentSeenSet seen;
+        try {
+            seen = PersistentSeenSet.forTool(args.get(1).toString());
+        } catch (IOException e) {
+            throw new DslException("unseen() failed to open seen-set: " + e.getMessage(), e);
+        }
+        
+        if ("peek".equals(mode)) {
+            return sequence.filter(item -> item != null && !seen.contains(key(item)));
+        }
+        if (RenderScope.isPreview() || RenderScope.isCopy()) {
+            // 与记录模式输出相同的元素：序列内重复的元素只输出一次
+            Set<String> previewed = new HashSet<>();
+            return sequence
+                .filter(item -> {
+                    if (item == null) {
+                        return false;
+                    }
+                    String key = key(item);
+                    return !seen.contains(key) && previewed.add(key);
+                })
+                .memoize();
+        }
+        return sequence
+            .filter(item -> item != null && record(seen, key(item)))
+            .memoize();
+    }
+    
+    private static boolean record(PersistentSeenSet seen, String key) {
+        try {
+            return seen.add(key);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * 元素的记录键
+     */
+    private static String key(Object item) {
+        HttpRequestContext request = null;
+        if (item instanceof HttpRequestResponsePair) {
+            request = ((HttpRequestResponsePair) item).getRequest();
+        } else if (item instanceof HttpRequestContext) {
+            request = (HttpRequestContext) item;
+        }
+        if (request != null) {
+            return request.getMethod() + " " + request.getUrl();
+        }
+        return item.toString();
+    }
+    
+    /**
+     * 每次调用都会读写持久化状态，不能在渲染中合并
+     */
+    @Override
+    public boolean isPure() {
+        return false;
+    }
+    
+    @Override
+    public int getMinArgs() {
+        return 2;
+    }
+    
+    @Override
+    public List<ValueType> getArgumentTypes() {
+        return Arrays.asList(ValueType.LIST, ValueType.STRING, ValueType.STRING);
+    }
+    
+    @Override
+    public ValueType getReturnType() {
+        return ValueType.LIST;
+    }
+    
+    @Override
+    public Cost getCost() {
+        return Cost.IO;
+    }
+    
+    @Override
+    public String getName() {
+        return "unseen";
+    }
+    
+    @Override
+    public String getDescription() {
+        return "Keep only elements never sent to the given tool before (persistent across sessions)";
+    }
+    
+    @Override
+    public String getUsage() {
+        return "unseen(list, tool[, mode]) - mode: record(default) or peek";
+    }
+}
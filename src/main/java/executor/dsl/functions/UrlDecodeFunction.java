@@ -1,17 +1,19 @@
 package executor.dsl.functions;
 
+import executor.dsl.BinaryValue;
 import executor.dsl.DslException;
 import executor.dsl.FunctionHandler;
 import executor.dsl.HttpContext;
 
-import java.net.URLDecoder;
-import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * URL解码函数
  * 用法: urldecode(data)
  * 示例: urldecode(http.request.query)
+ * 
+ * 按字节解码：Body使用原始字节，字符串按UTF-8编码，结果与UTF-8的URL解码一致
  */
 public class UrlDecodeFunction implements FunctionHandler {
     
@@ -21,13 +23,17 @@ public class UrlDecodeFunction implements FunctionHandler {
             throw new DslException("urldecode() requires 1 argument: urldecode(data)");
         }
         
-        String data = args.get(0) != null ? args.get(0).toString() : "";
-        
-        try {
-            return URLDecoder.decode(data, StandardCharsets.UTF_8.toString());
-        } catch (Exception e) {
-            throw new DslException("URL decode failed: " + e.getMessage(), e);
-        }
+        return BinaryValue.from(args.get(0)).transform(ByteCodecs::urlDecode);
+    }
+    
+    @Override
+    public List<ValueType> getArgumentTypes() {
+        return Arrays.asList(ValueType.ANY);
+    }
+    
+    @Override
+    public ValueType getReturnType() {
+        return ValueType.BINARY;
     }
     
     @Override
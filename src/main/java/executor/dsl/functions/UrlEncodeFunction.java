@@ -1,17 +1,19 @@
 package executor.dsl.functions;
 
+import executor.dsl.BinaryValue;
 import executor.dsl.DslException;
 import executor.dsl.FunctionHandler;
 import executor.dsl.HttpContext;
 
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * URL编码函数
  * 用法: urlencode(data)
  * 示例: urlencode(http.request.path)
+ * 
+ * 按字节编码：Body使用原始字节，字符串按UTF-8编码，结果与UTF-8的URL编码一致
  */
 public class UrlEncodeFunction implements FunctionHandler {
     
@@ -21,13 +23,17 @@ public class UrlEncodeFunction implements FunctionHandler {
             throw new DslException("urlencode() requires 1 argument: urlencode(data)");
         }
         
-        String data = args.get(0) != null ? args.get(0).toString() : "";
-        
-        try {
-            return URLEncoder.encode(data, StandardCharsets.UTF_8.toString());
-        } catch (Exception e) {
-            throw new DslException("URL encode failed: " + e.getMessage(), e);
-        }
+        return BinaryValue.from(args.get(0)).transform(ByteCodecs::urlEncode);
+    }
+    
+    @Override
+    public List<ValueType> getArgumentTypes() {
+        return Arrays.asList(ValueType.ANY);
+    }
+    
+    @Override
+    public ValueType getReturnType() {
+        return ValueType.BINARY;
     }
     
     @Override
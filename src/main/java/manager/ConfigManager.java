@@ -1,6 +1,9 @@
 package manager;
 
+import executor.dsl.DslTemplateCompiler;
 import model.Config;
+import model.HttpTool;
+import util.BpLogger;
 import util.JsonUtil;
 import util.YamlUtil;
 import java.io.InputStream;
@@ -10,6 +13,8 @@ import java.io.InputStreamReader;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.stream.Collectors;
 import java.io.File;
 import javax.swing.JOptionPane;
@@ -23,7 +28,7 @@ public class ConfigManager {
     private static ConfigManager instance;
     private Config config;
     private final String RESOURCE_CONFIG_PATH = "/config.yaml";
-    private final String USER_CONFIG_DIR = System.getProperty("user.home") + File.separator + ".bparsenal";
+    private final String USER_CONFIG_DIR = getUserDataDirectory();
     private final String USER_CONFIG_FILE = USER_CONFIG_DIR + File.separator + "config.yaml";
     
     /**
@@ -100,6 +105,62 @@ public class ConfigManager {
                 JOptionPane.WARNING_MESSAGE
             );
         }
+        
+        // 检查命令模板，参数个数错误等问题在加载时提示，而不是等到执行命令时
+        List<String> problems = validateCommandTemplates();
+        if (!problems.isEmpty()) {
+            showTemplateProblems(problems);
+        }
+    }
+    
+    /**
+     * 检查所有HTTP工具命令中的DSL表达式
+     * 发现的问题同时记录到日志
+     * @return 问题列表，每项包含工具名称和问题描述
+     */
+    public List<String> validateCommandTemplates() {
+        List<String> problems = new ArrayList<>();
+        if (config == null || config.getHttpTool() == null) {
+            return problems;
+        }
+        
+        for (Config.HttpToolCategory category : config.getHttpTool()) {
+            if (category.getContent() == null) {
+                continue;
+            }
+            for (HttpTool tool : category.getContent()) {
+                for (String command : tool.getCommands()) {
+                    for (String problem : DslTemplateCompiler.validate(command)) {
+                        String message = tool.getToolName() + ": " + problem;
+                        problems.add(message);
+                        BpLogger.getInstance().warn("ConfigManager", "命令模板错误 - " + message);
+                    }
+                }
+            }
+        }
+        return problems;
+    }
+    
+    /**
+     * 提示命令模板中的问题（最多列出10条）
+     * @param problems 问题列表
+     */
+    private void showTemplateProblems(List<String> problems) {
+        int shown = Math.min(problems.size(), 10);
+        StringBuilder message = new StringBuilder("以下命令模板存在错误，执行时将输出错误信息：\n");
+        for (int i = 0; i < shown; i++) {
+            message.append("\n").append(problems.get(i));
+        }
+        if (problems.size() > shown) {
+            message.append("\n... 共 ").append(problems.size()).append(" 处");
+        }
+        
+        JOptionPane.showMessageDialog(
+            null,
+            message.toString(),
+            "命令模板错误",
+            JOptionPane.WARNING_MESSAGE
+        );
     }
     
     /**
@@ -238,6 +299,9 @@ public class ConfigManager {
         // 保存到用户目录（以YAML格式）
         saveConfig();
         
+        // 检查命令模板，问题记录到日志
+        validateCommandTemplates();
+        
     }
     
     /**
@@ -280,6 +344,15 @@ public class ConfigManager {
         return USER_CONFIG_DIR;
     }
     
+    /**
+     * 获取用户数据目录路径（~/.bparsenal）
+     * 不触发配置加载，供需要持久化数据的组件（如DSL函数）使用
+     * @return 用户数据目录路径
+     */
+    public static String getUserDataDirectory() {
+        return System.getProperty("user.home") + File.separator + ".bparsenal";
+    }
+    
     /**
      * 获取用户配置文件路径
      * @return 用户配置文件路径
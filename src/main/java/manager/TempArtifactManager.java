@@ -0,0 +1,441 @@
+package manager;
+
+import util.BpLogger;
+import util.TempFileManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 临时产物管理器，负责tmpFile()等生成的临时文件的生命周期
+ * 采用单例模式确保全局唯一实例
+ *
+ * - 登记：临时文件创建或复用时登记，记录大小和最近使用时间
+ * - 租约：启动的命令引用某个临时文件时持有租约。工具在终端启动器中运行，启动器进程会立即退出，
+ *   因此租约用 ~/.bparsenal/leases/ 下的标记文件表示：命令结束后由同一个shell删除标记，标记存在期间租约有效；
+ *   终端被强行关闭等情况下标记不会被删除，租约在最长期限后失效
+ * - 回收：后台线程定期删除没有租约且闲置超过期限的文件，总大小超过配额时从最久未用的开始删除
+ * - 心跳：每次回收时刷新仍在使用的文件的修改时间，其他Burp实例的启动清理据此判断文件是否仍有人使用
+ * - 统计：每 {@link #STATS_LOG_INTERVAL} 次回收把文件个数、租约个数、磁盘占用和累计回收量写入日志
+ * - 启动清理：清除以前会话遗留的 bparsenal_ 前缀临时文件（与 {@link TempFileManager#cleanupTempFiles(String)} 相同约定），
+ *   只删除超过宽限期没有心跳的文件，不会删除同时运行的其他实例正在使用的文件
+ *
+ * 不使用 File.deleteOnExit()，长时间运行的Burp会话中不会无限积累退出删除列表；
+ * 插件卸载时通过 {@link #shutdown()} 删除没有租约的文件，其余文件由下次启动清理
+ */
+public class TempArtifactManager {
+    
+    private static final String MODULE = "TempArtifactManager";
+    private static final String TEMP_FILE_PREFIX = "bparsenal_";
+    private static final String LEASE_DIRECTORY = "leases";
+    
+    // 清理时只匹配本插件生成的文件名：前缀 + 内容摘要 + 扩展名，或写入中断遗留的暂存文件
+    private static final Pattern ARTIFACT_NAME = Pattern.compile(
+        "^" + TEMP_FILE_PREFIX + "[A-Za-z0-9_]*[0-9a-f]{64}(\\.[^/\\\\]*)?$|^" + TEMP_FILE_PREFIX + ".*\\.part$");
+    
+    // 回收检查间隔（同时是心跳间隔）
+    private static final long REAP_INTERVAL_SECONDS = 60;
+    
+    // 没有租约的文件闲置超过此时长后删除
+    private static final long MAX_IDLE_MILLIS = TimeUnit.MINUTES.toMillis(30);
+    
+    // 租约标记未被删除时租约的最长有效期
+    private static final long MAX_LEASE_MILLIS = TimeUnit.HOURS.toMillis(24);
+    
+    // 临时文件总大小配额
+    private static final long MAX_TOTAL_BYTES = 1024L * 1024 * 1024;
+    
+    // 每多少次回收记录一次统计信息（约每10分钟）
+    private static final long STATS_LOG_INTERVAL = 10;
+    
+    // 启动清理时只删除修改时间早于此时长的遗留文件；远大于心跳间隔，其他实例正在使用的文件不会超过此时长
+    private static final long ORPHAN_GRACE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    
+    private static TempArtifactManager instance;
+    
+    private final Map<Path, Artifact> artifacts = new HashMap<>();
+    private final ScheduledExecutorService reaper;
+    private long reclaimedBytes;
+    private long reclaimedCount;
+    private long reapCount;
+    
+    /**
+     * 私有构造函数，启动后台回收线程，首次回收前先清理遗留文件
+     */
+    private TempArtifactManager() {
+        this.reaper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "BpArsenal-TempReaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reaper.execute(this::sweepOrphans);
+        reaper.scheduleWithFixedDelay(this::reap, REAP_INTERVAL_SECONDS, REAP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+    
+    /**
+     * 获取TempArtifactManager单例实例
+     * @return TempArtifactManager实例
+     */
+    public static synchronized TempArtifactManager getInstance() {
+        if (instance == null) {
+            instance = new TempArtifactManager();
+        }
+        return instance;
+    }
+    
+    /**
+     * 登记临时文件（或目录）
+     * 已登记的文件刷新大小和最近使用时间
+     * @param file 文件路径
+     */
+    public synchronized void track(Path file) {
+        Path key = file.toAbsolutePath().normalize();
+        Artifact artifact = artifacts.computeIfAbsent(key, Artifact::new);
+        artifact.size = sizeOf(key);
+        artifact.lastUsed = System.currentTimeMillis();
+    }
+    
+    /**
+     * 为即将启动的命令持有其中引用的所有临时文件的租约
+     * 返回的标记文件需要在命令结束后删除（由启动命令的shell删除，见 {@link executor.ToolExecutor}），
+     * 标记删除后租约释放，文件从此时开始计算闲置时间
+     * @param command 即将执行的命令
+     * @return 租约标记文件，命令没有引用临时文件或无法创建标记时返回null
+     */
+    public Path leaseReferenced(String command) {
+        if (command == null || command.isEmpty()) {
+            return null;
+        }
+        List<Artifact> referenced = new ArrayList<>();
+        synchronized (this) {
+            for (Artifact artifact : artifacts.values()) {
+                if (command.contains(artifact.path.toString())) {
+                    referenced.add(artifact);
+                }
+            }
+        }
+        if (referenced.isEmpty()) {
+            return null;
+        }
+        
+        Lease lease;
+        try {
+            Path directory = Paths.get(ConfigManager.getUserDataDirectory(), LEASE_DIRECTORY);
+            Files.createDirectories(directory);
+            lease = new Lease(Files.createTempFile(directory, "lease_", ".lock"), System.currentTimeMillis());
+        } catch (IOException e) {
+            BpLogger.getInstance().warn(MODULE, "创建租约标记失败，临时文件按闲置期限保留: " + e.getMessage());
+            return null;
+        }
+        synchronized (this) {
+            for (Artifact artifact : referenced) {
+                artifact.leases.add(lease);
+                artifact.lastUsed = lease.createdAt;
+            }
+        }
+        return lease.marker;
+    }
+    
+    /**
+     * 立即释放租约（命令启动失败时调用）
+     * @param marker {@link #leaseReferenced(String)} 返回的标记文件
+     */
+    public void releaseLease(Path marker) {
+        try {
+            Files.deleteIfExists(marker);
+        } catch (IOException e) {
+            // 租约在最长期限后失效
+        }
+    }
+    
+    /**
+     * 执行一次回收：删除闲置超期的文件，再按配额删除最久未用的文件
+     * 有租约的文件不会被删除；保留的文件刷新修改时间作为心跳
+     */
+    public synchronized void reap() {
+        long now = System.currentTimeMillis();
+        long before = reclaimedBytes;
+        
+        List<Artifact> candidates = new ArrayList<>();
+        for (Artifact artifact : new ArrayList<>(artifacts.values())) {
+            if (!Files.exists(artifact.path)) {
+                artifacts.remove(artifact.path);
+            } else if (artifact.isLeased(now)) {
+                heartbeat(artifact.path, now);
+            } else if (now - artifact.lastUsed > MAX_IDLE_MILLIS) {
+                delete(artifact);
+            } else {
+                heartbeat(artifact.path, now);
+                candidates.add(artifact);
+            }
+        }
+        
+        long total = getBytesOnDisk();
+        if (total > MAX_TOTAL_BYTES) {
+            candidates.sort(Comparator.comparingLong(artifact -> artifact.lastUsed));
+            for (Artifact artifact : candidates) {
+                if (total <= MAX_TOTAL_BYTES) {
+                    break;
+                }
+                total -= artifact.size;
+                delete(artifact);
+            }
+        }
+        
+        if (reclaimedBytes > before) {
+            BpLogger.getInstance().debug(MODULE, String.format("回收临时文件 %d 字节，当前占用 %d 字节 / %d 个文件",
+                reclaimedBytes - before, getBytesOnDisk(), artifacts.size()));
+        }
+        if (++reapCount % STATS_LOG_INTERVAL == 0 && (!artifacts.isEmpty() || reclaimedCount > 0)) {
+            BpLogger.getInstance().info(MODULE, String.format(
+                "临时文件统计: %d 个文件（%d 个有租约），占用 %d 字节；累计回收 %d 个文件 / %d 字节",
+                getArtifactCount(), getLeasedCount(), getBytesOnDisk(), getReclaimedCount(), getReclaimedBytes()));
+        }
+    }
+    
+    /**
+     * 清理以前会话遗留的临时文件
+     * 扫描插件目录和系统临时目录中未登记的 bparsenal_ 前缀文件
+     */
+    public void sweepOrphans() {
+        Set<Path> directories = new LinkedHashSet<>();
+        directories.add(Paths.get(TempFileManager.getTempDirectory()).toAbsolutePath().normalize());
+        directories.add(Paths.get(System.getProperty("java.io.tmpdir")).toAbsolutePath().normalize());
+        
+        long threshold = System.currentTimeMillis() - ORPHAN_GRACE_MILLIS;
+        for (Path directory : directories) {
+            sweepDirectory(directory, threshold);
+        }
+        sweepLeaseMarkers();
+    }
+    
+    /**
+     * 删除超过最长期限仍未被删除的租约标记（终端被强行关闭等情况遗留）
+     */
+    private void sweepLeaseMarkers() {
+        File[] markers = Paths.get(ConfigManager.getUserDataDirectory(), LEASE_DIRECTORY).toFile().listFiles();
+        if (markers == null) {
+            return;
+        }
+        long threshold = System.currentTimeMillis() - MAX_LEASE_MILLIS;
+        for (File marker : markers) {
+            if (marker.lastModified() < threshold && !marker.delete()) {
+                BpLogger.getInstance().debug(MODULE, "删除租约标记失败: " + marker);
+            }
+        }
+    }
+    
+    /**
+     * 删除目录中没有租约且闲置超过期限的临时文件
+     * 与后台回收使用相同的闲置期限，刚创建、还没有交给命令的文件不会被删除
+     * @param directory 目录
+     */
+    public void sweepIdle(Path directory) {
+        sweepDirectory(directory, System.currentTimeMillis() - MAX_IDLE_MILLIS);
+    }
+    
+    /**
+     * 删除目录中没有租约的临时文件
+     * 未登记的文件按修改时间、已登记的文件按最近使用时间与阈值比较
+     * @param directory 目录
+     * @param modifiedBefore 时间阈值（毫秒），早于此时间的文件才会被删除
+     */
+    public void sweepDirectory(Path directory, long modifiedBefore) {
+        File[] files = directory.toFile().listFiles((dir, name) -> ARTIFACT_NAME.matcher(name).matches());
+        if (files == null) {
+            return;
+        }
+        
+        for (File file : files) {
+            Path path = file.toPath().toAbsolutePath().normalize();
+            synchronized (this) {
+                Artifact artifact = artifacts.get(path);
+                if (artifact != null && (artifact.isLeased(System.currentTimeMillis())
+                        || artifact.lastUsed >= modifiedBefore)) {
+                    continue;
+                }
+                if (artifact == null && file.lastModified() >= modifiedBefore) {
+                    continue;
+                }
+                delete(artifact != null ? artifact : new Artifact(path));
+            }
+        }
+    }
+    
+    /**
+     * 停止回收线程并删除所有没有租约的临时文件
+     * 插件卸载时调用
+     */
+    public synchronized void shutdown() {
+        reaper.shutdownNow();
+        long now = System.currentTimeMillis();
+        for (Artifact artifact : new ArrayList<>(artifacts.values())) {
+            if (!artifact.isLeased(now)) {
+                delete(artifact);
+            }
+        }
+    }
+    
+    /**
+     * 已登记的临时文件占用的磁盘空间
+     * @return 字节数
+     */
+    public synchronized long getBytesOnDisk() {
+        long total = 0;
+        for (Artifact artifact : artifacts.values()) {
+            total += artifact.size;
+        }
+        return total;
+    }
+    
+    /**
+     * 已登记的临时文件个数
+     * @return 文件个数
+     */
+    public synchronized int getArtifactCount() {
+        return artifacts.size();
+    }
+    
+    /**
+     * 持有租约的临时文件个数
+     * @return 文件个数
+     */
+    public synchronized int getLeasedCount() {
+        long now = System.currentTimeMillis();
+        int count = 0;
+        for (Artifact artifact : artifacts.values()) {
+            if (artifact.isLeased(now)) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * 累计回收的字节数（包括启动清理）
+     * @return 字节数
+     */
+    public synchronized long getReclaimedBytes() {
+        return reclaimedBytes;
+    }
+    
+    /**
+     * 累计回收的文件个数（包括启动清理）
+     * @return 文件个数
+     */
+    public synchronized long getReclaimedCount() {
+        return reclaimedCount;
+    }
+    
+    private void delete(Artifact artifact) {
+        long size = artifact.size > 0 ? artifact.size : sizeOf(artifact.path);
+        try {
+            deleteRecursively(artifact.path);
+            reclaimedBytes += size;
+            reclaimedCount++;
+            artifacts.remove(artifact.path);
+        } catch (IOException e) {
+            BpLogger.getInstance().warn(MODULE, "删除临时文件失败: " + artifact.path + " - " + e.getMessage());
+        }
+    }
+    
+    private static void deleteRecursively(Path path) throws IOException {
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> walk = Files.walk(path)) {
+                List<Path> entries = new ArrayList<>();
+                walk.forEach(entries::add);
+                for (int i = entries.size() - 1; i >= 0; i--) {
+                    Files.deleteIfExists(entries.get(i));
+                }
+            }
+        } else {
+            Files.deleteIfExists(path);
+        }
+    }
+    
+    /**
+     * 刷新修改时间，表示文件仍被本实例使用
+     */
+    private static void heartbeat(Path path, long now) {
+        try {
+            Files.setLastModifiedTime(path, FileTime.fromMillis(now));
+        } catch (IOException e) {
+            // 无权修改时只影响其他实例的启动清理判断
+        }
+    }
+    
+    private static long sizeOf(Path path) {
+        try {
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> walk = Files.walk(path)) {
+                    return walk.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+                }
+            }
+            return Files.size(path);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+    
+    /**
+     * 租约标记
+     */
+    private static final class Lease {
+        private final Path marker;
+        private final long createdAt;
+        
+        private Lease(Path marker, long createdAt) {
+            this.marker = marker;
+            this.createdAt = createdAt;
+        }
+        
+        private boolean isActive(long now) {
+            return now - createdAt < MAX_LEASE_MILLIS && Files.exists(marker);
+        }
+    }
+    
+    /**
+     * 登记的临时文件
+     */
+    private static final class Artifact {
+        private final Path path;
+        private final List<Lease> leases = new ArrayList<>();
+        private long size;
+        private long lastUsed;
+        
+        private Artifact(Path path) {
+            this.path = path;
+        }
+        
+        /**
+         * 是否仍有有效的租约，顺带移除已释放的租约；最后一个租约释放时开始计算闲置时间
+         */
+        private boolean isLeased(long now) {
+            if (leases.isEmpty()) {
+                return false;
+            }
+            leases.removeIf(lease -> !lease.isActive(now));
+            if (leases.isEmpty()) {
+                lastUsed = now;
+                return false;
+            }
+            return true;
+        }
+    }
+}
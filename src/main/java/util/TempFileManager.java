@@ -1,14 +1,21 @@
 package util;
 
 import manager.ApiManager;
+import manager.TempArtifactManager;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 
 /**
  * 临时文件管理工具类
  * 负责创建和管理BpArsenal插件的临时文件
+ * 文件按内容摘要命名（见 {@link TempFileStore}），相同数据只写一个文件；
+ * 文件的回收由 {@link TempArtifactManager} 负责
  */
 public class TempFileManager {
     
@@ -62,26 +69,24 @@ public class TempFileManager {
             // 获取临时目录
             String tempDir = getTempDirectory();
             
-            // 创建临时文件
-            String fileName = TEMP_FILE_PREFIX + category + System.currentTimeMillis() + suffix;
-            File tempFile = new File(tempDir, fileName);
-            
-            // 写入数据
-            try (FileWriter writer = new FileWriter(tempFile)) {
+            // 写入按内容命名的临时文件，相同数据复用已有文件
+            Path tempFile = TempFileStore.store(Paths.get(tempDir), TEMP_FILE_PREFIX + category, suffix, out -> {
+                Writer writer = new OutputStreamWriter(out, Charset.defaultCharset());
                 for (String item : items) {
                     writer.write(item);
                     writer.write(System.lineSeparator());
                 }
-            }
+                writer.flush();
+            });
             
-            // 设置文件在程序退出时删除
-            tempFile.deleteOnExit();
+            // 登记到临时产物管理器，由其负责回收
+            TempArtifactManager.getInstance().track(tempFile);
             
             // 记录创建的临时文件
-            logFileCreation(tempFile.getAbsolutePath(), items.size());
-            
-            return tempFile.getAbsolutePath();
+            logFileCreation(tempFile.toAbsolutePath().toString(), items.size());
             
+            return tempFile.toAbsolutePath().toString();
+        
         } catch (Exception e) {
             I18nManager i18n = I18nManager.getInstance();
             throw new IOException(i18n.getText("temp.file.create.failed", e.getMessage()), e);
@@ -92,7 +97,7 @@ public class TempFileManager {
      * 获取临时目录路径
      * @return 临时目录路径
      */
-    private static String getTempDirectory() {
+    public static String getTempDirectory() {
         try {
             // 尝试获取插件目录
             if (ApiManager.getInstance().isInitialized()) {
@@ -120,6 +125,7 @@ public class TempFileManager {
     
     /**
      * 清理指定前缀的临时文件
+     * 正在被工具进程使用的文件和闲置未超过期限的文件不会被删除
      * @param directory 目录路径
      */
     public static void cleanupTempFiles(String directory) {
@@ -129,19 +135,8 @@ public class TempFileManager {
                 return;
             }
             
-            File[] tempFiles = dir.listFiles((dir1, name) -> 
-                name.startsWith(TEMP_FILE_PREFIX) && name.endsWith(".txt"));
-            
-            if (tempFiles != null) {
-                int deletedCount = 0;
-                for (File file : tempFiles) {
-                    if (file.delete()) {
-                        deletedCount++;
-                    }
-                }
-                
-            }
+            TempArtifactManager.getInstance().sweepIdle(dir.toPath());
         } catch (Exception e) {
         }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,348 @@
+package util;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumSet;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 按内容寻址的临时文件存储
+ *
+ * 内容先写入同目录下唯一的暂存文件，写入过程中同时计算SHA-256摘要，
+ * 写完后以"前缀 + 摘要 + 扩展名"为文件名原子重命名；同名文件已存在时说明内容相同，直接复用并删除暂存文件，
+ * 不会重写正在被工具读取的文件
+ *
+ * 因此并发写入不会冲突，反复渲染同一命令（例如多次预览批量命令）只会留下一个文件
+ *
+ * 文件位于所有用户共享的临时目录中，内容可能包含Cookie、Authorization等凭据，
+ * 暂存文件和暂存目录在POSIX系统上以仅所有者可访问的权限创建（不受umask影响而放宽）
+ */
+public class TempFileStore {
+    
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final String STAGING_SUFFIX = ".part";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final boolean POSIX = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+    private static final FileAttribute<?>[] OWNER_ONLY_FILE = ownerOnly("rw-------");
+    private static final FileAttribute<?>[] OWNER_ONLY_DIRECTORY = ownerOnly("rwx------");
+    
+    private TempFileStore() {
+    }
+    
+    /**
+     * 内容写入器
+     */
+    @FunctionalInterface
+    public interface ContentWriter {
+        /**
+         * 把内容写入输出流
+         * @param out 输出流（已带缓冲，无需再包装）
+         * @throws IOException 写入失败
+         */
+        void writeTo(OutputStream out) throws IOException;
+    }
+    
+    /**
+     * 写入内容并返回按摘要命名的文件
+     * @param directory 目标目录
+     * @param prefix 文件名前缀
+     * @param extension 扩展名（包含点号）
+     * @param writer 内容写入器
+     * @return 文件路径，内容相同时返回已有文件
+     * @throws IOException 写入或重命名失败
+     */
+    public static Path store(Path directory, String prefix, String extension, ContentWriter writer) throws IOException {
+        Files.createDirectories(directory);
+        Path staging = Files.createTempFile(directory, prefix, STAGING_SUFFIX);
+        try {
+            MessageDigest digest = newDigest();
+            long written;
+            try (DigestingChannelOutputStream out = new DigestingChannelOutputStream(
+                    FileChannel.open(staging, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), digest)) {
+                writer.writeTo(out);
+                out.flush();
+                written = out.written;
+            }
+            
+            // 已有文件大小不符说明被外部修改过，用新内容替换
+            Path target = directory.resolve(prefix + toHex(digest.digest()) + extension);
+            if (!Files.isRegularFile(target) || Files.size(target) != written) {
+                moveIntoPlace(staging, target);
+            }
+            return target;
+        } finally {
+            Files.deleteIfExists(staging);
+        }
+    }
+    
+    /**
+     * 计算内容的摘要而不写入磁盘
+     * 与 {@link #store} 使用相同的算法，可用于按内容命名不落盘的对象（如命名管道）
+     * @param writer 内容写入器
+     * @return 十六进制摘要
+     * @throws IOException 写入失败
+     */
+    public static String digest(ContentWriter writer) throws IOException {
+        MessageDigest digest = newDigest();
+        try (OutputStream out = new BufferedOutputStream(new DigestOutputStream(OutputStream.nullOutputStream(), digest), BUFFER_SIZE)) {
+            writer.writeTo(out);
+        }
+        return toHex(digest.digest());
+    }
+    
+    /**
+     * 计算内容对应的文件路径而不写入磁盘（用于预览渲染）
+     * @param directory 目标目录
+     * @param prefix 文件名前缀
+     * @param extension 扩展名（包含点号）
+     * @param writer 内容写入器
+     * @return 与 {@link #store(Path, String, String, ContentWriter)} 相同的文件路径
+     * @throws IOException 写入失败
+     */
+    public static Path locate(Path directory, String prefix, String extension, ContentWriter writer) throws IOException {
+        return directory.resolve(prefix + digest(writer) + extension);
+    }
+    
+    /**
+     * 计算字节内容对应的文件路径而不写入磁盘（用于预览渲染）
+     * @param directory 目标目录
+     * @param prefix 文件名前缀
+     * @param extension 扩展名（包含点号）
+     * @param content 字节内容
+     * @return 与 {@link #store(Path, String, String, byte[])} 相同的文件路径
+     * @throws IOException 摘要算法不可用
+     */
+    public static Path locate(Path directory, String prefix, String extension, byte[] content) throws IOException {
+        return directory.resolve(prefix + digest(content) + extension);
+    }
+    
+    /**
+     * 写入已在内存中的字节内容并返回按摘要命名的文件
+     * 先计算摘要，同名文件已存在时不再写入；字节直接写入FileChannel，不经过缓冲区复制
+     * @param directory 目标目录
+     * @param prefix 文件名前缀
+     * @param extension 扩展名（包含点号）
+     * @param content 字节内容
+     * @return 文件路径，内容相同时返回已有文件
+     * @throws IOException 写入或重命名失败
+     */
+    public static Path store(Path directory, String prefix, String extension, byte[] content) throws IOException {
+        Path target = directory.resolve(prefix + digest(content) + extension);
+        if (Files.isRegularFile(target) && Files.size(target) == content.length) {
+            return target;
+        }
+        
+        Files.createDirectories(directory);
+        Path staging = Files.createTempFile(directory, prefix, STAGING_SUFFIX);
+        try {
+            write(staging, content);
+            moveIntoPlace(staging, target);
+            return target;
+        } finally {
+            Files.deleteIfExists(staging);
+        }
+    }
+    
+    /**
+     * 计算字节内容的摘要
+     * @param content 字节内容
+     * @return 十六进制摘要
+     * @throws IOException 摘要算法不可用
+     */
+    public static String digest(byte[] content) throws IOException {
+        return toHex(newDigest().digest(content));
+    }
+    
+    /**
+     * 把字节内容完整写入文件（创建或截断）
+     * 新建的文件仅所有者可读写
+     * @param file 文件路径
+     * @param content 字节内容
+     * @throws IOException 写入失败
+     */
+    public static void write(Path file, byte[] content) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, EnumSet.of(StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING), OWNER_ONLY_FILE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+    
+    /**
+     * 创建唯一的暂存目录，用于生成一组文件后整体发布
+     * 暂存目录名以.part结尾，中断遗留时由启动清理删除；目录仅所有者可访问，发布（重命名）后保持不变
+     * @param directory 所在目录
+     * @param prefix 目录名前缀
+     * @return 暂存目录路径
+     * @throws IOException 创建失败
+     */
+    public static Path createStagingDirectory(Path directory, String prefix) throws IOException {
+        Files.createDirectories(directory);
+        while (true) {
+            Path staging = directory.resolve(prefix + Long.toUnsignedString(ThreadLocalRandom.current().nextLong()) + STAGING_SUFFIX);
+            try {
+                return Files.createDirectory(staging, OWNER_ONLY_DIRECTORY);
+            } catch (FileAlreadyExistsException e) {
+                // 名称冲突，换一个随机数重试
+            }
+        }
+    }
+    
+    /**
+     * 把暂存目录原子重命名为目标目录
+     * 目标目录已存在时说明内容相同（目录名为摘要），保留已有目录
+     * @param staging 暂存目录
+     * @param target 目标目录
+     * @return 是否发布了暂存目录（false时暂存目录仍需由调用方清理）
+     * @throws IOException 重命名失败
+     */
+    public static boolean publishDirectory(Path staging, Path target) throws IOException {
+        if (Files.isDirectory(target)) {
+            return false;
+        }
+        try {
+            Files.move(staging, target, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            return false;
+        } catch (IOException e) {
+            // 并发发布时目标目录可能已由其他线程创建（部分系统报告为目录非空）
+            if (Files.isDirectory(target)) {
+                return false;
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * 删除未发布的暂存目录及其中的文件
+     * @param staging 暂存目录（只包含文件，不含子目录）
+     * @throws IOException 删除失败
+     */
+    public static void discardDirectory(Path staging) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(staging)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(staging);
+    }
+    
+    /**
+     * 原子重命名到目标文件名，目标已存在时替换
+     * 读取方只会看到完整的旧文件或完整的新文件；文件系统不支持原子重命名时退化为普通重命名
+     * @param staging 已写完的暂存文件
+     * @param target 目标文件
+     * @throws IOException 重命名失败
+     */
+    public static void moveIntoPlace(Path staging, Path target) throws IOException {
+        try {
+            Files.move(staging, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(staging, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+    
+    private static FileAttribute<?>[] ownerOnly(String permissions) {
+        if (!POSIX) {
+            return new FileAttribute<?>[0];
+        }
+        return new FileAttribute<?>[] {PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString(permissions))};
+    }
+    
+    private static MessageDigest newDigest() throws IOException {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(DIGEST_ALGORITHM + " not available", e);
+        }
+    }
+    
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0x0f];
+            chars[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0x0f];
+        }
+        return new String(chars);
+    }
+    
+    /**
+     * 带缓冲的FileChannel输出流，每个缓冲块写入通道前先计入摘要
+     */
+    private static final class DigestingChannelOutputStream extends OutputStream {
+        private final FileChannel channel;
+        private final MessageDigest digest;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private long written;
+        
+        DigestingChannelOutputStream(FileChannel channel, MessageDigest digest) {
+            this.channel = channel;
+            this.digest = digest;
+        }
+        
+        @Override
+        public void write(int b) throws IOException {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            buffer.put((byte) b);
+        }
+        
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (!buffer.hasRemaining()) {
+                    drain();
+                }
+                int chunk = Math.min(length, buffer.remaining());
+                buffer.put(bytes, offset, chunk);
+                offset += chunk;
+                length -= chunk;
+            }
+        }
+        
+        @Override
+        public void flush() throws IOException {
+            drain();
+        }
+        
+        @Override
+        public void close() throws IOException {
+            try {
+                drain();
+            } finally {
+                channel.close();
+            }
+        }
+        
+        private void drain() throws IOException {
+            buffer.flip();
+            digest.update(buffer.array(), 0, buffer.limit());
+            written += buffer.limit();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -4,7 +4,8 @@ import burp.api.montoya.http.message.requests.HttpRequest;
 import burp.api.montoya.http.message.responses.HttpResponse;
 import controller.ToolController;
 import executor.ToolExecutor;
-import executor.dsl.DslVariableReplacer;
+import executor.dsl.HttpContext;
+import executor.dsl.TemplateDependencies;
 
 import manager.ApiManager;
 import manager.ConfigManager;
@@ -30,6 +31,7 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.io.File;
 import java.io.FileWriter;
@@ -67,8 +69,9 @@ public class ArsenalDialog extends JDialog implements I18nManager.LanguageChange
     private List<HttpToolCommand> filteredToolCommands;
     private HttpToolCommand selectedToolCommand;
     
-    // DSL变量替换器
-    private final DslVariableReplacer dslReplacer = new DslVariableReplacer();
+    // 命令实时渲染管线（后台渲染，整个对话框共用一个HttpContext）
+    private final CommandRenderPipeline renderPipeline =
+        new CommandRenderPipeline(this::buildRenderContext, this::publishRenderedCommand);
 
     
     /**
@@ -159,6 +162,15 @@ public class ArsenalDialog extends JDialog implements I18nManager.LanguageChange
         }
     }
     
+    /**
+     * 关闭对话框时停止后台渲染
+     */
+    @Override
+    public void dispose() {
+        renderPipeline.shutdown();
+        super.dispose();
+    }
+    
     /**
      * 将对话框置于前台
      */
@@ -553,29 +565,55 @@ public class ArsenalDialog extends JDialog implements I18nManager.LanguageChange
     
     /**
      * 同步原始命令到渲染命令选项卡
+     * 连续编辑会被合并，渲染在后台线程执行
      */
     private void syncOriginalToRendered() {
         if (httpRequest != null) {
-            SwingUtilities.invokeLater(() -> {
-                try {
-                    String originalCommand = originalCommandArea.getText();
-                    String renderedCommand = performVariableReplacement(originalCommand);
-                    
-                    // 暂时禁用文档监听器防止循环触发
-                    int caretPosition = renderedCommandArea.getCaretPosition();
-                    renderedCommandArea.setText(renderedCommand);
-                    
-                    // 保持光标位置
-                    try {
-                        renderedCommandArea.setCaretPosition(Math.min(caretPosition, renderedCommand.length()));
-                    } catch (Exception e) {
-                        renderedCommandArea.setCaretPosition(0);
-                    }
-                } catch (Exception e) {
-                    // 静默处理同步错误
-                }
-            });
+            renderPipeline.submit(originalCommandArea.getText());
+        }
+    }
+    
+    /**
+     * 发布渲染结果到渲染命令选项卡（在EDT上调用）
+     * @param renderedCommand 渲染后的命令
+     */
+    private void publishRenderedCommand(String renderedCommand) {
+        String text = renderedCommand != null ? renderedCommand : "";
+        
+        int caretPosition = renderedCommandArea.getCaretPosition();
+        renderedCommandArea.setText(text);
+        
+        // 保持光标位置
+        try {
+            renderedCommandArea.setCaretPosition(Math.min(caretPosition, text.length()));
+        } catch (Exception e) {
+            renderedCommandArea.setCaretPosition(0);
+        }
+    }
+    
+    /**
+     * 判断渲染命令区域的文本是否需要从原始命令重新渲染
+     * 区域中是预览结果（或预览尚未完成）时返回true；用户手动修改过的命令原样使用
+     * @param renderedText 渲染命令区域的文本
+     * @return 需要以执行模式重新渲染时返回true
+     */
+    private boolean needsRerender(String renderedText) {
+        return httpRequest != null
+            && (renderedText == null || renderedText.trim().isEmpty() || renderPipeline.isPublished(renderedText));
+    }
+    
+    /**
+     * 构建渲染用的HTTP上下文（由渲染管线在后台线程按模板依赖调用）
+     * @param dependencies 模板依赖，未引用的httpList和响应不会被构建
+     * @return HTTP上下文
+     */
+    private HttpContext buildRenderContext(TemplateDependencies dependencies) {
+        if (allSelectedRequests != null && allSelectedRequests.size() > 1) {
+            // 批量请求模式
+            return HttpContext.fromList(allSelectedRequests, null, dependencies);
         }
+        // 单个请求模式
+        return HttpContext.from(httpRequest, httpResponse, dependencies);
     }
     
     /**
@@ -589,33 +627,6 @@ public class ArsenalDialog extends JDialog implements I18nManager.LanguageChange
         }
     }
     
-    /**
-     * 执行变量替换（从原始命令文本进行替换）
-     * 使用新的DSL表达式系统
-     * @param command 原始命令文本
-     * @return 替换后的命令
-     */
-    private String performVariableReplacement(String command) {
-        try {
-            if (command == null || command.isEmpty() || httpRequest == null) {
-                return command;
-            }
-            
-            // 使用DSL变量替换器（支持函数调用和链式访问）
-            if (allSelectedRequests != null && allSelectedRequests.size() > 1) {
-                // 批量请求模式
-                return dslReplacer.replaceWithList(command, allSelectedRequests, null);
-            } else {
-                // 单个请求模式
-                return dslReplacer.replace(command, httpRequest, httpResponse);
-            }
-            
-        } catch (Exception e) {
-            // 如果替换失败，返回原始命令
-            return command;
-        }
-    }
-    
     /**
      * 清空命令文本区域
      */
@@ -905,9 +916,9 @@ public class ArsenalDialog extends JDialog implements I18nManager.LanguageChange
      */
     private void updateRenderedCommandDisplay() {
                 if (httpRequest != null) {
-                    String renderedCommand = generateRenderedCommand(selectedToolCommand, httpRequest);
-                    renderedCommandArea.setText(renderedCommand);
+                    String command = selectedToolCommand.getCommand() != null ? selectedToolCommand.getCommand() : "";
                     renderedCommandArea.setCaretPosition(0);
+                    renderPipeline.submitNow(command);
                 } else {
                     I18nManager renderI18n = I18nManager.getInstance();
                     renderedCommandArea.setText(renderI18n.getText("arsenal.dialog.no.request.render"));
@@ -926,42 +937,6 @@ public class ArsenalDialog extends JDialog implements I18nManager.LanguageChange
         
     }
     
-    /**
-     * 生成渲染后的命令
-     * 使用新的DSL表达式系统
-     * @param toolCommand HTTP工具命令
-     * @param request HTTP请求
-     * @return 渲染后的命令字符串（纯命令，不包含注释）
-     */
-    private String generateRenderedCommand(HttpToolCommand toolCommand, HttpRequest request) {
-        try {
-            String command = toolCommand.getCommand();
-            if (command == null || command.isEmpty()) {
-                return "";
-            }
-            
-            if (request == null) {
-                return command; // 返回原始命令，不添加警告注释
-            }
-            
-            // 使用DSL变量替换器（支持函数调用和链式访问）
-            if (allSelectedRequests != null && allSelectedRequests.size() > 1) {
-                // 批量请求模式
-                return dslReplacer.replaceWithList(command, allSelectedRequests, null);
-            } else {
-                // 单个请求模式
-                return dslReplacer.replace(command, request, httpResponse);
-            }
-            
-        } catch (Exception e) {
-            // 记录错误到日志，但返回原始命令
-            return toolCommand.getCommand();
-        }
-    }
-    
-    
-
-    
     /**
      * 执行选中的命令
      */
@@ -973,8 +948,15 @@ public class ArsenalDialog extends JDialog implements I18nManager.LanguageChange
         
         try {
             prepareExecutionUI(context);
-            executeCommandInternal(context);
-            restoreExecutionUI();
+            // 变量替换在渲染线程上完成，替换结果回到EDT后再启动工具
+            processFinalCommand(context, finalCommand -> {
+                try {
+                    executeCommandInternal(context, finalCommand);
+                    restoreExecutionUI();
+                } catch (Exception e) {
+                    handleExecutionError(context, e);
+                }
+            });
         } catch (Exception e) {
             handleExecutionError(context, e);
         }
@@ -995,16 +977,22 @@ public class ArsenalDialog extends JDialog implements I18nManager.LanguageChange
         if (selectedTab == 0) { // 原始命令选项卡
             context.command = originalCommandArea.getText();
             context.commandType = execI18n.getText("arsenal.dialog.execution.original.command");
+            context.template = httpRequest != null ? context.command : null;
         } else if (selectedTab == 1) { // 渲染命令选项卡
             context.command = renderedCommandArea.getText();
             context.commandType = execI18n.getText("arsenal.dialog.execution.rendered.command");
+            // 渲染命令未被手动修改时，从原始命令以执行模式重新渲染；手动修改过的命令原样执行
+            if (needsRerender(context.command)) {
+                context.template = originalCommandArea.getText();
+            }
         } else {
             JOptionPane.showMessageDialog(this, execI18n.getText("arsenal.dialog.message.select.tab"), 
                 execI18n.getText("dialog.title.warning"), JOptionPane.WARNING_MESSAGE);
             return null;
         }
         
-        if (context.command == null || context.command.trim().isEmpty()) {
+        String commandText = context.template != null ? context.template : context.command;
+        if (commandText == null || commandText.trim().isEmpty()) {
             JOptionPane.showMessageDialog(this, execI18n.getText("arsenal.dialog.message.command.empty"), 
                 execI18n.getText("dialog.title.error"), JOptionPane.ERROR_MESSAGE);
             return null;
@@ -1031,11 +1019,9 @@ public class ArsenalDialog extends JDialog implements I18nManager.LanguageChange
     /**
      * 执行命令内部逻辑
      * @param context 命令执行上下文
+     * @param finalCommand 变量替换后的命令
      */
-    private void executeCommandInternal(CommandExecutionContext context) throws Exception {
-        // 处理命令变量替换
-        String finalCommand = processFinalCommand(context);
-        
+    private void executeCommandInternal(CommandExecutionContext context, String finalCommand) throws Exception {
         // 记录最终执行的命令
         addExecutionLogEntry(context.i18n.getText("arsenal.dialog.execution.actual"), context.toolName, 
             context.i18n.getText("arsenal.dialog.execution.system.command"), finalCommand);
@@ -1049,18 +1035,17 @@ public class ArsenalDialog extends JDialog implements I18nManager.LanguageChange
     
     /**
      * 处理最终执行的命令
+     * 需要变量替换时在渲染线程上以执行模式渲染（副作用函数在此时才写入文件、记录状态），完成后在EDT上回调
      * @param context 命令执行上下文
-     * @return 处理后的命令
+     * @param then 接收最终命令的回调
      */
-    private String processFinalCommand(CommandExecutionContext context) {
-        String finalCommand = context.command.trim();
-        
-        // 如果是原始命令选项卡且有HTTP请求，需要重新进行变量替换
-        if (context.selectedTab == 0 && httpRequest != null) {
-            finalCommand = performVariableReplacement(context.command.trim());
+    private void processFinalCommand(CommandExecutionContext context, Consumer<String> then) {
+        if (context.template == null || context.template.trim().isEmpty()) {
+            then.accept(context.command.trim());
+            return;
         }
         
-        return finalCommand;
+        renderPipeline.renderForExecution(context.template.trim(), rendered -> then.accept(rendered.trim()));
     }
     
     /**
@@ -1111,6 +1096,7 @@ public class ArsenalDialog extends JDialog implements I18nManager.LanguageChange
     private static class CommandExecutionContext {
         int selectedTab;
         String command;
+        String template;  // 执行前需要渲染的原始命令，为null时原样执行command
         String commandType;
         String toolName;
         String toolWorkDir;
@@ -1214,9 +1200,24 @@ public class ArsenalDialog extends JDialog implements I18nManager.LanguageChange
             return;
         }
         
+        // 总是复制渲染后的命令，不依赖当前选中的选项卡
+        // 复制的命令会在别处执行，从原始命令以复制模式重新渲染（在渲染线程上完成）：
+        // 引用的文件照常写入，但工具不一定会运行，不记录已见集合
+        String renderedText = renderedCommandArea.getText();
+        if (needsRerender(renderedText)) {
+            renderPipeline.renderForCopy(originalCommandArea.getText(), this::copyCommandText);
+        } else {
+            copyCommandText(renderedText);
+        }
+    }
+    
+    /**
+     * 复制命令到剪贴板（在EDT上调用）
+     * @param commandToCopy 渲染后的命令
+     */
+    private void copyCommandText(String commandToCopy) {
+        I18nManager copyI18n = I18nManager.getInstance();
         try {
-            // 总是复制渲染后的命令，不依赖当前选中的选项卡
-            String commandToCopy = renderedCommandArea.getText();
             String commandType = copyI18n.getText("arsenal.dialog.copy.type.rendered");
             
             if (commandToCopy == null || commandToCopy.trim().isEmpty()) {
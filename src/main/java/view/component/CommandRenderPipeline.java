@@ -0,0 +1,201 @@
+package view.component;
+
+import executor.dsl.CompiledTemplate;
+import executor.dsl.DslTemplateCompiler;
+import executor.dsl.HttpContext;
+import executor.dsl.RenderScope;
+import executor.dsl.TemplateDependencies;
+
+import javax.swing.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 命令实时渲染管线
+ * 合并短时间内的连续编辑，在后台线程渲染，只把最新一次的结果发布回EDT
+ *
+ * 所有渲染都在同一个后台线程上进行，EDT只派发任务和接收结果，不会等待渲染
+ * 过期的任务按代数跳过，正在进行的渲染不会被中断（中断会关闭渲染中正在读写的FileChannel）
+ *
+ * 实时预览以预览模式渲染，副作用函数不写入文件、不记录状态；
+ * 执行命令时通过 {@link #renderForExecution(String, Consumer)} 以执行模式重新渲染，
+ * 复制命令时通过 {@link #renderForCopy(String, Consumer)} 以复制模式重新渲染（写入文件，不记录已见集合）
+ *
+ * HttpContext按模板依赖构建并缓存：未引用httpList或响应的模板不构建对应部分，
+ * 依赖相同的模板共用同一个上下文；上下文只在后台线程上构建和访问
+ *
+ * submit/submitNow/renderForExecution/renderForCopy/isPublished/shutdown 需要在EDT上调用
+ */
+public class CommandRenderPipeline {
+    
+    // 编辑合并的延迟时间（毫秒）
+    private static final int DEBOUNCE_DELAY_MS = 150;
+    
+    private final Function<TemplateDependencies, HttpContext> contextFactory;
+    private final Consumer<String> publisher;
+    private final ExecutorService renderExecutor;
+    private final Timer debounceTimer;
+    private final AtomicLong generation = new AtomicLong();
+    private final Map<Integer, HttpContext> contexts = new HashMap<>();
+    private String publishedText;
+    
+    private String pendingCommand;
+    private Future<?> currentTask;
+    
+    /**
+     * 创建渲染管线
+     * @param contextFactory HttpContext构建函数，按模板依赖在后台线程调用，依赖相同时只调用一次
+     * @param publisher 渲染结果发布函数，在EDT上调用
+     */
+    public CommandRenderPipeline(Function<TemplateDependencies, HttpContext> contextFactory,
+                                 Consumer<String> publisher) {
+        this.contextFactory = contextFactory;
+        this.publisher = publisher;
+        this.renderExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "BpArsenal-CommandRender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.debounceTimer = new Timer(DEBOUNCE_DELAY_MS, e -> dispatch(pendingCommand));
+        this.debounceTimer.setRepeats(false);
+    }
+    
+    /**
+     * 提交渲染请求（合并连续编辑）
+     * @param command 原始命令
+     */
+    public void submit(String command) {
+        pendingCommand = command;
+        // 使已在途的渲染结果失效
+        generation.incrementAndGet();
+        debounceTimer.restart();
+    }
+    
+    /**
+     * 立即提交渲染请求（不等待合并）
+     * @param command 原始命令
+     */
+    public void submitNow(String command) {
+        debounceTimer.stop();
+        dispatch(command);
+    }
+    
+    /**
+     * 在后台线程以执行模式渲染命令，完成后在EDT上回调
+     * 执行模式下副作用函数会真正写入文件和记录状态，只应在确实要执行命令时调用
+     * @param command 原始命令
+     * @param then 接收渲染结果的回调，渲染失败时收到原始命令
+     */
+    public void renderForExecution(String command, Consumer<String> then) {
+        renderOnce(command, RenderScope.Mode.EXECUTE, then);
+    }
+    
+    /**
+     * 在后台线程以复制模式渲染命令，完成后在EDT上回调
+     * 复制的命令不一定会执行：引用的文件照常写入，但不记录已见集合，命名管道改为临时文件
+     * @param command 原始命令
+     * @param then 接收渲染结果的回调，渲染失败时收到原始命令
+     */
+    public void renderForCopy(String command, Consumer<String> then) {
+        renderOnce(command, RenderScope.Mode.COPY, then);
+    }
+    
+    private void renderOnce(String command, RenderScope.Mode mode, Consumer<String> then) {
+        execute(() -> {
+            String rendered = render(command, mode);
+            SwingUtilities.invokeLater(() -> then.accept(rendered));
+        });
+    }
+    
+    /**
+     * 判断文本是否为最近一次发布的预览结果（即用户没有手动修改渲染命令）
+     * 预览结果只用于显示，执行前需要以执行模式重新渲染原始命令
+     * @param text 渲染命令区域的文本
+     * @return 与最近发布的预览结果相同时返回true
+     */
+    public boolean isPublished(String text) {
+        return publishedText != null && publishedText.equals(text);
+    }
+    
+    /**
+     * 停止管线
+     * 正在进行的渲染会自然结束，不会被中断
+     */
+    public void shutdown() {
+        debounceTimer.stop();
+        generation.incrementAndGet();
+        renderExecutor.shutdown();
+    }
+    
+    /**
+     * 派发后台预览渲染任务
+     */
+    private void dispatch(String command) {
+        final long taskGeneration = generation.incrementAndGet();
+        // 排队中的过期任务直接取消；正在进行的渲染不中断，结果按代数丢弃
+        if (currentTask != null) {
+            currentTask.cancel(false);
+        }
+        
+        currentTask = execute(() -> {
+            if (taskGeneration != generation.get()) {
+                return;
+            }
+            String rendered = render(command, RenderScope.Mode.PREVIEW);
+            if (taskGeneration != generation.get()) {
+                return;
+            }
+            SwingUtilities.invokeLater(() -> {
+                // 发布前再次确认没有更新的编辑
+                if (taskGeneration == generation.get()) {
+                    publisher.accept(rendered);
+                    publishedText = rendered;
+                }
+            });
+        });
+    }
+    
+    private Future<?> execute(Runnable task) {
+        if (renderExecutor.isShutdown()) {
+            return null;
+        }
+        try {
+            return renderExecutor.submit(task);
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * 在后台线程上渲染
+     * @return 渲染后的命令，失败时返回原始命令
+     */
+    private String render(String command, RenderScope.Mode mode) {
+        if (command == null || command.isEmpty()) {
+            return command;
+        }
+        try {
+            CompiledTemplate template = DslTemplateCompiler.compile(command);
+            return template.render(getContext(template.getDependencies()), mode);
+        } catch (Exception e) {
+            return command;
+        }
+    }
+    
+    /**
+     * 获取满足模板依赖的渲染上下文（只在后台线程上调用）
+     */
+    private HttpContext getContext(TemplateDependencies dependencies) {
+        int key = (dependencies.usesResponse() ? 1 : 0)
+            | (dependencies.usesHttpList() ? 2 : 0)
+            | (dependencies.usesHttpListResponses() ? 4 : 0);
+        return contexts.computeIfAbsent(key, k -> contextFactory.apply(dependencies));
+    }
+}
@@ -10,6 +10,7 @@ import view.component.ArsenalDialog;
 import controller.ToolController;
 import executor.ToolExecutor;
 import executor.CommandRenderingStrategy;
+import executor.dsl.DslTemplateCompiler;
 import util.ContextMenuEventHandler;
 import util.I18nManager;
 import util.MenuUtils;
@@ -261,8 +262,8 @@ public class ArsenalContextMenuProvider implements ContextMenuItemsProvider {
                 return true;
             }
             
-            // 检查命令是否包含httpList变量（使用正则表达式匹配 %httpList.*%）
-            boolean containsHttpList = command.matches(".*%httpList\\..*%.*");
+            // 检查命令是否引用httpList变量（基于缓存的模板依赖分析）
+            boolean containsHttpList = DslTemplateCompiler.analyze(command).usesHttpList();
             
             if (!containsHttpList) {
                 // 命令不包含httpList变量，无需验证
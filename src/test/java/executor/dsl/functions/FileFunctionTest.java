@@ -0,0 +1,112 @@
+package executor.dsl.functions;
+
+import executor.dsl.DslException;
+import executor.dsl.DslTemplateCompiler;
+import executor.dsl.HttpContext;
+import junit.framework.TestCase;
+import util.TempDirectory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * file()的追加、去重追加模式与行哈希索引
+ */
+public class FileFunctionTest extends TestCase {
+    
+    private Path directory;
+    
+    @Override
+    protected void setUp() throws IOException {
+        directory = TempDirectory.create("bparsenal_file_test");
+        // 行哈希索引默认存放在 ~/.bparsenal/index/ 下，测试期间指向临时目录
+        LineHashIndex.setIndexDirectory(directory.resolve("index"));
+    }
+    
+    @Override
+    protected void tearDown() throws IOException {
+        LineHashIndex.setIndexDirectory(null);
+        TempDirectory.delete(directory);
+    }
+    
+    public void testAppendAddsMissingNewline() throws IOException {
+        Path target = directory.resolve("append.txt");
+        Files.write(target, "a".getBytes(StandardCharsets.UTF_8));
+        
+        write(Arrays.asList("b", "c"), target, "append");
+        write(Arrays.asList("c"), target, "append");
+        
+        assertEquals(Arrays.asList("a", "b", "c", "c"), Files.readAllLines(target));
+    }
+    
+    public void testUniqueSkipsLinesAlreadyInFile() throws IOException {
+        Path target = directory.resolve("unique.txt");
+        Files.write(target, Arrays.asList("a", "b"));
+        
+        write(Arrays.asList("b", "c", "c", "d"), target, "unique");
+        assertEquals(Arrays.asList("a", "b", "c", "d"), Files.readAllLines(target));
+        
+        write(Arrays.asList("a", "d", "e"), target, "unique");
+        assertEquals(Arrays.asList("a", "b", "c", "d", "e"), Files.readAllLines(target));
+    }
+    
+    public void testIndexRebuiltAfterExternalAppend() throws IOException {
+        Path target = directory.resolve("external.txt");
+        write(Arrays.asList("a", "b"), target, "unique");
+        
+        // 其他程序追加的行也要参与去重
+        Files.write(target, Arrays.asList("x"), StandardOpenOption.APPEND);
+        write(Arrays.asList("x", "y", "a"), target, "unique");
+        
+        assertEquals(Arrays.asList("a", "b", "x", "y"), Files.readAllLines(target));
+    }
+    
+    public void testIndexRebuiltAfterExternalTruncate() throws IOException {
+        Path target = directory.resolve("truncated.txt");
+        write(Arrays.asList("a", "b"), target, "unique");
+        
+        Files.write(target, Arrays.asList("b"));
+        write(Arrays.asList("a", "b"), target, "unique");
+        
+        assertEquals(Arrays.asList("b", "a"), Files.readAllLines(target));
+    }
+    
+    public void testOverwriteReplacesContent() throws IOException {
+        Path target = directory.resolve("overwrite.txt");
+        Files.write(target, Arrays.asList("old", "lines"));
+        
+        write(Arrays.asList("new"), target, "overwrite");
+        
+        assertEquals(Arrays.asList("new"), Files.readAllLines(target));
+    }
+    
+    public void testPreviewRenderDoesNotWrite() {
+        Path target = directory.resolve("preview.txt");
+        String template = "cat %file('line', '" + target.toString().replace('\\', '/') + "', 'append')%";
+        
+        String preview = DslTemplateCompiler.compile(template).render(HttpContext.from(null, null), true);
+        assertFalse(preview, preview.contains("DSL Error"));
+        assertFalse(Files.exists(target));
+        
+        DslTemplateCompiler.compile(template).render(HttpContext.from(null, null));
+        assertTrue(Files.exists(target));
+    }
+    
+    public void testUnknownModeIsRejected() {
+        try {
+            write(Arrays.asList("a"), directory.resolve("mode.txt"), "prepend");
+            fail("expected DslException");
+        } catch (DslException expected) {
+            assertTrue(expected.getMessage().contains("prepend"));
+        }
+    }
+    
+    private static void write(List<String> lines, Path target, String mode) {
+        new FileFunction().execute(Arrays.asList(lines, target.toString(), mode), null);
+    }
+}
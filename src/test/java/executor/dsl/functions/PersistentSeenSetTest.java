@@ -0,0 +1,113 @@
+package executor.dsl.functions;
+
+import junit.framework.TestCase;
+import util.TempDirectory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Bloom过滤器文件与按工具持久化的已处理集合
+ */
+public class PersistentSeenSetTest extends TestCase {
+    
+    private Path directory;
+    
+    @Override
+    protected void setUp() throws IOException {
+        directory = TempDirectory.create("bparsenal_seen_test");
+    }
+    
+    @Override
+    protected void tearDown() throws IOException {
+        TempDirectory.delete(directory);
+    }
+    
+    public void testBloomFilterRoundTripAndReopen() throws IOException {
+        Path file = directory.resolve("filter.bloom");
+        BloomFilterFile filter = BloomFilterFile.create(file, 1000, 1e-3);
+        for (int i = 0; i < 500; i++) {
+            assertTrue(filter.put(h1(i), h2(i)));
+        }
+        for (int i = 0; i < 500; i++) {
+            assertTrue(filter.mightContain(h1(i), h2(i)));
+        }
+        assertFalse(filter.isFull());
+        filter.force();
+        
+        BloomFilterFile reopened = BloomFilterFile.open(file);
+        for (int i = 0; i < 500; i++) {
+            assertTrue(reopened.mightContain(h1(i), h2(i)));
+            assertFalse(reopened.put(h1(i), h2(i)));
+        }
+        int falsePositives = 0;
+        for (int i = 500; i < 10500; i++) {
+            if (reopened.mightContain(h1(i), h2(i))) {
+                falsePositives++;
+            }
+        }
+        assertTrue("false positives: " + falsePositives, falsePositives < 100);
+        
+        // 已插入个数随文件保存，插满设计容量后报告已满
+        for (int i = 500; i < 1000; i++) {
+            reopened.put(h1(i), h2(i));
+        }
+        assertTrue(BloomFilterFile.open(file).isFull());
+    }
+    
+    public void testOpenRejectsForeignFile() throws IOException {
+        Path file = directory.resolve("foreign.bloom");
+        Files.write(file, new byte[128]);
+        try {
+            BloomFilterFile.open(file);
+            fail("expected IOException");
+        } catch (IOException expected) {
+            // 魔数不符
+        }
+    }
+    
+    public void testSeenSetSurvivesReopen() throws IOException {
+        PersistentSeenSet seen = new PersistentSeenSet(directory, "sqlmap", 1000);
+        assertTrue(seen.add("GET https://example.com/a"));
+        assertFalse(seen.add("GET https://example.com/a"));
+        assertTrue(seen.contains("GET https://example.com/a"));
+        assertFalse(seen.contains("GET https://example.com/b"));
+        
+        PersistentSeenSet reopened = new PersistentSeenSet(directory, "sqlmap", 1000);
+        assertTrue(reopened.contains("GET https://example.com/a"));
+        assertFalse(reopened.add("GET https://example.com/a"));
+        assertTrue(reopened.add("GET https://example.com/b"));
+    }
+    
+    public void testGenerationRollover() throws IOException {
+        PersistentSeenSet seen = new PersistentSeenSet(directory, "nuclei", 100);
+        int added = 0;
+        for (int i = 0; i < 250; i++) {
+            if (seen.add("https://example.com/" + i)) {
+                added++;
+            }
+        }
+        assertEquals(250, added);
+        assertTrue(Files.exists(directory.resolve("nuclei.0.bloom")));
+        assertTrue(Files.exists(directory.resolve("nuclei.1.bloom")));
+        assertTrue(Files.exists(directory.resolve("nuclei.2.bloom")));
+        assertFalse(Files.exists(directory.resolve("nuclei.3.bloom")));
+        
+        // 重新打开时加载所有代，早期代中的键仍然可见
+        PersistentSeenSet reopened = new PersistentSeenSet(directory, "nuclei", 100);
+        for (int i = 0; i < 250; i++) {
+            assertTrue(reopened.contains("https://example.com/" + i));
+        }
+        assertTrue(reopened.add("https://example.com/250"));
+        assertFalse(Files.exists(directory.resolve("nuclei.3.bloom")));
+    }
+    
+    private static long h1(int i) {
+        return PersistentSeenSet.hash("key" + i, 0xcbf29ce484222325L);
+    }
+    
+    private static long h2(int i) {
+        return PersistentSeenSet.hash("key" + i, 0x84222325cbf29ce4L) | 1;
+    }
+}
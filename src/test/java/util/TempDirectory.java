@@ -0,0 +1,41 @@
+package util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * 测试使用的临时目录
+ * setUp中创建，tearDown中连同其中的所有文件一起删除
+ */
+public final class TempDirectory {
+    
+    private TempDirectory() {
+    }
+    
+    /**
+     * 创建临时目录
+     * @param prefix 目录名前缀
+     * @return 目录路径
+     * @throws IOException 创建失败
+     */
+    public static Path create(String prefix) throws IOException {
+        return Files.createTempDirectory(prefix);
+    }
+    
+    /**
+     * 删除目录及其中的所有文件，先删除子项再删除目录
+     * @param directory 目录路径，为null时忽略
+     * @throws IOException 遍历失败
+     */
+    public static void delete(Path directory) throws IOException {
+        if (directory == null || !Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package util;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.stream.Stream;
+
+/**
+ * 按内容寻址的临时文件存储
+ */
+public class TempFileStoreTest extends TestCase {
+    
+    private Path directory;
+    
+    @Override
+    protected void setUp() throws IOException {
+        directory = TempDirectory.create("bparsenal_store_test");
+    }
+    
+    @Override
+    protected void tearDown() throws IOException {
+        TempDirectory.delete(directory);
+    }
+    
+    public void testSameContentReusesFile() throws IOException {
+        Path first = TempFileStore.store(directory, "t_", ".txt", out -> out.write(bytes("a\nb\n")));
+        FileTime modified = FileTime.fromMillis(0);
+        Files.setLastModifiedTime(first, modified);
+        
+        Path second = TempFileStore.store(directory, "t_", ".txt", out -> out.write(bytes("a\nb\n")));
+        assertEquals(first, second);
+        // 内容相同的文件不会被重写
+        assertEquals(modified, Files.getLastModifiedTime(second));
+        assertEquals("a\nb\n", new String(Files.readAllBytes(second), StandardCharsets.UTF_8));
+        
+        Path other = TempFileStore.store(directory, "t_", ".txt", out -> out.write(bytes("c\n")));
+        assertFalse(first.equals(other));
+        assertEquals(2, countFiles());
+    }
+    
+    public void testByteAndStreamingStoresAgree() throws IOException {
+        byte[] content = bytes("GET / HTTP/1.1\r\nHost: example.com\r\n\r\n");
+        Path streamed = TempFileStore.store(directory, "r_", ".txt", out -> out.write(content));
+        Path stored = TempFileStore.store(directory, "r_", ".txt", content);
+        
+        assertEquals(streamed, stored);
+        assertEquals(streamed, TempFileStore.locate(directory, "r_", ".txt", out -> out.write(content)));
+        assertTrue(streamed.getFileName().toString().contains(TempFileStore.digest(content)));
+        assertEquals(1, countFiles());
+    }
+    
+    public void testModifiedFileIsReplaced() throws IOException {
+        Path file = TempFileStore.store(directory, "t_", ".txt", bytes("content"));
+        Files.write(file, bytes("tampered content"));
+        
+        Path again = TempFileStore.store(directory, "t_", ".txt", bytes("content"));
+        assertEquals(file, again);
+        assertEquals("content", new String(Files.readAllBytes(again), StandardCharsets.UTF_8));
+    }
+    
+    public void testPublishDirectoryKeepsExisting() throws IOException {
+        Path target = directory.resolve("reqs_digest");
+        Path first = TempFileStore.createStagingDirectory(directory, "reqs_");
+        Files.write(first.resolve("request_001.txt"), bytes("one"));
+        assertTrue(TempFileStore.publishDirectory(first, target));
+        
+        Path second = TempFileStore.createStagingDirectory(directory, "reqs_");
+        assertFalse(TempFileStore.publishDirectory(second, target));
+        assertTrue(Files.isDirectory(second));
+        assertTrue(Files.exists(target.resolve("request_001.txt")));
+    }
+    
+    private long countFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+    
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}